@@ -0,0 +1,43 @@
+package com.gjm.pk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 引擎饱和阈值，任一项超出时 readiness 变为不就绪，负载均衡不再向本节点分配新桌
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "poker.engine.saturation")
+public class EngineSaturationProperties {
+
+    /**
+     * 单张桌待执行的定时任务数上限（阶段推进、自动游戏、广播定时器之和）
+     */
+    private int maxPendingTasks = 64;
+
+    /**
+     * 自动游戏中AI行动的最长等待时间（毫秒），AI决策通常在数秒内完成，超过说明牌桌已卡住。
+     * 人类玩家的思考时间不计入
+     */
+    private long maxPendingActionAgeMillis = 60000;
+
+    /**
+     * 定时任务调度滞后上限（毫秒）
+     */
+    private long maxSchedulerLagMillis = 1000;
+
+    /**
+     * 连接发送队列的平均占用率上限（排队消息数 / 队列容量）
+     */
+    private double maxOutboundFillRatio = 0.75;
+
+    /**
+     * AI工作线程利用率上限
+     */
+    private double maxAiWorkerUtilization = 0.9;
+}
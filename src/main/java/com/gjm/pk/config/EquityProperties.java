@@ -0,0 +1,42 @@
+package com.gjm.pk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 胜率计算接口（/api/equity）配置
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "poker.equity")
+public class EquityProperties {
+
+    /**
+     * 同时进行的胜率计算数上限（每个计算内部仍并行使用公共 ForkJoin 池），超出的请求排队
+     */
+    private int threads = 2;
+
+    /**
+     * 单次请求的抽样次数上限，超出时返回400
+     */
+    private int maxTrials = 2_000_000;
+
+    /**
+     * 抽样次数向上取整到该值的倍数后再作为缓存键的一部分，避免每个不同的 trials 各占一条缓存
+     */
+    private int trialsBucket = 10_000;
+
+    /**
+     * 结果缓存的最大条目数（按花色同构规范化后的查询计）
+     */
+    private long cacheMaximumSize = 50_000;
+
+    /**
+     * 结果缓存的空闲过期时间（分钟）
+     */
+    private long cacheExpireMinutes = 60;
+}
@@ -1,27 +1,66 @@
 package com.gjm.pk.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.gjm.pk.entity.Card;
 import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.GameEvents;
+import com.gjm.pk.monitor.GameMetrics;
+import com.gjm.pk.monitor.ScheduledTaskTracker;
 import com.gjm.pk.service.impl.GameService;
 import com.gjm.pk.service.AutoGameManager;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.websocket.BinaryGameCodec;
+import com.gjm.pk.websocket.BroadcastCoalescer;
+import com.gjm.pk.websocket.DirectBufferPool;
+import com.gjm.pk.websocket.GameMessageJson;
+import com.gjm.pk.websocket.GameStateDelta;
+import com.gjm.pk.websocket.GameStateFeed;
+import com.gjm.pk.websocket.GameStateFrames;
+import com.gjm.pk.websocket.GameStateView;
+import com.gjm.pk.websocket.SessionOutboundRegistry;
+import com.gjm.pk.websocket.SpectatorBroadcaster;
+import com.gjm.pk.websocket.StateEventRing;
+import com.gjm.pk.websocket.TopicSubscriptions;
+import com.gjm.pk.websocket.VersionedStateViews;
+import com.gjm.pk.websocket.dto.ClientRequest;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.PublicGameState;
+import com.gjm.pk.websocket.dto.WsMessage;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 游戏WebSocket处理器 (已修复)
+ * 握手参数 protocol=json|delta|binary 选择状态编码，role=spectator 为只读观战连接；
+ * 状态按版本编码一次后经各连接的有界发送队列按主题推送，断线后可凭重连令牌恢复座位
  * @author: guojianming
  * @data 2025/09/17 17:49
  */
@@ -29,25 +68,158 @@ import java.util.stream.Collectors;
 @Component
 public class GameWebSocketHandler extends TextWebSocketHandler {
 
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    /** 观战者可用的操作 */
+    private static final Set<String> SPECTATOR_ACTIONS =
+            new HashSet<>(Arrays.asList("getGameState", "resync", "subscribe", "unsubscribe"));
+
+    /** 当前服务只有一张桌 */
+    public static final String DEFAULT_TABLE_ID = "default";
+    private static final String TABLE_TOPIC = TopicSubscriptions.tableTopic(DEFAULT_TABLE_ID);
+
     private final Map<String, String> sessionToPlayerId = new ConcurrentHashMap<>();
+    private final Map<String, ClientState> clientStates = new ConcurrentHashMap<>();
+
+    /** 发布状态时的锁，保证版本号与发出的增量顺序一致 */
+    private final Object publishLock = new Object();
+    private long stateVersion;
+    private PublicGameState lastPublicState;
+    private GameStateFrames currentFrames;
+    /** 本次广播放入队列的状态消息字节数（由 publishLock 保护） */
+    private long broadcastBytes;
+    /** 最近各版本的公共增量，用于重连补发（由 publishLock 保护写入） */
+    private final StateEventRing recentDeltas;
+
+    /** 重连令牌 -> 玩家ID，及其反向映射 */
+    private final Map<String, String> reconnectTokens = new ConcurrentHashMap<>();
+    private final Map<String, String> playerTokens = new ConcurrentHashMap<>();
+    /** 断线玩家的离座任务 */
+    private final Map<String, ScheduledFuture<?>> pendingRemovals = new ConcurrentHashMap<>();
+    private final long reconnectGraceMillis;
+    /** 单次补发的增量上限，超过时改发快照，避免撑满发送队列 */
+    private final int maxReplayDeltas;
+
+    /** 二进制状态消息最大长度（31字节头 + 每名玩家12字节） */
+    private static final int BINARY_BUFFER_SIZE = 256;
+    private final DirectBufferPool binaryBufferPool = new DirectBufferPool(BINARY_BUFFER_SIZE, 1024);
+    /** 当前版本的二进制公共状态与名单，有二进制客户端时才编码 */
+    private long binaryVersion = -1;
+    private ByteBuffer binaryTemplate;
+    private ByteBuffer binaryRoster;
+    private String binaryRosterKey;
+    private List<Player> binarySeats;
 
     private final GameService gameService;
     private final AutoGameManager autoGameManager;
+    private final BoardTextureAnalyzer boardTextureAnalyzer;
+    private final SessionOutboundRegistry outboundRegistry;
+    private final TopicSubscriptions subscriptions;
+    private final SpectatorBroadcaster spectatorBroadcaster;
+    private final GameMetrics gameMetrics;
+    private final GameStateFeed stateFeed;
+    private final VersionedStateViews stateViews;
+
+    private final ScheduledThreadPoolExecutor broadcastScheduler;
+    private final BroadcastCoalescer tableBroadcaster;
+    /** 上次广播时轮到的玩家，用于识别"轮到你" */
+    private volatile String lastBroadcastTurnPlayerId;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GameMessageJson json = new GameMessageJson(new ObjectMapper());
 
     @Autowired
-    public GameWebSocketHandler(@Lazy GameService gameService, @Lazy AutoGameManager autoGameManager) {
+    public GameWebSocketHandler(@Lazy GameService gameService, @Lazy AutoGameManager autoGameManager,
+                                BoardTextureAnalyzer boardTextureAnalyzer, SessionOutboundRegistry outboundRegistry,
+                                TopicSubscriptions subscriptions, WebSocketOutboundProperties outboundProperties,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                SpectatorBroadcaster spectatorBroadcaster, GameMetrics gameMetrics,
+                                GameStateFeed stateFeed, VersionedStateViews stateViews) {
         this.gameService = gameService;
         this.autoGameManager = autoGameManager;
+        this.boardTextureAnalyzer = boardTextureAnalyzer;
+        this.outboundRegistry = outboundRegistry;
+        this.subscriptions = subscriptions;
+        this.spectatorBroadcaster = spectatorBroadcaster;
+        this.gameMetrics = gameMetrics;
+        this.stateFeed = stateFeed;
+        this.stateViews = stateViews;
+        this.recentDeltas = new StateEventRing(outboundProperties.getEventBufferSize());
+        this.reconnectGraceMillis = outboundProperties.getReconnectGraceMillis();
+        this.maxReplayDeltas = Math.max(1, outboundProperties.getQueueCapacity() / 2);
+        this.broadcastScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ws-broadcast-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 取消的合并广播与离座任务立即出队，待执行任务数才准确
+        broadcastScheduler.setRemoveOnCancelPolicy(true);
+        this.tableBroadcaster = new BroadcastCoalescer(DEFAULT_TABLE_ID, outboundProperties.getBroadcastTickMillis(),
+                broadcastScheduler, this::flushGameState, meterRegistryProvider.getIfAvailable());
+        gameMetrics.gauge("poker.game.scheduler.pending", "待执行的定时任务数", broadcastScheduler,
+                scheduler -> scheduler.getQueue().size(), "executor", "broadcast-tick");
+    }
+
+    /**
+     * 广播定时器上待执行的任务数（合并广播、离座计时）
+     */
+    public int getPendingBroadcastTasks() {
+        return broadcastScheduler.getQueue().size();
+    }
+
+    /**
+     * 广播定时器队首任务超过计划时间的毫秒数
+     */
+    public long getBroadcastOverdueMillis() {
+        return ScheduledTaskTracker.overdueMillis(broadcastScheduler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcastScheduler.shutdownNow();
+    }
+
+    /**
+     * 握手时协商的状态协议
+     */
+    private enum Protocol {
+        /** 每次完整JSON状态 */
+        JSON,
+        /** JSON增量 */
+        DELTA,
+        /** 紧凑二进制 */
+        BINARY
+    }
+
+    /**
+     * 单个连接的协议与已发送状态
+     */
+    private static class ClientState {
+        private final Protocol protocol;
+        /** 只读观战者 */
+        private final boolean spectator;
+        private long sentVersion = -1;
+        private PrivateGameState sentPrivateState;
+        /** 二进制客户端已收到的座位名单 */
+        private String sentRosterKey;
+
+        ClientState(Protocol protocol, boolean spectator) {
+            this.protocol = protocol;
+            this.spectator = spectator;
+        }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.put(session.getId(), session);
-        log.info("新的WebSocket连接建立: {}", session.getId());
+        ClientState clientState = new ClientState(negotiateProtocol(session), isSpectator(session));
+        clientStates.put(session.getId(), clientState);
+        // 丢弃过状态消息的连接在队列排空后补发一次快照
+        outboundRegistry.register(session, () -> sendGameState(session));
+        log.info("新的WebSocket连接建立: {}{}", session.getId(), clientState.spectator ? "（观战）" : "");
         sendToSession(session, createMessage("connection", "连接成功", null));
+        if (clientState.spectator) {
+            spectatorBroadcaster.addSpectator(DEFAULT_TABLE_ID, session, clientState.protocol == Protocol.DELTA);
+            ensureCurrentFrames();
+        } else {
+            subscriptions.subscribe(TABLE_TOPIC, session);
+        }
     }
 
     @Override
@@ -55,60 +227,108 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         String sessionId = session.getId();
         String playerId = sessionToPlayerId.remove(sessionId);
 
-        if (playerId != null) {
-            log.info("玩家 {} 断开连接", playerId);
-            gameService.removePlayer(playerId);
-            broadcastPlayerDisconnected(playerId);
-            broadcastGameState(); // 广播状态让其他客户端更新玩家列表
+        subscriptions.removeSession(session);
+        ClientState clientState = clientStates.get(sessionId);
+        if (clientState != null && clientState.spectator) {
+            spectatorBroadcaster.removeSpectator(DEFAULT_TABLE_ID, session);
+        }
+        // 玩家已在新连接上恢复时，旧连接的关闭不影响座位
+        if (playerId != null && subscriptions.getPlayerSession(playerId) == null) {
+            if (reconnectGraceMillis > 0) {
+                log.info("玩家 {} 断开连接，座位保留 {} ms", playerId, reconnectGraceMillis);
+                pendingRemovals.put(playerId, broadcastScheduler.schedule(() -> expireSeat(playerId),
+                        reconnectGraceMillis, TimeUnit.MILLISECONDS));
+                broadcastPlayerDisconnected(playerId);
+            } else {
+                log.info("玩家 {} 断开连接", playerId);
+                broadcastPlayerDisconnected(playerId);
+                removeSeat(playerId);
+            }
         }
 
-        sessions.remove(sessionId);
+        clientStates.remove(sessionId);
+        outboundRegistry.remove(sessionId);
         log.info("WebSocket连接关闭: {}", sessionId);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         try {
-            Map<String, Object> request = objectMapper.readValue(message.getPayload(), Map.class);
-            String action = (String) request.get("action");
-
-            log.info("收到来自 {} 的消息: {}", session.getId(), message.getPayload());
-
-            switch (action) {
-                case "join":
-                    handleJoinGame(session, request);
-                    break;
-                case "playerAction":
-                    handlePlayerAction(session, request);
-                    break;
-                case "createAutoGame":
-                    autoGameManager.createSixPlayerAutoGame();
-                    break;
-                case "startAutoGame":
-                    autoGameManager.startAutoGame();
-                    break;
-                case "stopAutoGame":
-                    autoGameManager.stopAutoGame();
-                    break;
-                case "getGameState":
-                    sendGameState(session);
-                    break;
-                default:
-                    sendError(session, "未知的操作: " + action);
-                    break;
-            }
+            ClientRequest request = json.readRequest(message.getPayload());
+            log.debug("收到来自 {} 的消息: {}", session.getId(), request);
+            handleRequest(session, request);
         } catch (Exception e) {
             log.error("处理WebSocket消息失败: {}", e.getMessage(), e);
             sendError(session, "处理消息失败: " + e.getMessage());
         }
     }
 
-    private void handleJoinGame(WebSocketSession session, Map<String, Object> request) {
-        String playerName = (String) request.get("playerName");
-        Integer chips = (Integer) request.get("chips");
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        try {
+            ClientRequest request = BinaryGameCodec.decodeClientMessage(message.getPayload());
+            log.debug("收到来自 {} 的二进制消息: {}", session.getId(), request);
+            handleRequest(session, request);
+        } catch (Exception e) {
+            log.error("处理WebSocket二进制消息失败: {}", e.getMessage(), e);
+            sendError(session, "处理消息失败: " + e.getMessage());
+        }
+    }
+
+    private void handleRequest(WebSocketSession session, ClientRequest request) {
+        String action = request.getAction();
+        if (action == null) {
+            sendError(session, "缺少操作类型");
+            return;
+        }
+        ClientState clientState = clientStates.get(session.getId());
+        if (clientState != null && clientState.spectator && !SPECTATOR_ACTIONS.contains(action)) {
+            sendError(session, "观战者不能执行该操作: " + action);
+            return;
+        }
+        switch (action) {
+            case "join":
+                handleJoinGame(session, request);
+                break;
+            case "playerAction":
+                handlePlayerAction(session, request);
+                break;
+            case "createAutoGame":
+                autoGameManager.createSixPlayerAutoGame();
+                break;
+            case "startAutoGame":
+                autoGameManager.startAutoGame();
+                break;
+            case "stopAutoGame":
+                autoGameManager.stopAutoGame();
+                break;
+            case "subscribe":
+                handleSubscribe(session, request.getTopic(), true);
+                break;
+            case "unsubscribe":
+                handleSubscribe(session, request.getTopic(), false);
+                break;
+            case "resume":
+                handleResume(session, request);
+                break;
+            case "getGameState":
+            case "resync":
+                sendGameState(session);
+                break;
+            default:
+                sendError(session, "未知的操作: " + action);
+                break;
+        }
+    }
+
+    private void handleJoinGame(WebSocketSession session, ClientRequest request) {
+        String playerName = request.getPlayerName();
+        Integer chips = request.getChips();
         String playerId = "player_" + System.nanoTime(); // 由后端生成可靠的ID
 
         sessionToPlayerId.put(session.getId(), playerId);
+        subscriptions.bindPlayer(playerId, session);
+        subscriptions.subscribe(TABLE_TOPIC, session);
 
         boolean added = gameService.addRealPlayer(playerId, playerName, chips != null ? chips : 1000);
 
@@ -116,30 +336,139 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
             Player player = gameService.findPlayerById(playerId);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("player", convertPlayerToMap(player));
+            response.put("player", PlayerView.of(player, false));
+            response.put("reconnectToken", issueReconnectToken(playerId));
             sendToSession(session, createMessage("joinResult", "加入成功", response));
 
             log.info("玩家 {} ({}) 加入游戏", playerName, playerId);
+            // 新玩家收到完整快照，其他客户端收到玩家列表的增量
+            broadcastGameState();
+            publishLobbySummary();
         } else {
+            sessionToPlayerId.remove(session.getId());
+            subscriptions.unbindPlayer(playerId);
             sendError(session, "加入游戏失败，可能游戏已满或已开始");
         }
     }
 
-    private void handlePlayerAction(WebSocketSession session, Map<String, Object> request) {
+    /**
+     * 凭重连令牌回到原座位，并补发断线期间错过的状态
+     */
+    private void handleResume(WebSocketSession session, ClientRequest request) {
+        String token = request.getReconnectToken();
+        String playerId = token != null ? reconnectTokens.get(token) : null;
+        Player player = playerId != null ? gameService.findPlayerById(playerId) : null;
+        if (player == null) {
+            sendToSession(session, createMessage("resumeResult", "重连令牌无效或座位已释放",
+                    Collections.singletonMap("success", false)));
+            return;
+        }
+        ScheduledFuture<?> pendingRemoval = pendingRemovals.remove(playerId);
+        if (pendingRemoval != null) {
+            pendingRemoval.cancel(false);
+        }
+        WebSocketSession previous = subscriptions.getPlayerSession(playerId);
+        if (previous != null && !previous.getId().equals(session.getId())) {
+            sessionToPlayerId.remove(previous.getId());
+            closeQuietly(previous);
+        }
+        sessionToPlayerId.put(session.getId(), playerId);
+        subscriptions.bindPlayer(playerId, session);
+        subscriptions.subscribe(TABLE_TOPIC, session);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("player", PlayerView.of(player, false));
+        response.put("reconnectToken", token);
+        sendToSession(session, createMessage("resumeResult", "已恢复座位", response));
+        log.info("玩家 {} ({}) 重新连接", player.getName(), playerId);
+        replayMissed(session, request.getLastVersion());
+    }
+
+    /**
+     * 增量客户端版本仍在缓冲范围内时只补发错过的增量（最后附上本人私有状态），否则发完整快照
+     */
+    private void replayMissed(WebSocketSession session, Long lastVersion) {
+        synchronized (publishLock) {
+            ClientState clientState = clientStates.get(session.getId());
+            if (clientState == null) {
+                return;
+            }
+            PrivateGameState privateState = buildPrivateState(sessionToPlayerId.get(session.getId()));
+            List<byte[]> missed = clientState.protocol == Protocol.DELTA && lastVersion != null && currentFrames != null
+                    ? recentDeltas.since(lastVersion) : null;
+            if (missed == null || missed.size() > maxReplayDeltas) {
+                if (currentFrames == null) {
+                    publishFrames(buildPublicState(), null);
+                }
+                sendSnapshot(session, clientState, privateState);
+                return;
+            }
+            for (byte[] delta : missed) {
+                outboundRegistry.sendControl(session, new TextMessage(delta));
+            }
+            clientState.sentVersion = stateVersion;
+            deliverState(session, clientState, currentFrames.selfOnlyDeltaMessage(privateState), privateState);
+            log.info("session {} 从版本 {} 恢复，补发 {} 个增量", session.getId(), lastVersion, missed.size());
+        }
+    }
+
+    private String issueReconnectToken(String playerId) {
+        String token = UUID.randomUUID().toString();
+        String previous = playerTokens.put(playerId, token);
+        if (previous != null) {
+            reconnectTokens.remove(previous);
+        }
+        reconnectTokens.put(token, playerId);
+        return token;
+    }
+
+    /**
+     * 保留期结束仍未重连：释放座位
+     */
+    private void expireSeat(String playerId) {
+        pendingRemovals.remove(playerId);
+        if (subscriptions.getPlayerSession(playerId) != null) {
+            return;
+        }
+        log.info("玩家 {} 未在保留期内重连，离开座位", playerId);
+        removeSeat(playerId);
+    }
+
+    private void removeSeat(String playerId) {
+        String token = playerTokens.remove(playerId);
+        if (token != null) {
+            reconnectTokens.remove(token);
+        }
+        gameService.removePlayer(playerId);
+        broadcastGameState(); // 广播状态让其他客户端更新玩家列表
+        publishLobbySummary();
+    }
+
+    private void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.NORMAL);
+        } catch (IOException e) {
+            log.error("关闭 session {} 失败: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void handlePlayerAction(WebSocketSession session, ClientRequest request) {
         String playerId = sessionToPlayerId.get(session.getId());
         if (playerId == null) {
             sendError(session, "请先加入游戏");
             return;
         }
 
-        if (!gameService.isPlayerTurn(playerId)) {
-            sendError(session, "不是你的回合");
+        String actionType = request.getActionType();
+        int amount = request.getAmount() != null ? request.getAmount() : 0;
+        // 与推送给玩家的合法行动比较，不合法时直接告知原因
+        String rejection = gameService.checkAction(playerId, actionType, amount);
+        if (rejection != null) {
+            sendError(session, rejection);
             return;
         }
 
-        String actionType = (String) request.get("actionType");
-        Integer amount = request.get("amount") instanceof Integer ? (Integer) request.get("amount") : 0;
-
         boolean success = gameService.playerAction(playerId, actionType, amount);
 
         if (success && autoGameManager.isAutoGameRunning()) {
@@ -147,116 +476,389 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    private void handleSubscribe(WebSocketSession session, String topic, boolean subscribe) {
+        if (!TopicSubscriptions.isValidTopic(topic)) {
+            sendError(session, "无效的订阅主题: " + topic);
+            return;
+        }
+        if (!subscribe) {
+            subscriptions.unsubscribe(topic, session);
+            return;
+        }
+        ClientState clientState = clientStates.get(session.getId());
+        if (clientState != null && clientState.spectator && TABLE_TOPIC.equals(topic)) {
+            sendError(session, "观战者已通过观战推送接收本桌画面");
+            return;
+        }
+        subscriptions.subscribe(topic, session);
+        if (TABLE_TOPIC.equals(topic)) {
+            sendGameState(session);
+        } else if (TopicSubscriptions.LOBBY.equals(topic)) {
+            sendToSession(session, createMessage("lobbyUpdate", "大厅信息", buildLobbySummary()));
+        }
+    }
+
+    /**
+     * 向单个连接发送当前版本的完整快照
+     */
     public void sendGameState(WebSocketSession session) {
-        String playerId = sessionToPlayerId.get(session.getId());
-        Map<String, Object> gameState = buildGameState(playerId);
-        sendToSession(session, createMessage("gameState", "游戏状态更新", gameState));
+        ClientState clientState = clientStates.get(session.getId());
+        if (clientState != null && clientState.spectator) {
+            spectatorBroadcaster.resync(DEFAULT_TABLE_ID, session);
+            return;
+        }
+        synchronized (publishLock) {
+            if (currentFrames == null) {
+                publishFrames(buildPublicState(), null);
+            }
+            if (clientState != null) {
+                sendSnapshot(session, clientState, buildPrivateState(sessionToPlayerId.get(session.getId())));
+            }
+        }
     }
 
+    /**
+     * 标记状态已变化：轮到新的人类玩家行动时立即广播，其他变化在本桌的下一个广播间隔合并发送
+     */
     public void broadcastGameState() {
-        log.debug("准备广播游戏状态...");
-        sessions.values().forEach(this::sendGameState);
         Player currentPlayer = gameService.getCurrentPlayer();
-        log.info("游戏状态已广播给所有 {} 个连接。当前轮到: {} (ID: {})", sessions.size(),
-                currentPlayer != null ? currentPlayer.getName() : "无",
-                currentPlayer != null ? currentPlayer.getId() : "无");
+        if (currentPlayer != null && !currentPlayer.isAi()
+                && !currentPlayer.getId().equals(lastBroadcastTurnPlayerId)) {
+            tableBroadcaster.flushNow();
+        } else {
+            tableBroadcaster.request();
+        }
     }
 
-    private void broadcastPlayerDisconnected(String playerId) {
-        broadcast(createMessage("playerDisconnected", "玩家断开", Collections.singletonMap("playerId", playerId)));
+    /**
+     * 发布最新状态：公共状态有变化时版本号加1并编码一次，增量客户端收到增量，其他客户端收到完整状态；
+     * 公共与私有状态都没有变化的连接不再重复发送
+     *
+     * @return 发出的状态消息数
+     */
+    private int flushGameState() {
+        int sent = 0;
+        GameEvents.Broadcast event = new GameEvents.Broadcast();
+        event.begin();
+        synchronized (publishLock) {
+            Player turnPlayer = gameService.getCurrentPlayer();
+            lastBroadcastTurnPlayerId = turnPlayer != null ? turnPlayer.getId() : null;
+            long start = System.nanoTime();
+            PublicGameState publicState = buildPublicState();
+            Map<String, Object> delta = lastPublicState != null
+                    ? GameStateDelta.diff(lastPublicState, publicState) : null;
+            boolean changed = delta == null || !delta.isEmpty();
+            long built = System.nanoTime();
+            if (changed) {
+                publishFrames(publicState, delta);
+            }
+            long serialized = System.nanoTime();
+            broadcastBytes = 0;
+
+            for (WebSocketSession session : subscriptions.getSubscribers(TABLE_TOPIC)) {
+                ClientState clientState = clientStates.get(session.getId());
+                if (clientState == null) {
+                    continue;
+                }
+                PrivateGameState privateState = buildPrivateState(sessionToPlayerId.get(session.getId()));
+                boolean privateChanged = !Objects.equals(privateState, clientState.sentPrivateState);
+                boolean upToDate = clientState.sentVersion == stateVersion;
+                if (upToDate && !privateChanged) {
+                    continue;
+                }
+                if (clientState.protocol == Protocol.DELTA && upToDate) {
+                    deliverState(session, clientState, currentFrames.selfOnlyDeltaMessage(privateState), privateState);
+                } else if (clientState.protocol == Protocol.DELTA && currentFrames.hasDelta()
+                        && clientState.sentVersion == stateVersion - 1) {
+                    deliverState(session, clientState,
+                            currentFrames.deltaMessageFor(privateChanged ? privateState : null), privateState);
+                } else {
+                    sendSnapshot(session, clientState, privateState);
+                }
+                sent++;
+            }
+            long finished = System.nanoTime();
+            gameMetrics.recordBroadcastBuild(built - start);
+            if (changed) {
+                gameMetrics.recordBroadcastSerialize(serialized - built);
+            }
+            gameMetrics.recordBroadcastSend(finished - serialized);
+            if (event.shouldCommit()) {
+                event.tableId = DEFAULT_TABLE_ID;
+                event.handId = gameService.getHandId();
+                event.version = stateVersion;
+                event.messages = sent;
+                event.bytes = broadcastBytes;
+                event.buildDuration = built - start;
+                event.serializeDuration = serialized - built;
+                event.sendDuration = finished - serialized;
+                event.commit();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("游戏状态已广播给 {}/{} 个订阅连接，当前轮到: {}", sent,
+                    subscriptions.getSubscriberCount(TABLE_TOPIC), lastBroadcastTurnPlayerId);
+        }
+        return sent;
     }
 
-    private Map<String, Object> buildGameState(String recipientPlayerId) {
-        Map<String, Object> gameState = new HashMap<>();
+    /**
+     * 新版本：编码一次并交给观战推送、HTTP 推送与 REST 读接口（调用方持有 publishLock）
+     */
+    private void publishFrames(PublicGameState publicState, Map<String, Object> delta) {
+        stateVersion++;
+        lastPublicState = publicState;
+        currentFrames = GameStateFrames.encode(json, stateVersion, publicState, delta);
+        recentDeltas.append(stateVersion, currentFrames.hasDelta() ? currentFrames.deltaFor(null) : null);
+        spectatorBroadcaster.publish(DEFAULT_TABLE_ID, SpectatorBroadcaster.Frame.of(currentFrames));
+        stateFeed.publish(DEFAULT_TABLE_ID, currentFrames);
+        stateViews.publish(stateVersion, publicState);
+    }
 
-        gameState.put("pot", gameService.getPot());
-        gameState.put("currentBetAmount", gameService.getCurrentBetAmount());
-        gameState.put("currentPhase", gameService.getCurrentPhase().toString());
+    /**
+     * 观战者或 HTTP 订阅者到来时若还没有任何帧，立即编码当前状态
+     */
+    public void ensureCurrentFrames() {
+        synchronized (publishLock) {
+            if (currentFrames == null) {
+                publishFrames(buildPublicState(), null);
+            }
+        }
+    }
 
-        gameState.put("communityCards", gameService.getCommunityCards().stream()
-                .map(this::convertCardToMap)
-                .collect(Collectors.toList()));
+    private void sendSnapshot(WebSocketSession session, ClientState clientState, PrivateGameState privateState) {
+        if (clientState.protocol == Protocol.BINARY) {
+            sendBinaryState(session, clientState, privateState);
+            return;
+        }
+        deliverState(session, clientState,
+                currentFrames.snapshotMessageFor(sessionToPlayerId.get(session.getId()), privateState), privateState);
+    }
 
-        gameState.put("players", gameService.getPlayers().stream()
-                .map(player -> {
-                    Map<String, Object> playerMap = convertPlayerToMap(player);
-                    // 只对当前玩家或者在摊牌阶段显示手牌
-                    if (player.getId().equals(recipientPlayerId) || gameService.getCurrentPhase() == GameService.GamePhase.SHOWDOWN) {
-                        playerMap.put("holeCards", player.getHoleCards().stream()
-                                .map(this::convertCardToMap)
-                                .collect(Collectors.toList()));
-                    }
-                    return playerMap;
-                })
-                .collect(Collectors.toList()));
+    /**
+     * 二进制客户端：名单变化时先发名单，再把公共状态复制进池化直接缓冲区并填入本人手牌，发送后归还缓冲区。
+     * 二进制状态总是完整的，合并策略下直接沿用本条消息
+     */
+    private void sendBinaryState(WebSocketSession session, ClientState clientState, PrivateGameState privateState) {
+        encodeBinaryFrames();
+        if (!binaryRosterKey.equals(clientState.sentRosterKey)) {
+            outboundRegistry.sendControl(session, new BinaryMessage(binaryRoster.duplicate()));
+            clientState.sentRosterKey = binaryRosterKey;
+        }
 
-        Player currentPlayer = gameService.getCurrentPlayer();
-        if (currentPlayer != null) {
-            gameState.put("currentPlayer", convertPlayerToMap(currentPlayer));
+        Player self = null;
+        String playerId = sessionToPlayerId.get(session.getId());
+        if (playerId != null) {
+            self = gameService.findPlayerById(playerId);
+        }
+        int seat = self != null ? binarySeats.indexOf(self) : -1;
+        int outs = 0;
+        double completionProbability = 0;
+        if (privateState != null && privateState.getDraws() != null) {
+            outs = privateState.getDraws().getOuts();
+            completionProbability = privateState.getDraws().getCompletionProbability();
         }
 
-        gameState.put("isAutoGameRunning", autoGameManager.isAutoGameRunning());
+        boolean pooled = binaryTemplate.remaining() <= BINARY_BUFFER_SIZE;
+        ByteBuffer buffer = pooled ? binaryBufferPool.acquire() : ByteBuffer.allocate(binaryTemplate.remaining());
+        BinaryGameCodec.personalize(binaryTemplate, buffer, seat,
+                self != null ? self.getHoleCards() : Collections.emptyList(), outs, completionProbability);
+        buffer.flip();
+        gameMetrics.recordMessageBytes(buffer.remaining());
+        broadcastBytes += buffer.remaining();
+        BinaryMessage binaryMessage = new BinaryMessage(buffer);
+        SessionOutboundRegistry.StateDelivery delivery = outboundRegistry.sendState(session.getId(), binaryMessage,
+                () -> binaryMessage, pooled ? () -> binaryBufferPool.release(buffer) : null);
+        recordDelivery(clientState, delivery, privateState);
+    }
 
-        return gameState;
+    /**
+     * 按需编码当前版本的二进制公共状态与座位名单（调用方持有 publishLock）
+     */
+    private void encodeBinaryFrames() {
+        if (binaryVersion == stateVersion) {
+            return;
+        }
+        List<Player> players = gameService.getPlayers();
+        ByteBuffer template = ByteBuffer.allocate(BinaryGameCodec.HEADER_SIZE
+                + players.size() * BinaryGameCodec.PLAYER_RECORD_SIZE);
+        BinaryGameCodec.encodeState(template, stateVersion, players, gameService.getCommunityCards(),
+                gameService.getPot(), gameService.getCurrentBetAmount(), gameService.getCurrentPhase().toString(),
+                gameService.getCurrentPlayer(), autoGameManager.isAutoGameRunning());
+        template.flip();
+
+        StringBuilder rosterKey = new StringBuilder();
+        int rosterSize = 2;
+        for (Player player : players) {
+            rosterKey.append(player.getId()).append('\u0000').append(player.getName()).append('\u0000');
+            rosterSize += 2 + 3 * (player.getId().length() + (player.getName() != null ? player.getName().length() : 0));
+        }
+        String key = rosterKey.toString();
+        if (!key.equals(binaryRosterKey)) {
+            ByteBuffer roster = ByteBuffer.allocate(rosterSize);
+            BinaryGameCodec.encodeRoster(roster, players);
+            roster.flip();
+            binaryRoster = roster.asReadOnlyBuffer();
+            binaryRosterKey = key;
+        }
+        binaryTemplate = template.asReadOnlyBuffer();
+        binarySeats = new ArrayList<>(players);
+        binaryVersion = stateVersion;
+    }
+
+    /**
+     * 状态消息入队；队列满时由慢客户端策略决定合并、丢弃或断开。
+     * 共享的快照与增量是同一个消息对象，只有拼接了私有字段的消息是本连接独有的
+     */
+    private void deliverState(WebSocketSession session, ClientState clientState, TextMessage message,
+                              PrivateGameState privateState) {
+        GameStateFrames frames = currentFrames;
+        String playerId = sessionToPlayerId.get(session.getId());
+        gameMetrics.recordMessageBytes(message.getPayloadLength());
+        broadcastBytes += message.getPayloadLength();
+        SessionOutboundRegistry.StateDelivery delivery = outboundRegistry.sendState(session.getId(),
+                message, () -> frames.snapshotMessageFor(playerId, privateState));
+        recordDelivery(clientState, delivery, privateState);
+    }
+
+    private void recordDelivery(ClientState clientState, SessionOutboundRegistry.StateDelivery delivery,
+                                PrivateGameState privateState) {
+        switch (delivery) {
+            case ENQUEUED:
+            case COALESCED:
+                clientState.sentVersion = stateVersion;
+                clientState.sentPrivateState = privateState;
+                break;
+            case DROPPED:
+                // 客户端已落后，之后发快照
+                clientState.sentVersion = -1;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 所有连接共享的公共状态
+     */
+    private PublicGameState buildPublicState() {
+        return GameStateView.publicState(gameService.getGameId(), gameService.getPlayers(),
+                gameService.getCommunityCards(), gameService.getPot(), gameService.getCurrentBetAmount(), gameService.getCurrentPhase().toString(),
+                gameService.getCurrentPlayer(), autoGameManager.isAutoGameRunning(), gameService.getRunoutEquity());
+    }
+
+    /**
+     * 只发给本人的私有状态（手牌、听牌提示与本人回合的合法行动），未入座时返回null
+     */
+    private PrivateGameState buildPrivateState(String recipientPlayerId) {
+        if (recipientPlayerId == null) {
+            return null;
+        }
+        Player player = gameService.findPlayerById(recipientPlayerId);
+        if (player == null) {
+            return null;
+        }
+        return GameStateView.privateState(player, gameService.getCommunityCards(), boardTextureAnalyzer,
+                gameService.getLegalActions());
+    }
+
+    private void broadcastPlayerDisconnected(String playerId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("playerId", playerId);
+        data.put("graceMillis", reconnectGraceMillis);
+        publish(TABLE_TOPIC, createMessage("playerDisconnected", "玩家断开", data));
+    }
+
+    /**
+     * 大厅中的桌子概况，入座人数变化时推送给 lobby 订阅者
+     */
+    private void publishLobbySummary() {
+        if (subscriptions.getSubscriberCount(TopicSubscriptions.LOBBY) > 0) {
+            publish(TopicSubscriptions.LOBBY, createMessage("lobbyUpdate", "大厅信息", buildLobbySummary()));
+        }
     }
 
-    private Map<String, Object> convertPlayerToMap(Player player) {
-        Map<String, Object> playerMap = new HashMap<>();
-        playerMap.put("id", player.getId());
-        playerMap.put("name", player.getName());
-        playerMap.put("chips", player.getChips());
-        playerMap.put("currentBet", player.getCurrentBet());
-        playerMap.put("inGame", player.isInGame());
-        playerMap.put("isAi", player.isAi());
-        playerMap.put("hasFolded", player.isHasFolded());
-        playerMap.put("isAllIn", player.isAllIn());
-        playerMap.put("isDealer", player.isDealer());
-        playerMap.put("isSmallBlind", player.isSmallBlind());
-        playerMap.put("isBigBlind", player.isBigBlind());
-        if (player.getLastAction() != null) {
-            playerMap.put("lastAction", player.getLastAction().toString());
+    private Map<String, Object> buildLobbySummary() {
+        Map<String, Object> table = new HashMap<>();
+        table.put("tableId", DEFAULT_TABLE_ID);
+        table.put("playerCount", gameService.getPlayers().size());
+        table.put("currentPhase", gameService.getCurrentPhase().toString());
+        table.put("subscriberCount", subscriptions.getSubscriberCount(TABLE_TOPIC));
+        table.put("spectatorCount", spectatorBroadcaster.getSpectatorCount());
+        return Collections.singletonMap("tables", Collections.singletonList(table));
+    }
+
+    /**
+     * 发送私有消息给指定玩家，通过反向索引直接定位连接
+     *
+     * @return 玩家未连接时返回false
+     */
+    public boolean sendToPlayer(String playerId, String type, String message, Object data) {
+        WebSocketSession session = subscriptions.getPlayerSession(playerId);
+        if (session == null) {
+            return false;
         }
-        return playerMap;
+        sendToSession(session, createMessage(type, message, data));
+        return true;
     }
 
-    private Map<String, Object> convertCardToMap(Card card) {
-        Map<String, Object> cardMap = new HashMap<>();
-        cardMap.put("suit", card.getSuit());
-        cardMap.put("rank", card.getRank());
-        cardMap.put("suitName", card.getSuitName());
-        cardMap.put("rankName", card.getRankName());
-        cardMap.put("display", card.toString());
-        cardMap.put("shortDisplay", card.toShortString());
-        return cardMap;
+    private static boolean isSpectator(WebSocketSession session) {
+        return "spectator".equals(queryParams(session).getFirst("role"));
     }
 
-    private void broadcast(Object message) {
-        sessions.values().forEach(session -> sendToSession(session, message));
+    private static Protocol negotiateProtocol(WebSocketSession session) {
+        String protocol = queryParams(session).getFirst("protocol");
+        if ("binary".equals(protocol)) {
+            return Protocol.BINARY;
+        }
+        if ("delta".equals(protocol)) {
+            return Protocol.DELTA;
+        }
+        return Protocol.JSON;
+    }
+
+    /**
+     * 握手地址的查询参数，按参数名精确匹配（不做子串匹配）
+     */
+    private static MultiValueMap<String, String> queryParams(WebSocketSession session) {
+        URI uri = session.getUri();
+        if (uri == null) {
+            return new LinkedMultiValueMap<>();
+        }
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+    }
+
+    /**
+     * 推送给主题的所有订阅者，消息只序列化一次
+     */
+    private void publish(String topic, WsMessage message) {
+        try {
+            TextMessage textMessage = new TextMessage(json.writeMessage(message));
+            for (WebSocketSession session : subscriptions.getSubscribers(topic)) {
+                if (session.isOpen()) {
+                    outboundRegistry.sendControl(session, textMessage);
+                }
+            }
+        } catch (IOException e) {
+            log.error("推送主题 {} 失败: {}", topic, e.getMessage());
+        }
     }
 
     private void sendError(WebSocketSession session, String errorMessage) {
         sendToSession(session, createMessage("error", errorMessage, null));
     }
 
-    private void sendToSession(WebSocketSession session, Object message) {
+    private void sendToSession(WebSocketSession session, WsMessage message) {
         try {
             if (session.isOpen()) {
-                String json = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(json));
+                outboundRegistry.sendControl(session, new TextMessage(json.writeMessage(message)));
             }
         } catch (IOException e) {
             log.error("发送消息到 session {} 失败: {}", session.getId(), e.getMessage());
         }
     }
 
-    private Map<String, Object> createMessage(String type, String message, Object data) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("type", type);
-        response.put("message", message);
-        response.put("timestamp", System.currentTimeMillis());
-        if (data != null) {
-            response.put("data", data);
-        }
-        return response;
+    private WsMessage createMessage(String type, String message, Object data) {
+        return WsMessage.of(type, message, data);
     }
 }
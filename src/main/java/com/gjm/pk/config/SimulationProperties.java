@@ -0,0 +1,47 @@
+package com.gjm.pk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量模拟（/api/sim）配置
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "poker.simulation")
+public class SimulationProperties {
+
+    /**
+     * 所有模拟共用的工作线程数，即模拟可占用的CPU核数上限；0 表示可用核数的一半
+     */
+    private int threads = 0;
+
+    /**
+     * 同时运行的模拟数上限，超出时返回429
+     */
+    private int maxConcurrent = 4;
+
+    /**
+     * 单次模拟的手数上限
+     */
+    private long maxHands = 10_000_000;
+
+    /**
+     * 每个任务打的手数；各模拟的任务在共用线程池中轮流执行
+     */
+    private int chunkHands = 2_000;
+
+    /**
+     * 进度行的最小间隔（毫秒）
+     */
+    private long progressIntervalMillis = 500;
+
+    /**
+     * 单次模拟的最长时间（毫秒），超时后停止并关闭响应
+     */
+    private long timeoutMillis = 3_600_000;
+}
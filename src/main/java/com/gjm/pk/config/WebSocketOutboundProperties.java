@@ -0,0 +1,74 @@
+package com.gjm.pk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 发送队列配置
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "websocket.outbound")
+public class WebSocketOutboundProperties {
+
+    /**
+     * 慢客户端策略
+     */
+    public enum SlowConsumerPolicy {
+        /** 队列满时丢弃新的状态消息，队列排空后补发一次最新快照 */
+        DROP_INTERMEDIATE,
+        /** 队列满时把排队中的状态消息合并为一条最新快照 */
+        COALESCE_LATEST,
+        /** 队列满时断开连接 */
+        DISCONNECT
+    }
+
+    /**
+     * 每个连接的发送队列容量（消息数）
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 慢客户端策略
+     */
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.COALESCE_LATEST;
+
+    /**
+     * 发送线程数
+     */
+    private int senderThreads = 4;
+
+    /**
+     * 单条消息的发送时限（毫秒），超过时断开该连接以释放发送线程；0 表示不限制
+     */
+    private long sendTimeLimitMillis = 10000;
+
+    /**
+     * 每张桌状态广播的合并间隔（毫秒），间隔内的多次状态变化只发送一次；0 表示不合并
+     */
+    private long broadcastTickMillis = 40;
+
+    /**
+     * 观战推送线程数，每个观战连接固定由其中一个线程按版本顺序推送
+     */
+    private int spectatorFanOutThreads = 2;
+
+    /**
+     * 观战画面延迟（毫秒），防止观战者向场上玩家透露信息；0 表示不延迟
+     */
+    private long spectatorDelayMillis = 0;
+
+    /**
+     * 玩家断线后保留座位的时间（毫秒），期间可凭重连令牌恢复；0 表示断线立即离座
+     */
+    private long reconnectGraceMillis = 30000;
+
+    /**
+     * 每张桌保留的最近状态增量数，重连时补发错过的增量，落后更多时改发快照
+     */
+    private int eventBufferSize = 128;
+}
@@ -0,0 +1,118 @@
+package com.gjm.pk.controller;
+
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.service.EquityService;
+import com.gjm.pk.service.HandRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 牌局分析控制器
+ * 提供范围胜率等离线分析接口；计算与 /api/equity 一样交给 EquityService（缓存、合并相同请求、独立线程池）
+ *
+ * @author: guojianming
+ * @date: 2025/10/11
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/analysis")
+@CrossOrigin(origins = "*")
+public class AnalysisController {
+
+    @Autowired
+    private EquityService equityService;
+
+    /**
+     * 范围对范围胜率
+     * 请求示例：{"ranges": ["QQ+, AKs", "A5s-A2s, KQo"], "board": "AsKd7h", "dead": "", "trials": 200000}
+     */
+    @PostMapping("/range-equity")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> rangeEquity(@RequestBody Map<String, Object> request) {
+        List<HandRange> ranges = new ArrayList<>();
+        List<Card> board;
+        List<Card> dead;
+        int trials;
+        try {
+            Object rawRanges = request.get("ranges");
+            if (!(rawRanges instanceof List)) {
+                return CompletableFuture.completedFuture(badRequest("缺少必要参数: ranges"));
+            }
+            for (Object notation : (List<?>) rawRanges) {
+                ranges.add(HandRange.parse(String.valueOf(notation)));
+            }
+            board = Card.parseList(optionalString(request, "board"));
+            dead = Card.parseList(optionalString(request, "dead"));
+            Object rawTrials = request.get("trials");
+            if (rawTrials != null && !(rawTrials instanceof Integer)) {
+                return CompletableFuture.completedFuture(badRequest("trials 必须是整数"));
+            }
+            trials = rawTrials != null ? (Integer) rawTrials : 0;
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(badRequest(e.getMessage()));
+        }
+
+        long start = System.nanoTime();
+        return equityService.equity(ranges, board, dead, trials).handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof IllegalArgumentException) {
+                    return badRequest(cause.getMessage());
+                }
+                log.error("范围胜率计算失败: {}", cause.getMessage(), cause);
+                return ResponseEntity.internalServerError().build();
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            List<Map<String, Object>> players = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                Map<String, Object> player = new HashMap<>();
+                player.put("range", ranges.get(i).getNotation());
+                player.put("combos", ranges.get(i).comboCount());
+                player.put("equity", result.getEquity()[i]);
+                player.put("win", result.getWin()[i]);
+                player.put("tie", result.getTie()[i]);
+                players.add(player);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("players", players);
+            response.put("exact", result.isExact());
+            response.put("trials", result.getTrials());
+            response.put("source", result.getSource().name().toLowerCase());
+            response.put("elapsedMs", elapsedMs);
+
+            log.info("范围胜率计算完成: {} 个范围, 公共牌 {} 张, {}, 耗时 {}ms",
+                    ranges.size(), board.size(), result.isExact() ? "精确枚举" : "抽样", elapsedMs);
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    /**
+     * 可选的字符串字段，缺省为null，类型不对时按参数错误处理
+     */
+    private static String optionalString(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(field + " 必须是字符串");
+        }
+        return (String) value;
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+}
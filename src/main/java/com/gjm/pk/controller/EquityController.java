@@ -0,0 +1,101 @@
+package com.gjm.pk.controller;
+
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.service.EquityService;
+import com.gjm.pk.service.HandRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 胜率计算控制器
+ * 2-10名玩家的具体手牌或范围、部分公共牌与死牌 -> 各玩家的胜率/独赢/平分概率。
+ * 由 EquityService 计算并缓存，计算在独立线程池中进行，等待期间不占用请求线程
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/equity")
+@CrossOrigin(origins = "*")
+public class EquityController {
+
+    @Autowired
+    private EquityService equityService;
+
+    /**
+     * 胜率计算
+     * 请求示例：{"players": ["AsKs", "QdQc", "JJ+, AQs+"], "board": "Ks7h2d", "dead": "", "trials": 200000}
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> equity(@RequestBody Map<String, Object> request) {
+        List<HandRange> ranges = new ArrayList<>();
+        List<Card> board;
+        List<Card> dead;
+        int trials;
+        try {
+            Object rawPlayers = request.get("players");
+            if (!(rawPlayers instanceof List)) {
+                return CompletableFuture.completedFuture(badRequest("缺少必要参数: players"));
+            }
+            for (Object notation : (List<?>) rawPlayers) {
+                ranges.add(HandRange.parse(String.valueOf(notation)));
+            }
+            board = Card.parseList((String) request.get("board"));
+            dead = Card.parseList((String) request.get("dead"));
+            trials = request.get("trials") instanceof Integer ? (Integer) request.get("trials") : 0;
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return CompletableFuture.completedFuture(badRequest(e.getMessage()));
+        }
+
+        long start = System.nanoTime();
+        return equityService.equity(ranges, board, dead, trials).handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof IllegalArgumentException) {
+                    return badRequest(cause.getMessage());
+                }
+                log.error("胜率计算失败: {}", cause.getMessage(), cause);
+                return ResponseEntity.internalServerError().build();
+            }
+
+            List<Map<String, Object>> players = new ArrayList<>();
+            for (int i = 0; i < ranges.size(); i++) {
+                Map<String, Object> player = new HashMap<>();
+                player.put("hand", ranges.get(i).getNotation());
+                player.put("combos", ranges.get(i).comboCount());
+                player.put("equity", result.getEquity()[i]);
+                player.put("win", result.getWin()[i]);
+                player.put("tie", result.getTie()[i]);
+                players.add(player);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("players", players);
+            response.put("exact", result.isExact());
+            response.put("trials", result.getTrials());
+            response.put("source", result.getSource().name().toLowerCase());
+            response.put("computeMs", result.getComputeMillis());
+            response.put("elapsedMs", (System.nanoTime() - start) / 1_000_000);
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    private ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+}
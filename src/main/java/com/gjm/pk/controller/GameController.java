@@ -1,16 +1,29 @@
 package com.gjm.pk.controller;
 
+import com.gjm.pk.config.GameWebSocketHandler;
 import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.EngineSaturationMonitor;
+import com.gjm.pk.monitor.EngineSnapshot;
 import com.gjm.pk.service.impl.GameService;
 import com.gjm.pk.service.AutoGameManager;
+import com.gjm.pk.websocket.GameStateFeed;
+import com.gjm.pk.websocket.VersionedStateViews;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PublicGameState;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 游戏控制器
@@ -30,22 +43,35 @@ public class GameController {
     
     @Autowired
     private AutoGameManager autoGameManager;
+
+    @Autowired
+    private EngineSaturationMonitor engineSaturationMonitor;
+
+    @Autowired
+    private GameStateFeed gameStateFeed;
+
+    @Autowired
+    private GameWebSocketHandler webSocketHandler;
+
+    @Autowired
+    private VersionedStateViews stateViews;
     
     /**
      * 获取游戏状态
      */
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> getGameStatus() {
+    public ResponseEntity<byte[]> getGameStatus(WebRequest request) {
         try {
-            Map<String, Object> status = new HashMap<>();
-            status.put("phase", gameService.getCurrentPhase());
-            status.put("pot", gameService.getPot());
-            status.put("currentBetAmount", gameService.getCurrentBetAmount());
-            status.put("currentPlayerTurn", gameService.getCurrentPlayerTurn());
-            status.put("playersCount", gameService.getPlayers().size());
-            status.put("communityCardsCount", gameService.getCommunityCards().size());
-            
-            return ResponseEntity.ok(status);
+            return versionedView(request, "status", state -> {
+                Map<String, Object> status = new HashMap<>();
+                status.put("phase", state.getCurrentPhase());
+                status.put("pot", state.getPot());
+                status.put("currentBetAmount", state.getCurrentBetAmount());
+                status.put("currentPlayerTurn", currentPlayerIndex(state));
+                status.put("playersCount", state.getPlayers().size());
+                status.put("communityCardsCount", state.getCommunityCards().size());
+                return status;
+            });
         } catch (Exception e) {
             log.error("获取游戏状态失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -53,13 +79,36 @@ public class GameController {
     }
     
     /**
-     * 获取所有玩家信息
+     * 长轮询游戏状态：版本超过 sinceVersion（上次响应的 X-State-Version）时返回该版本的完整公共快照，
+     * 否则最多等待30秒，超时返回204；服务重启前的版本标识会立即得到当前快照
+     */
+    @GetMapping(value = "/status", params = "sinceVersion")
+    public DeferredResult<ResponseEntity<byte[]>> awaitGameStatus(@RequestParam String sinceVersion) {
+        webSocketHandler.ensureCurrentFrames();
+        return gameStateFeed.awaitVersion(GameWebSocketHandler.DEFAULT_TABLE_ID, sinceVersion);
+    }
+
+    /**
+     * 订阅某张桌的状态流（SSE），每个版本推送一次完整公共快照，事件ID为版本标识（启动标识-版本号）
+     */
+    @GetMapping(value = "/tables/{tableId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamGameState(
+            @PathVariable String tableId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (!GameWebSocketHandler.DEFAULT_TABLE_ID.equals(tableId)) {
+            return ResponseEntity.notFound().build();
+        }
+        webSocketHandler.ensureCurrentFrames();
+        return ResponseEntity.ok(gameStateFeed.subscribe(tableId, lastEventId));
+    }
+
+    /**
+     * 获取所有玩家信息（公共视图，手牌只在摊牌时可见）
      */
     @GetMapping("/players")
-    public ResponseEntity<List<Player>> getPlayers() {
+    public ResponseEntity<byte[]> getPlayers(WebRequest request) {
         try {
-            List<Player> players = gameService.getPlayers();
-            return ResponseEntity.ok(players);
+            return versionedView(request, "players", PublicGameState::getPlayers);
         } catch (Exception e) {
             log.error("获取玩家信息失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -70,14 +119,15 @@ public class GameController {
      * 获取公共牌
      */
     @GetMapping("/community-cards")
-    public ResponseEntity<Map<String, Object>> getCommunityCards() {
+    public ResponseEntity<byte[]> getCommunityCards(WebRequest request) {
         try {
-            Map<String, Object> result = new HashMap<>();
-            result.put("cards", gameService.getCommunityCards());
-            result.put("count", gameService.getCommunityCards().size());
-            result.put("phase", gameService.getCurrentPhase());
-            
-            return ResponseEntity.ok(result);
+            return versionedView(request, "community-cards", state -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("cards", state.getCommunityCards());
+                result.put("count", state.getCommunityCards().size());
+                result.put("phase", state.getCurrentPhase());
+                return result;
+            });
         } catch (Exception e) {
             log.error("获取公共牌失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -126,10 +176,9 @@ public class GameController {
      * 获取游戏统计信息
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getGameStats() {
+    public ResponseEntity<byte[]> getGameStats(WebRequest request) {
         try {
-            Map<String, Object> stats = gameService.getGameStats();
-            return ResponseEntity.ok(stats);
+            return versionedView(request, "stats", GameController::statsView);
         } catch (Exception e) {
             log.error("获取游戏统计失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -267,14 +316,86 @@ public class GameController {
     }
     
     /**
-     * 健康检查
+     * 健康检查，引擎饱和时返回503（明细见 /actuator/engine）
      */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
+        EngineSnapshot snapshot = engineSaturationMonitor.snapshot();
         Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+        health.put("status", snapshot.isSaturated() ? "OUT_OF_SERVICE" : "UP");
         health.put("timestamp", System.currentTimeMillis());
         health.put("service", "Texas Hold'em Poker Game");
+        if (snapshot.isSaturated()) {
+            health.put("reasons", snapshot.getReasons());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(health);
+        }
         return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+
+    /**
+     * 按状态版本返回读接口的响应：If-None-Match 与当前版本的 ETag 相同时返回304，
+     * 否则返回该版本已缓存的响应体（同一版本内只渲染一次）
+     */
+    private ResponseEntity<byte[]> versionedView(WebRequest request, String view,
+                                                 Function<PublicGameState, Object> builder) {
+        VersionedStateViews.Version version = stateViews.current();
+        if (version == null) {
+            webSocketHandler.ensureCurrentFrames();
+            version = stateViews.current();
+        }
+        if (request.checkNotModified(version.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(GameStateFeed.VERSION_HEADER, stateViews.token(version.getVersion()))
+                .body(version.render(view, builder));
+    }
+
+    private static int currentPlayerIndex(PublicGameState state) {
+        return state.getCurrentPlayer() != null ? indexOf(state.getPlayers(), state.getCurrentPlayer().getId()) : -1;
+    }
+
+    private static int indexOf(List<PlayerView> players, String playerId) {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getId().equals(playerId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, Object> statsView(PublicGameState state) {
+        int activePlayers = 0;
+        int aiPlayers = 0;
+        int totalChips = 0;
+        int dealerPosition = -1;
+        List<PlayerView> players = state.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            PlayerView player = players.get(i);
+            if (player.isInGame() && !player.isHasFolded()) {
+                activePlayers++;
+            }
+            if (player.isAi()) {
+                aiPlayers++;
+            }
+            if (player.isDealer()) {
+                dealerPosition = i;
+            }
+            totalChips += player.getChips();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("gameId", state.getGameId());
+        stats.put("totalPlayers", players.size());
+        stats.put("activePlayers", activePlayers);
+        stats.put("aiPlayers", aiPlayers);
+        stats.put("humanPlayers", players.size() - aiPlayers);
+        stats.put("totalChips", totalChips);
+        stats.put("currentPot", state.getPot());
+        stats.put("gamePhase", state.getCurrentPhase());
+        stats.put("currentBetAmount", state.getCurrentBetAmount());
+        stats.put("dealerPosition", dealerPosition);
+        stats.put("currentPlayerTurn", currentPlayerIndex(state));
+        return stats;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gjm.pk.controller;
+
+import com.gjm.pk.simulation.SimulationConfig;
+import com.gjm.pk.simulation.SimulationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * 批量模拟控制器
+ * 请求示例：{"seats": ["EXPERT", "HARD", "MEDIUM", "EASY"], "stacks": [2000], "hands": 100000, "seed": 42}
+ * 响应为 NDJSON：一行 started，若干行 progress，最后一行 result（或 error）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sim")
+@CrossOrigin(origins = "*")
+public class SimulationController {
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @PostMapping
+    public ResponseEntity<ResponseBodyEmitter> simulate(@RequestBody SimulationConfig config) {
+        ResponseBodyEmitter emitter = simulationService.start(config);
+        if (emitter == null) {
+            log.warn("并发模拟数已达上限，拒绝新的模拟请求");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.ok().contentType(SimulationService.NDJSON).body(emitter);
+    }
+}
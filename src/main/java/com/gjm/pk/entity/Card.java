@@ -4,6 +4,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -83,6 +85,92 @@ public class Card {
         return suit == SPADES || suit == CLUBS;
     }
 
+    /**
+     * 牌的紧凑索引（0-51）：花色*13 + (点数-2)
+     */
+    public int toIndex() {
+        return suit * 13 + (rank - 2);
+    }
+
+    /**
+     * 由紧凑索引还原扑克牌
+     */
+    public static Card fromIndex(int index) {
+        if (index < 0 || index >= 52) {
+            throw new IllegalArgumentException("非法的牌索引: " + index);
+        }
+        return new Card(index / 13, index % 13 + 2);
+    }
+
+    /**
+     * 解析"点数+花色"记法的单张牌，如 "As"、"Td"、"10h"、"2c"
+     * 点数：2-9、T(或10)、J、Q、K、A；花色：s黑桃、h红桃、d方块、c梅花
+     */
+    public static Card parse(String text) {
+        String value = text == null ? "" : text.trim();
+        if (value.length() < 2 || value.length() > 3) {
+            throw new IllegalArgumentException("无法识别的牌: " + text);
+        }
+        int rank = parseRank(value.length() == 3 ? 'T' : value.charAt(0));
+        if (value.length() == 3 && !value.startsWith("10")) {
+            throw new IllegalArgumentException("无法识别的牌: " + text);
+        }
+        int suit = parseSuit(value.charAt(value.length() - 1));
+        return new Card(suit, rank);
+    }
+
+    /**
+     * 解析连续书写的多张牌，如 "AsKd7h" 或 "As Kd 7h"
+     */
+    public static List<Card> parseList(String text) {
+        List<Card> cards = new ArrayList<>();
+        if (text == null) {
+            return cards;
+        }
+        String value = text.replaceAll("[\\s,]", "");
+        int i = 0;
+        while (i < value.length()) {
+            int length = value.startsWith("10", i) ? 3 : 2;
+            if (i + length > value.length()) {
+                throw new IllegalArgumentException("无法识别的牌: " + value.substring(i));
+            }
+            cards.add(parse(value.substring(i, i + length)));
+            i += length;
+        }
+        return cards;
+    }
+
+    /**
+     * 解析点数字符（2-9、T、J、Q、K、A，大小写均可）
+     */
+    public static int parseRank(char c) {
+        switch (Character.toUpperCase(c)) {
+            case 'A': return ACE_HIGH;
+            case 'K': return KING;
+            case 'Q': return QUEEN;
+            case 'J': return JACK;
+            case 'T': return TEN;
+            default:
+                if (c >= '2' && c <= '9') {
+                    return c - '0';
+                }
+                throw new IllegalArgumentException("非法的点数字符: " + c);
+        }
+    }
+
+    /**
+     * 解析花色字符（s、h、d、c，大小写均可）
+     */
+    public static int parseSuit(char c) {
+        switch (Character.toLowerCase(c)) {
+            case 's': return SPADES;
+            case 'h': return HEARTS;
+            case 'd': return DIAMONDS;
+            case 'c': return CLUBS;
+            default: throw new IllegalArgumentException("非法的花色字符: " + c);
+        }
+    }
+
     /**
      * 牌的字符串表示（如"黑桃A"）
      */
@@ -24,6 +24,9 @@ public class Player {
     private boolean isAi;
     private boolean inGame;
     private int currentBet;
+    /** 本手牌累计投入底池的筹码，结算边池用 */
+    @JsonIgnore
+    private int handContribution;
     private PlayerAction lastAction;
     private boolean isDealer;
     private boolean isSmallBlind;
@@ -65,6 +68,7 @@ public class Player {
         int actualBet = Math.min(amount, chips);
         chips -= actualBet;
         currentBet += actualBet;
+        handContribution += actualBet;
         return actualBet;
     }
 
@@ -76,6 +80,7 @@ public class Player {
         int allInAmount = chips;
         chips = 0;
         currentBet += allInAmount;
+        handContribution += allInAmount;
         lastAction = PlayerAction.ALL_IN;
         return allInAmount;
     }
@@ -139,6 +144,7 @@ public class Player {
     public void resetForNewHand() {
         holeCards.clear();
         currentBet = 0;
+        handContribution = 0;
         lastAction = null;
         isDealer = false;
         isSmallBlind = false;
@@ -0,0 +1,26 @@
+package com.gjm.pk.monitor;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * 在后台线程格式化消息的异步 appender
+ * logback 自带的 AsyncAppender 入队前会在调用线程上格式化消息（prepareForDeferredProcessing），
+ * 这里只在调用线程上取线程名与 MDC，消息留给写日志的后台线程格式化。
+ * 只用于参数不可变的日志通道（GameEventLog）；队列容量、满时丢弃等行为沿用 AsyncAppender 的配置
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class DeferredFormattingAsyncAppender extends AsyncAppender {
+
+    @Override
+    protected void preprocess(ILoggingEvent eventObject) {
+        // 线程名与 MDC 只能在调用线程上获取
+        eventObject.getThreadName();
+        eventObject.getMDCPropertyMap();
+        if (isIncludeCallerData()) {
+            eventObject.getCallerData();
+        }
+    }
+}
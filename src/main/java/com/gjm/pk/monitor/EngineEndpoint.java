@@ -0,0 +1,29 @@
+package com.gjm.pk.monitor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * 引擎负载端点：GET /actuator/engine
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+@Endpoint(id = "engine")
+public class EngineEndpoint {
+
+    private final EngineSaturationMonitor monitor;
+
+    @Autowired
+    public EngineEndpoint(EngineSaturationMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @ReadOperation
+    public EngineSnapshot engine() {
+        return monitor.snapshot();
+    }
+}
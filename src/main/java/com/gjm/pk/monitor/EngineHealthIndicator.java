@@ -0,0 +1,40 @@
+package com.gjm.pk.monitor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 引擎饱和健康检查（health 组件名 engine）
+ * 饱和时返回 OUT_OF_SERVICE，readiness 组包含本检查，/actuator/health/readiness 随之返回503，
+ * 负载均衡不再向本节点分配新桌；liveness 不受影响，已有牌局继续进行
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+public class EngineHealthIndicator implements HealthIndicator {
+
+    private final EngineSaturationMonitor monitor;
+
+    @Autowired
+    public EngineHealthIndicator(EngineSaturationMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Health health() {
+        EngineSnapshot snapshot = monitor.snapshot();
+        Health.Builder builder = snapshot.isSaturated() ? Health.outOfService() : Health.up();
+        if (snapshot.isSaturated()) {
+            builder.withDetail("reasons", snapshot.getReasons());
+        }
+        return builder
+                .withDetail("tables", snapshot.getTables())
+                .withDetail("schedulerLagMillis", snapshot.getSchedulerLagMillis())
+                .withDetail("outboundFillRatio", snapshot.getOutbound().getFillRatio())
+                .withDetail("aiWorkerUtilization", snapshot.getAiWorkerUtilization())
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.gjm.pk.monitor;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gjm.pk.config.EngineSaturationProperties;
+import com.gjm.pk.config.GameWebSocketHandler;
+import com.gjm.pk.config.WebSocketOutboundProperties;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.AutoGameManager;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.service.EquityService;
+import com.gjm.pk.service.impl.GameService;
+import com.gjm.pk.websocket.SessionOutboundRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 引擎饱和监控
+ * 汇总牌桌待处理任务、最久未处理的AI行动、定时器滞后、连接发送队列、AI线程利用率与评估/胜率缓存命中率，
+ * 并按 EngineSaturationProperties 的阈值判断是否饱和。快照由 EngineEndpoint（/actuator/engine）返回，
+ * 饱和状态由 EngineHealthIndicator 接入 readiness 探针
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+public class EngineSaturationMonitor {
+
+    /** 两次采样间隔小于该值时沿用上次的利用率，避免探针频繁调用时窗口过短 */
+    private static final long MIN_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GameService gameService;
+    private final AutoGameManager autoGameManager;
+    private final GameWebSocketHandler webSocketHandler;
+    private final SessionOutboundRegistry outboundRegistry;
+    private final WebSocketOutboundProperties outboundProperties;
+    private final AIPlayerDecisionService aiPlayerDecisionService;
+    private final BoardTextureAnalyzer boardTextureAnalyzer;
+    private final EquityService equityService;
+    private final EngineSaturationProperties thresholds;
+
+    /** 上次采样的时间与AI线程累计忙碌时间（由 this 的锁保护） */
+    private long lastSampleNanos;
+    private long lastBusyNanos;
+    private double aiWorkerUtilization;
+
+    @Autowired
+    public EngineSaturationMonitor(GameService gameService, AutoGameManager autoGameManager,
+                                   GameWebSocketHandler webSocketHandler, SessionOutboundRegistry outboundRegistry,
+                                   WebSocketOutboundProperties outboundProperties,
+                                   AIPlayerDecisionService aiPlayerDecisionService,
+                                   BoardTextureAnalyzer boardTextureAnalyzer, EquityService equityService,
+                                   EngineSaturationProperties thresholds) {
+        this.gameService = gameService;
+        this.autoGameManager = autoGameManager;
+        this.webSocketHandler = webSocketHandler;
+        this.outboundRegistry = outboundRegistry;
+        this.outboundProperties = outboundProperties;
+        this.aiPlayerDecisionService = aiPlayerDecisionService;
+        this.boardTextureAnalyzer = boardTextureAnalyzer;
+        this.equityService = equityService;
+        this.thresholds = thresholds;
+        this.lastSampleNanos = System.nanoTime();
+        this.lastBusyNanos = autoGameManager.getTaskTracker().getBusyNanos();
+    }
+
+    public synchronized EngineSnapshot snapshot() {
+        List<String> reasons = new ArrayList<>();
+
+        EngineSnapshot.TableLoad table = tableLoad();
+        if (table.getPendingTasks() > thresholds.getMaxPendingTasks()) {
+            reasons.add(String.format("牌桌 %s 待执行任务 %d 超过上限 %d",
+                    table.getTableId(), table.getPendingTasks(), thresholds.getMaxPendingTasks()));
+        }
+        if (table.getOldestPendingActionAgeMillis() > thresholds.getMaxPendingActionAgeMillis()) {
+            reasons.add(String.format("牌桌 %s 的AI行动已等待 %dms，超过上限 %dms", table.getTableId(),
+                    table.getOldestPendingActionAgeMillis(), thresholds.getMaxPendingActionAgeMillis()));
+        }
+
+        List<EngineSnapshot.SchedulerLoad> schedulers = Arrays.asList(
+                new EngineSnapshot.SchedulerLoad("phase-timer",
+                        gameService.getPhaseTaskTracker().getRecentMaxLagMillis(), 0),
+                new EngineSnapshot.SchedulerLoad("auto-game",
+                        autoGameManager.getTaskTracker().getRecentMaxLagMillis(), autoGameManager.getOverdueMillis()),
+                new EngineSnapshot.SchedulerLoad("broadcast-tick", 0, webSocketHandler.getBroadcastOverdueMillis()));
+        long schedulerLag = 0;
+        for (EngineSnapshot.SchedulerLoad scheduler : schedulers) {
+            schedulerLag = Math.max(schedulerLag,
+                    Math.max(scheduler.getRecentMaxLagMillis(), scheduler.getOverdueMillis()));
+        }
+        if (schedulerLag > thresholds.getMaxSchedulerLagMillis()) {
+            reasons.add(String.format("定时任务滞后 %dms 超过上限 %dms", schedulerLag,
+                    thresholds.getMaxSchedulerLagMillis()));
+        }
+
+        EngineSnapshot.OutboundLoad outbound = outboundLoad();
+        if (outbound.getFillRatio() > thresholds.getMaxOutboundFillRatio()) {
+            reasons.add(String.format("发送队列平均占用率 %.2f 超过上限 %.2f", outbound.getFillRatio(),
+                    thresholds.getMaxOutboundFillRatio()));
+        }
+
+        double utilization = sampleAiWorkerUtilization();
+        if (utilization > thresholds.getMaxAiWorkerUtilization()) {
+            reasons.add(String.format("AI线程利用率 %.2f 超过上限 %.2f", utilization,
+                    thresholds.getMaxAiWorkerUtilization()));
+        }
+
+        List<EngineSnapshot.CacheLoad> caches = Arrays.asList(
+                cacheLoad("ai-info-set", aiPlayerDecisionService.getInfoSetCacheStats()),
+                cacheLoad("board-texture", boardTextureAnalyzer.getTextureCacheStats()),
+                cacheLoad("draws", boardTextureAnalyzer.getDrawCacheStats()),
+                cacheLoad("equity", equityService.getCacheStats()));
+
+        return new EngineSnapshot(!reasons.isEmpty(), reasons, Collections.singletonList(table), schedulers,
+                schedulerLag, outbound, utilization, caches);
+    }
+
+    private EngineSnapshot.TableLoad tableLoad() {
+        int phaseTasks = gameService.getPendingPhaseTaskCount();
+        int autoGameTasks = autoGameManager.getPendingTaskCount();
+        int broadcastTasks = webSocketHandler.getPendingBroadcastTasks();
+        return new EngineSnapshot.TableLoad(GameWebSocketHandler.DEFAULT_TABLE_ID, gameService.getHandId(),
+                gameService.getCurrentPhase().name(), phaseTasks, autoGameTasks, broadcastTasks,
+                phaseTasks + autoGameTasks + broadcastTasks, pendingEngineActionAgeMillis());
+    }
+
+    /**
+     * 由引擎负责推进的行动已等待的毫秒数：只有自动游戏中轮到AI时才计入。
+     * 人类玩家的思考时间不是引擎积压，普通牌局中没有超时任务，空闲的人类玩家不应让节点退出服务；
+     * 自动游戏中人类玩家的超时任务若未按时执行，会体现为 auto-game 定时器的 overdue
+     */
+    private long pendingEngineActionAgeMillis() {
+        if (!autoGameManager.isAutoGameRunning() || !gameService.isCurrentPlayerAI()) {
+            return 0;
+        }
+        return gameService.getPendingActionAgeMillis();
+    }
+
+    private EngineSnapshot.OutboundLoad outboundLoad() {
+        int sessions = outboundRegistry.getSessionCount();
+        int queued = outboundRegistry.getTotalDepth();
+        int capacity = outboundProperties.getQueueCapacity();
+        double fillRatio = sessions > 0 && capacity > 0 ? (double) queued / ((long) sessions * capacity) : 0;
+        return new EngineSnapshot.OutboundLoad(sessions, queued, outboundRegistry.getMaxDepth(), capacity, fillRatio);
+    }
+
+    /**
+     * 自上次采样以来自动游戏线程执行任务的时间占比
+     */
+    private double sampleAiWorkerUtilization() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed < MIN_SAMPLE_NANOS) {
+            return aiWorkerUtilization;
+        }
+        long busy = autoGameManager.getTaskTracker().getBusyNanos();
+        aiWorkerUtilization = Math.min(1.0,
+                (double) (busy - lastBusyNanos) / ((double) elapsed * autoGameManager.getWorkerThreads()));
+        lastSampleNanos = now;
+        lastBusyNanos = busy;
+        return aiWorkerUtilization;
+    }
+
+    private static EngineSnapshot.CacheLoad cacheLoad(String name, CacheStats stats) {
+        return new EngineSnapshot.CacheLoad(name, stats.requestCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
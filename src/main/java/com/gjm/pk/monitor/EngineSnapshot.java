@@ -0,0 +1,80 @@
+package com.gjm.pk.monitor;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 引擎负载快照，由 /actuator/engine 返回
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+public class EngineSnapshot {
+
+    /** 是否超出任一饱和阈值 */
+    boolean saturated;
+    /** 超出的阈值说明，未饱和时为空 */
+    List<String> reasons;
+    List<TableLoad> tables;
+    List<SchedulerLoad> schedulers;
+    /** 各定时器中最大的调度滞后（毫秒） */
+    long schedulerLagMillis;
+    OutboundLoad outbound;
+    /** 自动游戏（AI决策）线程的忙碌比例，按两次采样之间计算 */
+    double aiWorkerUtilization;
+    List<CacheLoad> caches;
+
+    /**
+     * 单张桌的待处理工作
+     */
+    @Value
+    public static class TableLoad {
+        String tableId;
+        long handId;
+        String phase;
+        int pendingPhaseTasks;
+        int pendingAutoGameTasks;
+        int pendingBroadcastTasks;
+        int pendingTasks;
+        /** 自动游戏中当前AI玩家已等待行动的毫秒数，轮到人类玩家时为0 */
+        long oldestPendingActionAgeMillis;
+    }
+
+    /**
+     * 单个定时器的调度滞后
+     */
+    @Value
+    public static class SchedulerLoad {
+        String executor;
+        /** 最近已执行任务的最大滞后 */
+        long recentMaxLagMillis;
+        /** 队首任务已超过计划时间的毫秒数 */
+        long overdueMillis;
+    }
+
+    /**
+     * 连接发送队列
+     */
+    @Value
+    public static class OutboundLoad {
+        int sessions;
+        int queuedMessages;
+        int maxSessionDepth;
+        int queueCapacity;
+        /** 平均每个连接的队列占用率 */
+        double fillRatio;
+    }
+
+    /**
+     * 评估缓存命中情况（启动以来累计）
+     */
+    @Value
+    public static class CacheLoad {
+        String name;
+        long requests;
+        double hitRate;
+        long evictions;
+    }
+}
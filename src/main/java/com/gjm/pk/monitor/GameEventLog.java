@@ -0,0 +1,76 @@
+package com.gjm.pk.monitor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 游戏事件日志通道
+ * 牌局中的高频事件（行动、轮次、阶段、摊牌、派奖）写入独立的 poker.events 日志，每条为一行 key=value 记录。
+ * 该通道在 logback-spring.xml 中挂在有界、满时丢弃的异步 appender（DeferredFormattingAsyncAppender）上，
+ * 调用线程只把参数放入队列，消息格式化与写文件都在后台线程完成；
+ * 因此参数只能是不可变值或调用后不再修改的对象（如公共牌列表的副本）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class GameEventLog {
+
+    public static final String LOGGER_NAME = "poker.events";
+
+    private static final Logger EVENTS = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private GameEventLog() {
+    }
+
+    public static boolean isEnabled() {
+        return EVENTS.isInfoEnabled();
+    }
+
+    public static void handStart(String tableId, long handId, int players, String dealer,
+                                 String smallBlind, String bigBlind) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=hand_start table={} hand={} players={} dealer={} sb={} bb={}",
+                    tableId, handId, players, dealer, smallBlind, bigBlind);
+        }
+    }
+
+    public static void action(String tableId, long handId, String playerId, String action, int amount, int pot) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=action table={} hand={} player={} action={} amount={} pot={}",
+                    tableId, handId, playerId, action, amount, pot);
+        }
+    }
+
+    public static void turn(String tableId, long handId, int from, int to) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=turn table={} hand={} from={} to={}", tableId, handId, from, to);
+        }
+    }
+
+    /**
+     * @param board 公共牌（调用方传入副本）
+     */
+    public static void phase(String tableId, long handId, String phase, List<?> board) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=phase table={} hand={} phase={} board={}", tableId, handId, phase, board);
+        }
+    }
+
+    /**
+     * @param result 牌型结果（不可变），在后台线程调用 toString
+     */
+    public static void showdown(String tableId, long handId, String playerId, Object result) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=showdown table={} hand={} player={} result={}", tableId, handId, playerId, result);
+        }
+    }
+
+    public static void win(String tableId, long handId, String playerId, int amount, String reason) {
+        if (EVENTS.isInfoEnabled()) {
+            EVENTS.info("event=win table={} hand={} player={} amount={} reason={}",
+                    tableId, handId, playerId, amount, reason);
+        }
+    }
+}
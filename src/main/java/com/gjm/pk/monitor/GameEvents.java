@@ -0,0 +1,168 @@
+package com.gjm.pk.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 牌局生命周期的 JFR 事件
+ * 录制中可按牌桌与手牌编号关联线程栈、GC 与游戏过程。事件的开关与阈值由 JFR 配置控制
+ * （随包提供 jfr/poker.jfc，可叠加在 default/profile 配置之上：
+ * -XX:StartFlightRecording=settings=default,settings=poker.jfc）。
+ * 未录制或事件关闭时 shouldCommit() 为false，调用方只做 begin/shouldCommit 判断，不填充字段，开销接近于零。
+ * 跨线程的时长（整手牌、阶段）以 Timespan 字段给出，单次调用内的耗时直接用事件自身的持续时间。
+ * jdk.jfr 需要 JDK 11+，项目的编译目标因此为 11（见 pom.xml）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class GameEvents {
+
+    private static final String CATEGORY = "Poker";
+
+    private GameEvents() {
+    }
+
+    @Name("com.gjm.pk.HandStart")
+    @Label("Hand Start")
+    @Category({CATEGORY, "Hand"})
+    @Description("发牌开始一手牌")
+    @StackTrace(false)
+    public static class HandStart extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("Players")
+        public int players;
+        @Label("Dealer")
+        public String dealer;
+    }
+
+    @Name("com.gjm.pk.HandEnd")
+    @Label("Hand End")
+    @Category({CATEGORY, "Hand"})
+    @Description("一手牌结束")
+    @StackTrace(false)
+    public static class HandEnd extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("Hand Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long handDuration;
+    }
+
+    @Name("com.gjm.pk.PhaseTransition")
+    @Label("Phase Transition")
+    @Category({CATEGORY, "Hand"})
+    @Description("牌局阶段切换，附上一阶段的持续时间")
+    @StackTrace(false)
+    public static class PhaseTransition extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("From")
+        public String from;
+        @Label("To")
+        public String to;
+        @Label("Previous Phase Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long previousPhaseDuration;
+    }
+
+    @Name("com.gjm.pk.PlayerAction")
+    @Label("Player Action")
+    @Category({CATEGORY, "Action"})
+    @Description("GameService.playerAction 一次调用（含触发的广播）")
+    @StackTrace(false)
+    public static class PlayerAction extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("Player Id")
+        public String playerId;
+        @Label("Action")
+        public String action;
+        @Label("Amount")
+        public int amount;
+        @Label("Phase")
+        public String phase;
+        @Label("Accepted")
+        public boolean accepted;
+    }
+
+    @Name("com.gjm.pk.ShowdownEvaluation")
+    @Label("Showdown Evaluation")
+    @Category({CATEGORY, "Hand"})
+    @Description("结算时评估各玩家手牌并分配底池")
+    @StackTrace(false)
+    public static class ShowdownEvaluation extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("Evaluated Players")
+        public int evaluatedPlayers;
+        @Label("Winners")
+        public int winners;
+        @Label("Pot")
+        public int pot;
+    }
+
+    @Name("com.gjm.pk.AIDecision")
+    @Label("AI Decision")
+    @Category({CATEGORY, "Action"})
+    @Description("AI玩家一次决策")
+    @StackTrace(false)
+    public static class AIDecision extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("Player Id")
+        public String playerId;
+        @Label("AI Level")
+        public String level;
+        @Label("Phase")
+        public String phase;
+        @Label("Decision")
+        public String decision;
+    }
+
+    @Name("com.gjm.pk.Broadcast")
+    @Label("WebSocket Broadcast")
+    @Category({CATEGORY, "WebSocket"})
+    @Description("一次状态广播：构建、编码并放入各连接发送队列")
+    @StackTrace(false)
+    public static class Broadcast extends Event {
+        @Label("Table Id")
+        public String tableId;
+        @Label("Hand Id")
+        public long handId;
+        @Label("State Version")
+        public long version;
+        @Label("Messages")
+        public int messages;
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        @Label("Build Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long buildDuration;
+        @Label("Serialize Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long serializeDuration;
+        @Label("Send Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long sendDuration;
+    }
+}
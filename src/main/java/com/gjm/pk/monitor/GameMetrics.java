@@ -0,0 +1,176 @@
+package com.gjm.pk.monitor;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.HandEvaluator;
+import com.gjm.pk.service.impl.GameService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 游戏引擎指标
+ * 所有计时器与分布统计在启动时注册好并缓存，热路径上只做一次查表和一次记录，不按调用构造标签，可在生产环境常开。
+ * 手牌评估是静态方法且调用极频繁，只在 HandEvaluator 内累加次数与耗时，这里以 FunctionTimer 读取。
+ * 共享缓存（AI信息集、牌面结构、听牌、胜率）以 cache.* 指标按 cache 标签上报命中、未命中与驱逐。
+ * 指标经 Actuator 暴露在 /actuator/metrics 与 /actuator/prometheus
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+public class GameMetrics {
+
+    private static final String[] ACTIONS = {"fold", "check", "call", "raise", "allin"};
+    private static final String UNKNOWN_ACTION = "unknown";
+
+    private final MeterRegistry registry;
+
+    /** 行动 -> [接受, 拒绝] */
+    private final Map<String, Timer[]> playerActionTimers = new HashMap<>();
+    private final Map<GameService.GamePhase, Timer> phaseTimers = new EnumMap<>(GameService.GamePhase.class);
+    private final Timer handTimer;
+    private final Map<AIPlayerDecisionService.AILevel, Timer> aiDecisionTimers =
+            new EnumMap<>(AIPlayerDecisionService.AILevel.class);
+    private final Timer broadcastBuildTimer;
+    private final Timer broadcastSerializeTimer;
+    private final Timer broadcastSendTimer;
+    private final DistributionSummary messageBytes;
+
+    @Autowired
+    public GameMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public GameMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (String action : ACTIONS) {
+            playerActionTimers.put(action, playerActionTimers(action));
+        }
+        playerActionTimers.put(UNKNOWN_ACTION, playerActionTimers(UNKNOWN_ACTION));
+
+        for (GameService.GamePhase phase : GameService.GamePhase.values()) {
+            if (phase == GameService.GamePhase.WAITING || phase == GameService.GamePhase.FINISHED) {
+                continue;
+            }
+            phaseTimers.put(phase, Timer.builder("poker.game.phase.duration")
+                    .description("牌局各阶段持续时间")
+                    .tag("phase", phase.name())
+                    .register(registry));
+        }
+        handTimer = Timer.builder("poker.game.hand.duration")
+                .description("一手牌从发牌到结束的时间")
+                .register(registry);
+
+        for (AIPlayerDecisionService.AILevel level : AIPlayerDecisionService.AILevel.values()) {
+            aiDecisionTimers.put(level, Timer.builder("poker.ai.decision")
+                    .description("AI决策耗时")
+                    .tag("level", level.name())
+                    .register(registry));
+        }
+
+        FunctionTimer.builder("poker.hand.evaluate", HandEvaluator.class,
+                        type -> HandEvaluator.getEvaluationCount(),
+                        type -> HandEvaluator.getEvaluationNanos(), TimeUnit.NANOSECONDS)
+                .description("HandEvaluator.evaluateHand 调用次数与耗时")
+                .register(registry);
+
+        broadcastBuildTimer = broadcastTimer("build", "构建公共状态与增量");
+        broadcastSerializeTimer = broadcastTimer("serialize", "编码状态帧");
+        broadcastSendTimer = broadcastTimer("send", "为各连接拼接私有字段并放入发送队列");
+        messageBytes = DistributionSummary.builder("poker.websocket.message.bytes")
+                .description("状态消息字节数")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private Timer[] playerActionTimers(String action) {
+        return new Timer[]{playerActionTimer(action, "accepted"), playerActionTimer(action, "rejected")};
+    }
+
+    private Timer playerActionTimer(String action, String outcome) {
+        return Timer.builder("poker.game.player.action")
+                .description("GameService.playerAction 耗时（含触发的广播）")
+                .tag("action", action)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Timer broadcastTimer(String stage, String description) {
+        return Timer.builder("poker.websocket.broadcast.time")
+                .description("状态广播各阶段耗时：" + description)
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    public void recordPlayerAction(String action, boolean accepted, long nanos) {
+        Timer[] timers = action != null ? playerActionTimers.get(action) : null;
+        if (timers == null) {
+            timers = playerActionTimers.get(UNKNOWN_ACTION);
+        }
+        timers[accepted ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPhase(GameService.GamePhase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHand(long nanos) {
+        handTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAiDecision(AIPlayerDecisionService.AILevel level, long nanos) {
+        aiDecisionTimers.get(level).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBroadcastBuild(long nanos) {
+        broadcastBuildTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBroadcastSerialize(long nanos) {
+        broadcastSerializeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBroadcastSend(long nanos) {
+        broadcastSendTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMessageBytes(int bytes) {
+        messageBytes.record(bytes);
+    }
+
+    /**
+     * 注册缓存的命中、未命中、驱逐与大小指标（缓存需开启 recordStats）
+     */
+    public void monitorCache(Cache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    public void monitorCache(AsyncCache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    /**
+     * 注册由调用方提供取值函数的仪表（活跃桌数、待执行任务数等）
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, target, value)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.gjm.pk.monitor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 定时任务的调度延迟与忙碌时间
+ * 包装提交给定时器的任务，记录实际开始时间相对计划时间的滞后，以及任务执行占用的线程时间。
+ * 滞后取最近一到两分钟内的最大值，旧的峰值会自然过期
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class ScheduledTaskTracker {
+
+    private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    /** 当前窗口与上一窗口的最大滞后（由 this 的锁保护） */
+    private long windowStartNanos = System.nanoTime();
+    private long windowMaxLagNanos;
+    private long previousWindowMaxLagNanos;
+
+    /**
+     * 包装一个将在 delayMillis 后执行的任务
+     */
+    public Runnable wrap(Runnable task, long delayMillis) {
+        long plannedNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        return () -> {
+            long start = System.nanoTime();
+            recordLag(start - plannedNanos);
+            try {
+                task.run();
+            } finally {
+                busyNanos.add(System.nanoTime() - start);
+                completed.increment();
+            }
+        };
+    }
+
+    private synchronized void recordLag(long lagNanos) {
+        rollWindow(System.nanoTime());
+        windowMaxLagNanos = Math.max(windowMaxLagNanos, lagNanos);
+    }
+
+    private void rollWindow(long now) {
+        long elapsed = now - windowStartNanos;
+        if (elapsed < WINDOW_NANOS) {
+            return;
+        }
+        previousWindowMaxLagNanos = elapsed < 2 * WINDOW_NANOS ? windowMaxLagNanos : 0;
+        windowMaxLagNanos = 0;
+        windowStartNanos = now;
+    }
+
+    /**
+     * 最近已执行任务的最大调度滞后（毫秒）
+     */
+    public synchronized long getRecentMaxLagMillis() {
+        rollWindow(System.nanoTime());
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(windowMaxLagNanos, previousWindowMaxLagNanos));
+    }
+
+    /**
+     * 任务累计执行时间（纳秒）
+     */
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    public long getCompletedTasks() {
+        return completed.sum();
+    }
+
+    /**
+     * 队首任务已超过计划时间多久（毫秒），线程被占满或卡住时它会持续增长，而已执行任务的滞后要等任务开始才看得到
+     */
+    public static long overdueMillis(ScheduledThreadPoolExecutor executor) {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        Runnable head = queue.peek();
+        if (!(head instanceof Delayed)) {
+            return 0;
+        }
+        return Math.max(0, -((Delayed) head).getDelay(TimeUnit.MILLISECONDS));
+    }
+}
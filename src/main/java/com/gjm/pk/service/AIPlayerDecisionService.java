@@ -1,12 +1,18 @@
 package com.gjm.pk.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.gjm.pk.entity.Card;
 import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.GameMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AI玩家决策服务
@@ -20,6 +26,39 @@ import java.util.Random;
 public class AIPlayerDecisionService {
     
     private final Random random = new Random();
+
+    private final BoardTextureAnalyzer boardTextureAnalyzer;
+
+    /** 信息集缓存最大条目数 */
+    private static final long INFO_SET_CACHE_MAX_SIZE = 100_000;
+    /** 信息集缓存条目的空闲过期时间（分钟） */
+    private static final long INFO_SET_CACHE_EXPIRE_MINUTES = 30;
+    /** 底池赔率分桶数 */
+    private static final int POT_ODDS_BUCKETS = 10;
+
+    /**
+     * 抽象信息集 -> 评估结果 的共享缓存
+     * 相同街道、花色同构的手牌与牌面、相同底池赔率分桶的局面在各牌桌间复用同一份计算
+     */
+    private final Cache<Long, InfoSetEvaluation> infoSetCache = Caffeine.newBuilder()
+            .maximumSize(INFO_SET_CACHE_MAX_SIZE)
+            .expireAfterAccess(INFO_SET_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    /** 离线模拟直接创建本服务时为null，不记录指标 */
+    private GameMetrics gameMetrics;
+
+    @Autowired
+    public AIPlayerDecisionService(BoardTextureAnalyzer boardTextureAnalyzer) {
+        this.boardTextureAnalyzer = boardTextureAnalyzer;
+    }
+
+    @Autowired(required = false)
+    public void setGameMetrics(GameMetrics gameMetrics) {
+        this.gameMetrics = gameMetrics;
+        gameMetrics.monitorCache(infoSetCache, "ai-info-set");
+    }
     
     /**
      * AI难度级别
@@ -60,6 +99,22 @@ public class AIPlayerDecisionService {
         public int getAmount() { return amount; }
         public String getReasoning() { return reasoning; }
     }
+
+    /**
+     * 信息集评估结果（与具体筹码数额无关，可跨牌桌共享）
+     */
+    static class InfoSetEvaluation {
+        private final double handStrength;
+        private final double score;
+
+        InfoSetEvaluation(double handStrength, double score) {
+            this.handStrength = handStrength;
+            this.score = score;
+        }
+
+        double getHandStrength() { return handStrength; }
+        double getScore() { return score; }
+    }
     
     /**
      * 生成AI决策
@@ -76,42 +131,120 @@ public class AIPlayerDecisionService {
     public AIDecision makeDecision(Player player, List<Card> communityCards, 
                                  int currentBetAmount, int pot, int activePlayers,
                                  String gamePhase, AILevel aiLevel) {
-        
-        // 计算手牌强度
-        double handStrength = calculateHandStrength(player.getHoleCards(), communityCards);
+        return makeDecision(player, communityCards, currentBetAmount, pot, activePlayers,
+                gamePhase, aiLevel, random);
+    }
+
+    /**
+     * 使用指定随机源生成AI决策（供可复现的离线模拟使用）
+     *
+     * @param rng 随机源，同一随机源不可被多个线程共享
+     * @return AI决策
+     */
+    public AIDecision makeDecision(Player player, List<Card> communityCards,
+                                 int currentBetAmount, int pot, int activePlayers,
+                                 String gamePhase, AILevel aiLevel, Random rng) {
+        long start = System.nanoTime();
         
         // 计算底池赔率
         double potOdds = calculatePotOdds(currentBetAmount - player.getCurrentBet(), pot);
         
-        // 计算位置优势
-        double positionFactor = calculatePositionFactor(activePlayers);
+        // 手牌强度与综合评分来自共享的信息集缓存
+        InfoSetEvaluation evaluation = evaluateInfoSet(player.getHoleCards(), communityCards,
+                potOdds, activePlayers, gamePhase);
         
-        // 根据AI级别决定是否使用理性决策
-        boolean useRationalDecision = random.nextDouble() < aiLevel.getRationality();
+        // 根据AI级别决定是否使用理性决策（每次调用独立随机，保证AI行为不确定性）
+        boolean useRationalDecision = rng.nextDouble() < aiLevel.getRationality();
         
         AIDecision decision;
         
         if (useRationalDecision) {
-            decision = makeRationalDecision(player, handStrength, potOdds, positionFactor, 
-                                          currentBetAmount, pot, gamePhase);
+            decision = makeRationalDecision(player, evaluation, potOdds, currentBetAmount, pot);
         } else {
-            decision = makeRandomDecision(player, currentBetAmount);
+            decision = makeRandomDecision(player, currentBetAmount, rng);
+        }
+        if (gameMetrics != null) {
+            gameMetrics.recordAiDecision(aiLevel, System.nanoTime() - start);
         }
         
-        log.info("AI玩家 {} (等级:{}) 决策: {} - {}", 
-                player.getName(), aiLevel.getDescription(), 
-                decision.getAction(), decision.getReasoning());
+        if (log.isDebugEnabled()) {
+            log.debug("AI玩家 {} (等级:{}) 决策: {} - {}", 
+                    player.getName(), aiLevel.getDescription(), 
+                    decision.getAction(), decision.getReasoning());
+        }
         
         return decision;
     }
     
+    /**
+     * 获取信息集评估结果，未命中时计算并写入缓存
+     */
+    private InfoSetEvaluation evaluateInfoSet(List<Card> holeCards, List<Card> communityCards,
+                                            double potOdds, int activePlayers, String gamePhase) {
+        if (holeCards.size() < 2) {
+            return computeInfoSetEvaluation(holeCards, communityCards, potOdds, activePlayers, gamePhase);
+        }
+        int potOddsBucket = potOddsBucket(potOdds);
+        long key = infoSetKey(holeCards, communityCards, potOddsBucket);
+        double bucketPotOdds = (potOddsBucket + 0.5) / POT_ODDS_BUCKETS;
+        return infoSetCache.get(key, k -> computeInfoSetEvaluation(
+                holeCards, communityCards, bucketPotOdds, activePlayers, gamePhase));
+    }
+
+    /**
+     * 抽象信息集键：街道(公共牌数) + 花色同构的手牌与牌面 + 底池赔率分桶
+     * 筹码深度相关的分支（如筹码不足跟注）每次调用单独判断，因此不进入键
+     */
+    private long infoSetKey(List<Card> holeCards, List<Card> communityCards, int potOddsBucket) {
+        long cardsKey = SuitIsomorphism.canonicalKey(holeCards, communityCards);
+        return (((long) communityCards.size() << 4 | potOddsBucket) << 42) | cardsKey;
+    }
+
+    private int potOddsBucket(double potOdds) {
+        return Math.min(POT_ODDS_BUCKETS - 1, (int) (potOdds * POT_ODDS_BUCKETS));
+    }
+
+    /**
+     * 计算手牌强度与综合评分（高开销部分）
+     */
+    private InfoSetEvaluation computeInfoSetEvaluation(List<Card> holeCards, List<Card> communityCards,
+                                                       double potOdds, int activePlayers, String gamePhase) {
+        // 计算手牌强度
+        double handStrength = calculateHandStrength(holeCards, communityCards);
+        
+        // 计算位置优势
+        double positionFactor = calculatePositionFactor(activePlayers);
+        
+        // 综合评分计算
+        double score = handStrength + potOdds * 0.3 + positionFactor * 0.2;
+        
+        // 根据游戏阶段调整策略
+        score = adjustForGamePhase(score, gamePhase, handStrength, holeCards, communityCards);
+        
+        return new InfoSetEvaluation(handStrength, score);
+    }
+
+    /**
+     * 信息集缓存统计（命中率等）
+     */
+    public CacheStats getInfoSetCacheStats() {
+        return infoSetCache.stats();
+    }
+
+    /**
+     * 信息集缓存当前条目数
+     */
+    public long getInfoSetCacheSize() {
+        return infoSetCache.estimatedSize();
+    }
+    
     /**
      * 理性决策算法
      */
-    private AIDecision makeRationalDecision(Player player, double handStrength, 
-                                          double potOdds, double positionFactor,
-                                          int currentBetAmount, int pot, String gamePhase) {
+    private AIDecision makeRationalDecision(Player player, InfoSetEvaluation evaluation, double potOdds,
+                                          int currentBetAmount, int pot) {
         
+        double handStrength = evaluation.getHandStrength();
         int callAmount = currentBetAmount - player.getCurrentBet();
         
         // 如果不需要额外下注，优先选择看牌
@@ -129,11 +262,7 @@ public class AIPlayerDecisionService {
             }
         }
         
-        // 综合评分计算
-        double score = handStrength + potOdds * 0.3 + positionFactor * 0.2;
-        
-        // 根据游戏阶段调整策略
-        score = adjustForGamePhase(score, gamePhase, handStrength);
+        double score = evaluation.getScore();
         
         // 根据评分做决策
         if (score > 0.8) {
@@ -164,7 +293,7 @@ public class AIPlayerDecisionService {
     /**
      * 随机决策（低级AI或非理性时刻）
      */
-    private AIDecision makeRandomDecision(Player player, int currentBetAmount) {
+    private AIDecision makeRandomDecision(Player player, int currentBetAmount, Random rng) {
         int callAmount = currentBetAmount - player.getCurrentBet();
         
         if (callAmount <= 0) {
@@ -172,7 +301,7 @@ public class AIPlayerDecisionService {
         }
         
         // 简单的随机决策
-        double randValue = random.nextDouble();
+        double randValue = rng.nextDouble();
         
         if (randValue < 0.4) {
             return new AIDecision(Player.PlayerAction.FOLD, 0, "随机弃牌");
@@ -185,7 +314,7 @@ public class AIPlayerDecisionService {
         } else {
             // 随机加注
             if (player.getChips() > callAmount * 2) {
-                int raiseAmount = random.nextInt(player.getChips() / 4) + callAmount;
+                int raiseAmount = rng.nextInt(Math.max(1, player.getChips() / 4)) + callAmount;
                 return new AIDecision(Player.PlayerAction.RAISE, 
                                     currentBetAmount + raiseAmount, "随机加注");
             } else {
@@ -271,25 +400,23 @@ public class AIPlayerDecisionService {
     }
     
     /**
-     * 根据游戏阶段调整评分
+     * 根据游戏阶段与牌面结构调整评分
+     * 翻牌前保守；翻牌后听牌按剩余发牌的完成概率加分，中等成手牌在湿润牌面上按被反超风险减分
      */
-    private double adjustForGamePhase(double score, String gamePhase, double handStrength) {
-        switch (gamePhase) {
-            case "PRE_FLOP":
-                // 翻牌前更保守
-                return score * 0.9;
-            case "FLOP":
-                // 翻牌后正常
-                return score;
-            case "TURN":
-                // 转牌更激进一些
-                return score * 1.1;
-            case "RIVER":
-                // 河牌最激进
-                return score * 1.2;
-            default:
-                return score;
+    private double adjustForGamePhase(double score, String gamePhase, double handStrength,
+                                      List<Card> holeCards, List<Card> communityCards) {
+        if ("PRE_FLOP".equals(gamePhase) || communityCards.size() < 3 || holeCards.size() < 2) {
+            // 翻牌前更保守
+            return score * 0.9;
         }
+        BoardTextureAnalyzer.BoardTexture texture = boardTextureAnalyzer.analyzeBoard(communityCards);
+        BoardTextureAnalyzer.DrawInfo draws = boardTextureAnalyzer.analyzeDraws(holeCards, communityCards);
+
+        // 听牌价值：牌力越弱，听牌带来的额外胜率越重要
+        double drawBonus = draws.getCompletionProbability() * (1 - handStrength) * 0.4;
+        // 被反超风险：强牌不怕湿润牌面，弱牌本就不会继续，主要影响中等牌力
+        double vulnerability = handStrength >= 0.3 && handStrength < 0.8 ? texture.getWetness() * 0.1 : 0.0;
+        return score + drawBonus - vulnerability;
     }
     
     /**
@@ -2,6 +2,8 @@ package com.gjm.pk.service;
 
 import com.gjm.pk.config.GameWebSocketHandler;
 import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.GameMetrics;
+import com.gjm.pk.monitor.ScheduledTaskTracker;
 import com.gjm.pk.service.impl.GameService;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledFuture;
 
@@ -33,11 +36,18 @@ public class AutoGameManager {
     private static final long AI_DECISION_DELAY = 2000;
     private static final long GAME_END_DELAY = 5000;
     private static final long HUMAN_PLAYER_TIMEOUT = 30000;
+    /** 自动游戏线程数，AI决策在这些线程上执行 */
+    private static final int WORKER_THREADS = 2;
+
+    /** 自动游戏任务的调度滞后与忙碌时间 */
+    @Getter private final ScheduledTaskTracker taskTracker = new ScheduledTaskTracker();
 
     @Autowired
-    public AutoGameManager(GameService gameService) {
+    public AutoGameManager(GameService gameService, GameMetrics gameMetrics) {
         this.gameService = gameService;
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.scheduler = Executors.newScheduledThreadPool(WORKER_THREADS);
+        gameMetrics.gauge("poker.game.scheduler.pending", "待执行的定时任务数", this,
+                AutoGameManager::getPendingTaskCount, "executor", "auto-game");
     }
 
     @Autowired
@@ -76,7 +86,7 @@ public class AutoGameManager {
 
         if (scheduler != null) {
             scheduler.shutdownNow();
-            scheduler = Executors.newScheduledThreadPool(2);
+            scheduler = Executors.newScheduledThreadPool(WORKER_THREADS);
         }
 
         log.info("自动游戏循环已停止");
@@ -109,7 +119,11 @@ public class AutoGameManager {
         Player currentPlayer = gameService.getCurrentPlayer();
 
         if (currentPlayer == null) {
+            // 全员全下时由 GameService 自动发完剩余公共牌，这里继续等待本局结束
             log.debug("当前无行动玩家，等待阶段转换...");
+            if (gameService.getCurrentPhase() != GameService.GamePhase.WAITING) {
+                scheduleTask(this::processNextPlayerAction, AI_DECISION_DELAY);
+            }
             return;
         }
 
@@ -130,7 +144,7 @@ public class AutoGameManager {
     }
 
     private void handleHumanPlayerAction(Player humanPlayer) {
-        log.info("等待人类玩家 {} 的行动，阶段: {}", humanPlayer.getName(), gameService.getCurrentPhase());
+        log.debug("等待人类玩家 {} 的行动，阶段: {}", humanPlayer.getName(), gameService.getCurrentPhase());
 
         if (humanPlayerTimeoutTask != null) {
             humanPlayerTimeoutTask.cancel(true);
@@ -171,10 +185,32 @@ public class AutoGameManager {
         return gameService.canStartGame();
     }
 
+    /**
+     * 已安排、尚未执行的自动游戏任务数
+     */
+    public int getPendingTaskCount() {
+        ScheduledExecutorService current = scheduler;
+        return current instanceof ScheduledThreadPoolExecutor
+                ? ((ScheduledThreadPoolExecutor) current).getQueue().size() : 0;
+    }
+
+    /**
+     * 队首任务超过计划时间的毫秒数
+     */
+    public long getOverdueMillis() {
+        ScheduledExecutorService current = scheduler;
+        return current instanceof ScheduledThreadPoolExecutor
+                ? ScheduledTaskTracker.overdueMillis((ScheduledThreadPoolExecutor) current) : 0;
+    }
+
+    public int getWorkerThreads() {
+        return WORKER_THREADS;
+    }
+
     private ScheduledFuture<?> scheduleTask(Runnable task, long delay) {
         if (scheduler == null || scheduler.isShutdown()) {
             return null;
         }
-        return scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+        return scheduler.schedule(taskTracker.wrap(task, delay), delay, TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,338 @@
+package com.gjm.pk.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.monitor.GameMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 牌面结构与听牌分析
+ * 牌面结构（对子面、单色/双色面、顺子连接度）按花色同构规范化后的牌面缓存，同桌各座位共享；
+ * 玩家的听牌与精确outs数基于位掩码逐张枚举未见牌，单次只需几微秒，结果同样按手牌+公共牌的规范化键缓存，
+ * 同一手牌在每次状态推送与AI决策中只计算一次
+ *
+ * @author: guojianming
+ * @date: 2025/10/12
+ */
+@Service
+public class BoardTextureAnalyzer {
+
+    /** 牌面结构缓存最大条目数（规范化后的河牌面约13万种） */
+    private static final long TEXTURE_CACHE_MAX_SIZE = 200_000;
+    /** 牌面结构缓存的空闲过期时间（分钟） */
+    private static final long TEXTURE_CACHE_EXPIRE_MINUTES = 60;
+
+    /** 听牌缓存最大条目数 */
+    private static final long DRAW_CACHE_MAX_SIZE = 200_000;
+
+    private final Cache<Long, BoardTexture> textureCache = Caffeine.newBuilder()
+            .maximumSize(TEXTURE_CACHE_MAX_SIZE)
+            .expireAfterAccess(TEXTURE_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    private final Cache<Long, DrawInfo> drawCache = Caffeine.newBuilder()
+            .maximumSize(DRAW_CACHE_MAX_SIZE)
+            .expireAfterAccess(TEXTURE_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    /**
+     * 在线实例注册缓存指标；离线模拟直接创建的实例不注册
+     */
+    @Autowired(required = false)
+    public void setGameMetrics(GameMetrics gameMetrics) {
+        gameMetrics.monitorCache(textureCache, "board-texture");
+        gameMetrics.monitorCache(drawCache, "draws");
+    }
+
+    /**
+     * 牌面结构（与花色命名无关）
+     */
+    public static class BoardTexture {
+        private final boolean paired;
+        private final boolean trips;
+        private final boolean monotone;
+        private final boolean twoTone;
+        private final boolean rainbow;
+        private final boolean flushPossible;
+        private final int connectivity;
+        private final boolean straightPossible;
+        private final double wetness;
+
+        BoardTexture(boolean paired, boolean trips, boolean monotone, boolean twoTone, boolean rainbow,
+                     boolean flushPossible, int connectivity, boolean straightPossible, double wetness) {
+            this.paired = paired;
+            this.trips = trips;
+            this.monotone = monotone;
+            this.twoTone = twoTone;
+            this.rainbow = rainbow;
+            this.flushPossible = flushPossible;
+            this.connectivity = connectivity;
+            this.straightPossible = straightPossible;
+            this.wetness = wetness;
+        }
+
+        /** 牌面有对子 */
+        public boolean isPaired() { return paired; }
+        /** 牌面有三条 */
+        public boolean isTrips() { return trips; }
+        /** 单色面（全部公共牌同花色，至少3张） */
+        public boolean isMonotone() { return monotone; }
+        /** 双色面（同花色最多2张） */
+        public boolean isTwoTone() { return twoTone; }
+        /** 彩虹面（花色互不相同） */
+        public boolean isRainbow() { return rainbow; }
+        /** 同花色已有3张或以上，同花可能成立 */
+        public boolean isFlushPossible() { return flushPossible; }
+        /** 任意连续5个点数窗口内的最多牌面点数（含A-5） */
+        public int getConnectivity() { return connectivity; }
+        /** 顺子可能成立（连接度不低于3） */
+        public boolean isStraightPossible() { return straightPossible; }
+        /** 湿润度（0-1），越高越容易出现同花与顺子 */
+        public double getWetness() { return wetness; }
+    }
+
+    /**
+     * 玩家的听牌与outs（与花色命名无关）
+     */
+    public static class DrawInfo {
+        private final boolean flushDraw;
+        private final boolean backdoorFlushDraw;
+        private final boolean openEndedStraightDraw;
+        private final boolean gutshot;
+        private final boolean doubleGutshot;
+        private final boolean backdoorStraightDraw;
+        private final int flushOuts;
+        private final int straightOuts;
+        private final int outs;
+        private final double completionProbability;
+
+        DrawInfo(boolean flushDraw, boolean backdoorFlushDraw, boolean openEndedStraightDraw, boolean gutshot,
+                 boolean doubleGutshot, boolean backdoorStraightDraw, int flushOuts, int straightOuts, int outs,
+                 double completionProbability) {
+            this.flushDraw = flushDraw;
+            this.backdoorFlushDraw = backdoorFlushDraw;
+            this.openEndedStraightDraw = openEndedStraightDraw;
+            this.gutshot = gutshot;
+            this.doubleGutshot = doubleGutshot;
+            this.backdoorStraightDraw = backdoorStraightDraw;
+            this.flushOuts = flushOuts;
+            this.straightOuts = straightOuts;
+            this.outs = outs;
+            this.completionProbability = completionProbability;
+        }
+
+        /** 同花听牌（差一张） */
+        public boolean isFlushDraw() { return flushDraw; }
+        /** 后门同花听牌（翻牌圈差两张） */
+        public boolean isBackdoorFlushDraw() { return backdoorFlushDraw; }
+        /** 两头顺子听牌（连续4个点数，两端的点数都能成顺） */
+        public boolean isOpenEndedStraightDraw() { return openEndedStraightDraw; }
+        /** 卡顺听牌（只有一个点数能成顺） */
+        public boolean isGutshot() { return gutshot; }
+        /** 双卡顺听牌（两个点数能成顺，但不是两头顺，如 J-8-5 面上的 9-7） */
+        public boolean isDoubleGutshot() { return doubleGutshot; }
+        /** 后门顺子听牌（翻牌圈差两张） */
+        public boolean isBackdoorStraightDraw() { return backdoorStraightDraw; }
+        /** 成同花的未见牌数 */
+        public int getFlushOuts() { return flushOuts; }
+        /** 成顺子的未见牌数 */
+        public int getStraightOuts() { return straightOuts; }
+        /** 让手牌升级为更高牌型（且手牌参与）的未见牌数 */
+        public int getOuts() { return outs; }
+        /** 剩余发牌中至少命中一张outs的概率 */
+        public double getCompletionProbability() { return completionProbability; }
+    }
+
+    /**
+     * 分析牌面结构（按规范化牌面缓存）
+     *
+     * @param board 公共牌（3-5张）
+     */
+    public BoardTexture analyzeBoard(List<Card> board) {
+        return textureCache.get(SuitIsomorphism.canonicalBoardKey(board), key -> computeTexture(board));
+    }
+
+    /**
+     * 分析玩家的听牌与outs，河牌圈或翻牌前返回无听牌
+     *
+     * @param holeCards 手牌（2张）
+     * @param board 公共牌
+     */
+    public DrawInfo analyzeDraws(List<Card> holeCards, List<Card> board) {
+        if (holeCards.size() < 2 || board.size() < 3 || board.size() >= 5) {
+            return new DrawInfo(false, false, false, false, false, false, 0, 0, 0, 0.0);
+        }
+        return drawCache.get(SuitIsomorphism.canonicalKey(holeCards, board), key -> computeDraws(holeCards, board));
+    }
+
+    /**
+     * 听牌缓存统计
+     */
+    public CacheStats getDrawCacheStats() {
+        return drawCache.stats();
+    }
+
+    private DrawInfo computeDraws(List<Card> holeCards, List<Card> board) {
+        long holeMask = HandEvaluator.cardMask(holeCards);
+        long boardMask = HandEvaluator.cardMask(board);
+        long boardPacked = packed(boardMask);
+        long allPacked = boardPacked | packed(holeMask);
+        int current = HandEvaluator.evaluatePacked(allPacked);
+        int currentCategory = current >>> 20;
+        int allRanks = HandEvaluator.rankMaskOf(allPacked);
+        boolean madeStraight = HandEvaluator.straightHigh(allRanks) != 0;
+
+        int outs = 0;
+        int flushOuts = 0;
+        int straightOuts = 0;
+        int straightRanks = 0;
+        long unseen = ~(holeMask | boardMask) & ((1L << 52) - 1);
+        int unseenCount = Long.bitCount(unseen);
+        for (long remaining = unseen; remaining != 0; remaining &= remaining - 1) {
+            int card = Long.numberOfTrailingZeros(remaining);
+            long bit = HandEvaluator.packedCardBit(card);
+            int improved = HandEvaluator.evaluatePacked(allPacked | bit);
+            int improvedCategory = improved >>> 20;
+            int boardOnlyCategory = HandEvaluator.evaluatePacked(boardPacked | bit) >>> 20;
+            // 只有手牌参与、且牌型升级的牌才算outs（公对等所有人共享的提升不算）
+            if (improvedCategory > currentCategory && improvedCategory > boardOnlyCategory) {
+                outs++;
+                if (isFlushCategory(improvedCategory)) {
+                    flushOuts++;
+                }
+            }
+            int boardRanksWithCard = HandEvaluator.rankMaskOf(boardPacked | bit);
+            int straightWithCard = HandEvaluator.straightHigh(allRanks | 1 << (card % 13));
+            if (!madeStraight && straightWithCard > HandEvaluator.straightHigh(boardRanksWithCard)) {
+                straightOuts++;
+                straightRanks |= 1 << (card % 13);
+            }
+        }
+
+        boolean flushDraw = false;
+        boolean backdoorFlushDraw = false;
+        for (int suit = 0; suit < 4; suit++) {
+            int holeSuited = countSuit(holeCards, suit);
+            int total = holeSuited + countSuit(board, suit);
+            if (holeSuited > 0 && total == 4) {
+                flushDraw = true;
+            } else if (holeSuited > 0 && total == 3 && board.size() == 3) {
+                backdoorFlushDraw = true;
+            }
+        }
+        int completingRanks = Integer.bitCount(straightRanks);
+        boolean openEnded = isOpenEnded(allRanks, straightRanks);
+        boolean doubleGutshot = !openEnded && completingRanks >= 2;
+        boolean gutshot = completingRanks == 1;
+        boolean backdoorStraight = completingRanks == 0 && !madeStraight && board.size() == 3
+                && hasBackdoorStraight(allRanks, HandEvaluator.rankMaskOf(packed(holeMask)));
+
+        int cardsToCome = 5 - board.size();
+        double miss = (double) RangeEquityCalculator.binomial(unseenCount - outs, cardsToCome)
+                / RangeEquityCalculator.binomial(unseenCount, cardsToCome);
+        return new DrawInfo(flushDraw, backdoorFlushDraw, openEnded, gutshot, doubleGutshot, backdoorStraight,
+                flushOuts, straightOuts, outs, 1.0 - miss);
+    }
+
+    /**
+     * 牌面结构缓存统计
+     */
+    public CacheStats getTextureCacheStats() {
+        return textureCache.stats();
+    }
+
+    private BoardTexture computeTexture(List<Card> board) {
+        int[] rankCounts = new int[15];
+        int[] suitCounts = new int[4];
+        int rankMask = 0;
+        for (Card card : board) {
+            rankCounts[card.getRank()]++;
+            suitCounts[card.getSuit()]++;
+            rankMask |= 1 << (card.getRank() - 2);
+        }
+        int maxRank = 0;
+        for (int count : rankCounts) {
+            maxRank = Math.max(maxRank, count);
+        }
+        int maxSuit = 0;
+        for (int count : suitCounts) {
+            maxSuit = Math.max(maxSuit, count);
+        }
+        // A 同时作为最小点数参与 A-5 窗口
+        int extendedMask = rankMask << 1 | ((rankMask >>> 12) & 1);
+        int connectivity = 0;
+        for (int low = 0; low <= 9; low++) {
+            connectivity = Math.max(connectivity, Integer.bitCount(extendedMask & (0x1F << low)));
+        }
+
+        boolean flushPossible = maxSuit >= 3;
+        boolean twoTone = maxSuit == 2;
+        double wetness = (flushPossible ? 0.45 : twoTone ? 0.2 : 0.0)
+                + (connectivity >= 3 ? 0.45 : connectivity == 2 ? 0.2 : 0.0)
+                + (maxRank >= 2 ? 0.1 : 0.0);
+        return new BoardTexture(maxRank >= 2, maxRank >= 3, flushPossible && maxSuit == board.size(),
+                twoTone, maxSuit == 1, flushPossible, connectivity, connectivity >= 3, Math.min(1.0, wetness));
+    }
+
+    /**
+     * 存在连续4个点数，且紧邻两端的点数都是成顺点数（A-2-3-4、J-Q-K-A 只有一端，不算两头）
+     */
+    private static boolean isOpenEnded(int allRanks, int straightRanks) {
+        int extendedAll = allRanks << 1 | ((allRanks >>> 12) & 1);
+        int extendedCompleting = straightRanks << 1 | ((straightRanks >>> 12) & 1);
+        for (int low = 1; low <= 9; low++) {
+            if ((extendedAll & (0xF << low)) == 0xF << low
+                    && (extendedCompleting >>> (low - 1) & 1) != 0 && (extendedCompleting >>> (low + 4) & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 存在一个5点数窗口包含至少3个点数，且其中有手牌的点数
+     */
+    private static boolean hasBackdoorStraight(int allRanks, int holeRanks) {
+        int extendedAll = allRanks << 1 | ((allRanks >>> 12) & 1);
+        int extendedHole = holeRanks << 1 | ((holeRanks >>> 12) & 1);
+        for (int low = 0; low <= 9; low++) {
+            int window = 0x1F << low;
+            if (Integer.bitCount(extendedAll & window) >= 3 && (extendedHole & window) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFlushCategory(int category) {
+        return category == HandEvaluator.HandType.FLUSH.getStrength()
+                || category == HandEvaluator.HandType.STRAIGHT_FLUSH.getStrength()
+                || category == HandEvaluator.HandType.ROYAL_FLUSH.getStrength();
+    }
+
+    private static int countSuit(List<Card> cards, int suit) {
+        int count = 0;
+        for (Card card : cards) {
+            if (card.getSuit() == suit) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long packed(long cardMask) {
+        long packed = 0L;
+        for (long remaining = cardMask; remaining != 0; remaining &= remaining - 1) {
+            packed |= HandEvaluator.packedCardBit(Long.numberOfTrailingZeros(remaining));
+        }
+        return packed;
+    }
+}
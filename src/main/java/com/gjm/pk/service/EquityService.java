@@ -0,0 +1,316 @@
+package com.gjm.pk.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gjm.pk.config.EquityProperties;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.monitor.GameMetrics;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 带缓存的胜率计算
+ * 查询先按花色同构与玩家顺序规范化：在24种花色置换下对各玩家范围、公共牌、死牌编码，
+ * 玩家按编码排序后取字典序最小的一种作为缓存键，因此 AsKs vs QdQc 与 AhKh vs QsQc（或交换玩家顺序）共用同一条结果。
+ * 结果按规范顺序缓存（LRU），返回时再映射回请求中的玩家顺序；相同查询并发到达时只计算一次，其余请求等待同一个结果。
+ * 抽样次数有上限，并向上取整到 trialsBucket 的倍数，相近的 trials 共用同一条缓存
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Service
+public class EquityService {
+
+    /** 4个花色的全部24种置换 */
+    private static final int[][] SUIT_PERMUTATIONS = suitPermutations();
+
+    /**
+     * 结果来源
+     */
+    public enum Source {
+        /** 本次请求计算 */
+        COMPUTED,
+        /** 命中已完成的缓存 */
+        CACHED,
+        /** 等待正在进行的相同计算 */
+        COALESCED
+    }
+
+    /**
+     * 胜率结果，数组下标与请求中的玩家顺序一致
+     */
+    @Value
+    public static class Equity {
+        double[] equity;
+        double[] win;
+        double[] tie;
+        long trials;
+        boolean exact;
+        Source source;
+        /** 首次计算耗时（毫秒） */
+        long computeMillis;
+    }
+
+    /**
+     * 按规范玩家顺序缓存的结果
+     */
+    private static final class CachedEquity {
+        private final double[] equity;
+        private final double[] win;
+        private final double[] tie;
+        private final long trials;
+        private final boolean exact;
+        private final long computeMillis;
+
+        CachedEquity(RangeEquityCalculator.EquityResult result, int[] order, long computeMillis) {
+            this.equity = reorder(result.getEquity(), order);
+            this.win = reorder(result.getWin(), order);
+            this.tie = reorder(result.getTie(), order);
+            this.trials = result.getTrials();
+            this.exact = result.isExact();
+            this.computeMillis = computeMillis;
+        }
+
+        /** 规范位置 k 的值取自请求中的玩家 order[k] */
+        private static double[] reorder(double[] values, int[] order) {
+            double[] canonical = new double[order.length];
+            for (int k = 0; k < order.length; k++) {
+                canonical[k] = values[order[k]];
+            }
+            return canonical;
+        }
+
+        /** 请求中的玩家 order[k] 取规范位置 k 的值 */
+        private static double[] restore(double[] canonical, int[] order) {
+            double[] values = new double[order.length];
+            for (int k = 0; k < order.length; k++) {
+                values[order[k]] = canonical[k];
+            }
+            return values;
+        }
+    }
+
+    /**
+     * 规范化后的查询：缓存键与规范位置到请求玩家的映射
+     */
+    private static final class CanonicalQuery {
+        private final String key;
+        private final int[] order;
+
+        CanonicalQuery(String key, int[] order) {
+            this.key = key;
+            this.order = order;
+        }
+    }
+
+    private final RangeEquityCalculator rangeEquityCalculator;
+    private final int maxTrials;
+    private final int trialsBucket;
+    private final ExecutorService workers;
+    private final AsyncCache<String, CachedEquity> cache;
+
+    @Autowired
+    public EquityService(RangeEquityCalculator rangeEquityCalculator, EquityProperties properties) {
+        this.rangeEquityCalculator = rangeEquityCalculator;
+        this.maxTrials = properties.getMaxTrials();
+        this.trialsBucket = Math.max(1, properties.getTrialsBucket());
+        AtomicInteger index = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "equity-worker-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaximumSize())
+                .expireAfterAccess(properties.getCacheExpireMinutes(), TimeUnit.MINUTES)
+                .executor(workers)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Autowired(required = false)
+    public void setGameMetrics(GameMetrics gameMetrics) {
+        gameMetrics.monitorCache(cache, "equity");
+    }
+
+    /**
+     * 计算（或从缓存取得）各玩家的胜率；参数非法时返回以 IllegalArgumentException 失败的 future，失败结果不缓存
+     *
+     * @param ranges 各玩家的范围或具体手牌（2-10个）
+     * @param board 已知公共牌（0-5张）
+     * @param deadCards 死牌
+     * @param trials 需要抽样时的抽样次数，不大于0时使用默认值，超过上限时失败
+     */
+    public CompletableFuture<Equity> equity(List<HandRange> ranges, List<Card> board, List<Card> deadCards, int trials) {
+        if (ranges.size() < RangeEquityCalculator.MIN_PLAYERS || ranges.size() > RangeEquityCalculator.MAX_PLAYERS) {
+            return failed("玩家数必须在" + RangeEquityCalculator.MIN_PLAYERS + "到" + RangeEquityCalculator.MAX_PLAYERS + "之间");
+        }
+        if (trials > maxTrials) {
+            return failed("trials 不能超过 " + maxTrials);
+        }
+        int requested = trials > 0 ? trials : RangeEquityCalculator.DEFAULT_TRIALS;
+        int effectiveTrials = Math.min(maxTrials, (requested + trialsBucket - 1) / trialsBucket * trialsBucket);
+        long boardMask = HandEvaluator.cardMask(board);
+        long deadMask = HandEvaluator.cardMask(deadCards);
+        // 先去掉与已知牌冲突的组合，使 "QQ+" 与 "QQ+ 去掉 Qs" 在 Qs 已在公共牌上时得到相同的键
+        List<HandRange> live = new ArrayList<>(ranges.size());
+        for (HandRange range : ranges) {
+            live.add(range.without(boardMask | deadMask));
+        }
+        CanonicalQuery query = canonicalize(live, boardMask, deadMask, effectiveTrials);
+
+        boolean[] loaded = new boolean[1];
+        CompletableFuture<CachedEquity> future = cache.get(query.key, (key, executor) -> {
+            loaded[0] = true;
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                RangeEquityCalculator.EquityResult result =
+                        rangeEquityCalculator.calculate(ranges, board, deadCards, effectiveTrials);
+                return new CachedEquity(result, query.order, (System.nanoTime() - start) / 1_000_000);
+            }, executor);
+        });
+        Source source = loaded[0] ? Source.COMPUTED : future.isDone() ? Source.CACHED : Source.COALESCED;
+        return future.thenApply(cached -> new Equity(
+                CachedEquity.restore(cached.equity, query.order),
+                CachedEquity.restore(cached.win, query.order),
+                CachedEquity.restore(cached.tie, query.order),
+                cached.trials, cached.exact, source, cached.computeMillis));
+    }
+
+    private static CompletableFuture<Equity> failed(String message) {
+        CompletableFuture<Equity> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalArgumentException(message));
+        return failed;
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.synchronous().stats();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * 在全部花色置换中取字典序最小的编码；同一置换下玩家按编码排序，记录规范位置对应的请求玩家
+     */
+    private static CanonicalQuery canonicalize(List<HandRange> ranges, long boardMask, long deadMask, int trials) {
+        int players = ranges.size();
+        int[][] combos = new int[players][];
+        int[][] weightBits = new int[players][];
+        for (int p = 0; p < players; p++) {
+            HandRange range = ranges.get(p);
+            int count = 0;
+            int[] live = new int[HandEvaluator.COMBO_COUNT];
+            for (int combo = 0; combo < HandEvaluator.COMBO_COUNT; combo++) {
+                if (range.weight(combo) > 0) {
+                    live[count++] = combo;
+                }
+            }
+            combos[p] = Arrays.copyOf(live, count);
+            weightBits[p] = new int[count];
+            for (int i = 0; i < count; i++) {
+                weightBits[p][i] = Float.floatToIntBits(range.weight(combos[p][i]));
+            }
+        }
+
+        String bestKey = null;
+        int[] bestOrder = null;
+        for (int[] suitPermutation : SUIT_PERMUTATIONS) {
+            String[] encoded = new String[players];
+            Integer[] order = new Integer[players];
+            for (int p = 0; p < players; p++) {
+                encoded[p] = encodeRange(combos[p], weightBits[p], suitPermutation);
+                order[p] = p;
+            }
+            Arrays.sort(order, (a, b) -> encoded[a].compareTo(encoded[b]));
+
+            StringBuilder key = new StringBuilder();
+            key.append(trials).append(':');
+            appendCards(key, permuteMask(boardMask, suitPermutation));
+            appendCards(key, permuteMask(deadMask, suitPermutation));
+            for (Integer p : order) {
+                key.append(encoded[p]);
+            }
+            String candidate = key.toString();
+            if (bestKey == null || candidate.compareTo(bestKey) < 0) {
+                bestKey = candidate;
+                bestOrder = new int[players];
+                for (int k = 0; k < players; k++) {
+                    bestOrder[k] = order[k];
+                }
+            }
+        }
+        return new CanonicalQuery(bestKey, bestOrder);
+    }
+
+    /**
+     * 范围编码：组合数，再按置换后组合序号升序排列的（序号, 权重高16位, 权重低16位）
+     */
+    private static String encodeRange(int[] combos, int[] weightBits, int[] suitPermutation) {
+        long[] entries = new long[combos.length];
+        for (int i = 0; i < combos.length; i++) {
+            int card1 = permuteCard(HandEvaluator.comboCard1(combos[i]), suitPermutation);
+            int card2 = permuteCard(HandEvaluator.comboCard2(combos[i]), suitPermutation);
+            entries[i] = (long) HandEvaluator.comboIndex(card1, card2) << 32 | (weightBits[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(entries);
+        StringBuilder encoded = new StringBuilder(1 + entries.length * 3);
+        encoded.append((char) entries.length);
+        for (long entry : entries) {
+            int bits = (int) entry;
+            encoded.append((char) (entry >>> 32)).append((char) (bits >>> 16)).append((char) bits);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * 牌集编码：张数，再按索引升序的牌
+     */
+    private static void appendCards(StringBuilder key, long mask) {
+        key.append((char) Long.bitCount(mask));
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            key.append((char) Long.numberOfTrailingZeros(rest));
+        }
+    }
+
+    private static long permuteMask(long mask, int[] suitPermutation) {
+        long permuted = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            permuted |= 1L << permuteCard(Long.numberOfTrailingZeros(rest), suitPermutation);
+        }
+        return permuted;
+    }
+
+    private static int permuteCard(int card, int[] suitPermutation) {
+        return suitPermutation[card / 13] * 13 + card % 13;
+    }
+
+    private static int[][] suitPermutations() {
+        List<int[]> permutations = new ArrayList<>(24);
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations.add(new int[]{a, b, c, d});
+                    }
+                }
+            }
+        }
+        return permutations.toArray(new int[0][]);
+    }
+}
@@ -4,6 +4,7 @@ import com.gjm.pk.entity.Card;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -15,6 +16,57 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 public class HandEvaluator {
+
+    /** 两张手牌的全部组合数 C(52,2) */
+    public static final int COMBO_COUNT = 1326;
+
+    /** 整数牌力编码中牌型所在的位移（低20位为5个4位的比较点数） */
+    private static final int CATEGORY_SHIFT = 20;
+
+    /** 组合序号 -> 两张牌的索引（card1 < card2） */
+    private static final byte[] COMBO_CARD1 = new byte[COMBO_COUNT];
+    private static final byte[] COMBO_CARD2 = new byte[COMBO_COUNT];
+    /** 两张牌索引 -> 组合序号 */
+    private static final short[] COMBO_INDEX = new short[52 * 52];
+    /** 13位点数掩码 -> 顺子最高点数（2-14，A-5为5），无顺子为0 */
+    private static final byte[] STRAIGHT_HIGH = new byte[1 << 13];
+    /** 牌索引 -> 四花色打包掩码中的位（每个花色占16位） */
+    private static final long[] PACKED_CARD_BIT = new long[52];
+    /** 打包掩码中单个花色的13位点数 */
+    private static final int RANK_BITS = 0x1FFF;
+
+    /** evaluateHand 的累计调用次数与耗时，由 GameMetrics 读取 */
+    private static final LongAdder EVALUATION_COUNT = new LongAdder();
+    private static final LongAdder EVALUATION_NANOS = new LongAdder();
+
+    static {
+        for (int card = 0; card < 52; card++) {
+            PACKED_CARD_BIT[card] = 1L << (card / 13 * 16 + card % 13);
+        }
+        int combo = 0;
+        for (int card1 = 0; card1 < 52; card1++) {
+            for (int card2 = card1 + 1; card2 < 52; card2++) {
+                COMBO_CARD1[combo] = (byte) card1;
+                COMBO_CARD2[combo] = (byte) card2;
+                COMBO_INDEX[card1 * 52 + card2] = (short) combo;
+                COMBO_INDEX[card2 * 52 + card1] = (short) combo;
+                combo++;
+            }
+        }
+        for (int mask = 0; mask < STRAIGHT_HIGH.length; mask++) {
+            for (int high = 12; high >= 4; high--) {
+                int window = 0x1F << (high - 4);
+                if ((mask & window) == window) {
+                    STRAIGHT_HIGH[mask] = (byte) (high + 2);
+                    break;
+                }
+            }
+            int wheel = 0x100F; // A,2,3,4,5
+            if (STRAIGHT_HIGH[mask] == 0 && (mask & wheel) == wheel) {
+                STRAIGHT_HIGH[mask] = 5;
+            }
+        }
+    }
     
     /**
      * 牌型枚举，按强度从低到高排序
@@ -76,6 +128,24 @@ public class HandEvaluator {
      * @return 最佳手牌结果
      */
     public static HandResult evaluateHand(List<Card> holeCards, List<Card> communityCards) {
+        long start = System.nanoTime();
+        try {
+            return evaluateBestHand(holeCards, communityCards);
+        } finally {
+            EVALUATION_NANOS.add(System.nanoTime() - start);
+            EVALUATION_COUNT.increment();
+        }
+    }
+
+    public static long getEvaluationCount() {
+        return EVALUATION_COUNT.sum();
+    }
+
+    public static long getEvaluationNanos() {
+        return EVALUATION_NANOS.sum();
+    }
+
+    private static HandResult evaluateBestHand(List<Card> holeCards, List<Card> communityCards) {
         List<Card> allCards = new ArrayList<>();
         allCards.addAll(holeCards);
         allCards.addAll(communityCards);
@@ -119,17 +189,19 @@ public class HandEvaluator {
                 .collect(Collectors.groupingBy(Card::getSuit));
         
         boolean isFlush = suitGroups.size() == 1;
-        boolean isStraight = isStraight(cards);
+        // A-2-3-4-5 的最大牌为5，与 evaluatePacked 一致
+        int straightHigh = straightHigh(cards);
+        boolean isStraight = straightHigh > 0;
         
         // 检查皇家同花顺
-        if (isFlush && isStraight && sortedCards.get(0).getRank() == 14) {
+        if (isFlush && straightHigh == 14) {
             return new HandResult(HandType.ROYAL_FLUSH, Arrays.asList(14), sortedCards);
         }
         
         // 检查同花顺
         if (isFlush && isStraight) {
             return new HandResult(HandType.STRAIGHT_FLUSH, 
-                    Arrays.asList(sortedCards.get(0).getRank()), sortedCards);
+                    Arrays.asList(straightHigh), sortedCards);
         }
         
         // 检查四条
@@ -174,7 +246,7 @@ public class HandEvaluator {
         // 检查顺子
         if (isStraight) {
             return new HandResult(HandType.STRAIGHT, 
-                    Arrays.asList(sortedCards.get(0).getRank()), sortedCards);
+                    Arrays.asList(straightHigh), sortedCards);
         }
         
         // 检查三条
@@ -231,9 +303,9 @@ public class HandEvaluator {
     }
     
     /**
-     * 检查是否为顺子
+     * 顺子的最大牌，A-2-3-4-5 为5，不是顺子时返回0
      */
-    private static boolean isStraight(List<Card> cards) {
+    private static int straightHigh(List<Card> cards) {
         List<Integer> ranks = cards.stream()
                 .map(Card::getRank)
                 .distinct()
@@ -241,7 +313,7 @@ public class HandEvaluator {
                 .collect(Collectors.toList());
         
         if (ranks.size() != 5) {
-            return false;
+            return 0;
         }
         
         // 检查普通顺子
@@ -254,11 +326,11 @@ public class HandEvaluator {
         }
         
         if (normalStraight) {
-            return true;
+            return ranks.get(4);
         }
         
         // 检查A-2-3-4-5顺子
-        return ranks.equals(Arrays.asList(2, 3, 4, 5, 14));
+        return ranks.equals(Arrays.asList(2, 3, 4, 5, 14)) ? 5 : 0;
     }
     
     /**
@@ -308,6 +380,243 @@ public class HandEvaluator {
         }
     }
     
+    /**
+     * 一个牌面下全部1326种手牌组合的牌力
+     * 被牌面或死牌占用的组合牌力为0、百分位为-1
+     */
+    public static class RangeStrength {
+        private final int[] ranks;
+        private final float[] percentiles;
+        private final int liveCombos;
+
+        RangeStrength(int[] ranks, float[] percentiles, int liveCombos) {
+            this.ranks = ranks;
+            this.percentiles = percentiles;
+            this.liveCombos = liveCombos;
+        }
+
+        /** 按组合序号排列的整数牌力，数值越大越强 */
+        public int[] getRanks() { return ranks; }
+        /** 按组合序号排列的牌力百分位（0-1，平局计一半） */
+        public float[] getPercentiles() { return percentiles; }
+        /** 可用组合数 */
+        public int getLiveCombos() { return liveCombos; }
+    }
+
+    /**
+     * 一次遍历评估全部1326种手牌组合
+     * 牌面的花色掩码只计算一次，每个组合只在其上叠加两张牌，不创建任何对象
+     *
+     * @param board 公共牌（0-5张）
+     * @param deadMask 额外的死牌掩码（第i位表示索引为i的牌）
+     * @return 各组合的牌力与百分位
+     */
+    public static RangeStrength evaluateRange(List<Card> board, long deadMask) {
+        long blocked = deadMask | cardMask(board);
+        long boardPacked = 0L;
+        for (Card card : board) {
+            boardPacked |= PACKED_CARD_BIT[card.toIndex()];
+        }
+
+        int[] ranks = new int[COMBO_COUNT];
+        // 排序键：牌力 << 11 | 组合序号，排序后即可线性地求出百分位
+        long[] sortKeys = new long[COMBO_COUNT];
+        int live = 0;
+        for (int combo = 0; combo < COMBO_COUNT; combo++) {
+            int card1 = COMBO_CARD1[combo];
+            int card2 = COMBO_CARD2[combo];
+            if (((blocked >>> card1) & 1L) != 0 || ((blocked >>> card2) & 1L) != 0) {
+                continue;
+            }
+            int rank = evaluatePacked(boardPacked | PACKED_CARD_BIT[card1] | PACKED_CARD_BIT[card2]);
+            ranks[combo] = rank;
+            sortKeys[live++] = (long) rank << 11 | combo;
+        }
+
+        Arrays.sort(sortKeys, 0, live);
+        float[] percentiles = new float[COMBO_COUNT];
+        Arrays.fill(percentiles, -1f);
+        float denominator = Math.max(1, live - 1);
+        int groupStart = 0;
+        for (int i = 1; i <= live; i++) {
+            if (i == live || (sortKeys[i] >>> 11) != (sortKeys[groupStart] >>> 11)) {
+                // [groupStart, i) 为同一牌力：低于它的有groupStart个，与之持平的有(i-groupStart-1)个
+                float percentile = (groupStart + (i - groupStart - 1) * 0.5f) / denominator;
+                for (int j = groupStart; j < i; j++) {
+                    percentiles[(int) (sortKeys[j] & 0x7FF)] = percentile;
+                }
+                groupStart = i;
+            }
+        }
+        return new RangeStrength(ranks, percentiles, live);
+    }
+
+    /**
+     * 快速评估5-7张牌的整数牌力，数值越大越强，相等即平局
+     * 与 evaluateHand 的比较结果一致（A-2-3-4-5 按5高顺子计）
+     */
+    public static int evaluateRank(List<Card> cards) {
+        int[] suits = new int[4];
+        for (Card card : cards) {
+            suits[card.getSuit()] |= 1 << (card.getRank() - 2);
+        }
+        return evaluateSuitMasks(suits[0], suits[1], suits[2], suits[3]);
+    }
+
+    /**
+     * 由整数牌力取得牌型
+     */
+    public static HandType handTypeOf(int rank) {
+        return HandType.values()[(rank >>> CATEGORY_SHIFT) - 1];
+    }
+
+    /**
+     * 牌的位掩码（第i位表示索引为i的牌）
+     */
+    public static long cardMask(List<Card> cards) {
+        long mask = 0L;
+        for (Card card : cards) {
+            mask |= 1L << card.toIndex();
+        }
+        return mask;
+    }
+
+    /**
+     * 两张牌索引对应的组合序号
+     */
+    public static int comboIndex(int card1, int card2) {
+        if (card1 == card2) {
+            throw new IllegalArgumentException("同一张牌不能组成手牌: " + card1);
+        }
+        return COMBO_INDEX[card1 * 52 + card2];
+    }
+
+    /** 组合中较小的牌索引 */
+    public static int comboCard1(int combo) {
+        return COMBO_CARD1[combo];
+    }
+
+    /** 组合中较大的牌索引 */
+    public static int comboCard2(int combo) {
+        return COMBO_CARD2[combo];
+    }
+
+    /**
+     * 13位点数掩码中顺子的最高点数（2-14，A-5为5），无顺子为0
+     */
+    static int straightHigh(int rankMask) {
+        return STRAIGHT_HIGH[rankMask & RANK_BITS];
+    }
+
+    /**
+     * 四花色打包掩码合并后的13位点数掩码
+     */
+    static int rankMaskOf(long packed) {
+        return ((int) packed | (int) (packed >>> 16) | (int) (packed >>> 32) | (int) (packed >>> 48)) & RANK_BITS;
+    }
+
+    /**
+     * 牌索引在四花色打包掩码中的位
+     */
+    static long packedCardBit(int card) {
+        return PACKED_CARD_BIT[card];
+    }
+
+    /**
+     * 由四花色打包掩码（每个花色16位）计算牌力
+     */
+    static int evaluatePacked(long packed) {
+        return evaluateSuitMasks((int) packed & RANK_BITS, (int) (packed >>> 16) & RANK_BITS,
+                (int) (packed >>> 32) & RANK_BITS, (int) (packed >>> 48) & RANK_BITS);
+    }
+
+    /**
+     * 由四个花色的13位点数掩码计算牌力
+     * 编码：牌型强度 << 20 | 依次5个4位比较点数（2-14）
+     */
+    static int evaluateSuitMasks(int s0, int s1, int s2, int s3) {
+        int flushMask = Integer.bitCount(s0) >= 5 ? s0 : Integer.bitCount(s1) >= 5 ? s1
+                : Integer.bitCount(s2) >= 5 ? s2 : Integer.bitCount(s3) >= 5 ? s3 : 0;
+        if (flushMask != 0) {
+            int straightFlushHigh = STRAIGHT_HIGH[flushMask];
+            if (straightFlushHigh == 14) {
+                return encode(HandType.ROYAL_FLUSH, 14 << 16);
+            }
+            if (straightFlushHigh != 0) {
+                return encode(HandType.STRAIGHT_FLUSH, straightFlushHigh << 16);
+            }
+        }
+
+        // 按位累加四个花色，得到每个点数出现次数的二进制位
+        int ones = s0 ^ s1;
+        int twos = s0 & s1;
+        int carry = ones & s2;
+        ones ^= s2;
+        twos |= carry;
+        carry = ones & s3;
+        ones ^= s3;
+        int fours = twos & carry;
+        twos ^= carry;
+
+        int all = s0 | s1 | s2 | s3;
+        if (fours != 0) {
+            int quad = highestBit(fours);
+            return encode(HandType.FOUR_OF_A_KIND, packTop(1 << quad, 1, 16) | packTop(all & ~(1 << quad), 1, 12));
+        }
+        int trips = ones & twos;
+        int pairs = twos & ~ones;
+        if (trips != 0) {
+            int topTrip = highestBit(trips);
+            int pairCandidates = pairs | (trips & ~(1 << topTrip));
+            if (pairCandidates != 0) {
+                return encode(HandType.FULL_HOUSE, packTop(1 << topTrip, 1, 16) | packTop(pairCandidates, 1, 12));
+            }
+        }
+        if (flushMask != 0) {
+            return encode(HandType.FLUSH, packTop(flushMask, 5, 16));
+        }
+        int straightHigh = STRAIGHT_HIGH[all];
+        if (straightHigh != 0) {
+            return encode(HandType.STRAIGHT, straightHigh << 16);
+        }
+        if (trips != 0) {
+            int topTrip = 1 << highestBit(trips);
+            return encode(HandType.THREE_OF_A_KIND, packTop(topTrip, 1, 16) | packTop(all & ~topTrip, 2, 12));
+        }
+        if (Integer.bitCount(pairs) >= 2) {
+            int first = 1 << highestBit(pairs);
+            int second = 1 << highestBit(pairs & ~first);
+            int twoPair = first | second;
+            return encode(HandType.TWO_PAIR, packTop(twoPair, 2, 16) | packTop(all & ~twoPair, 1, 8));
+        }
+        if (pairs != 0) {
+            return encode(HandType.ONE_PAIR, packTop(pairs, 1, 16) | packTop(all & ~pairs, 3, 12));
+        }
+        return encode(HandType.HIGH_CARD, packTop(all, 5, 16));
+    }
+
+    private static int encode(HandType handType, int kickers) {
+        return handType.getStrength() << CATEGORY_SHIFT | kickers;
+    }
+
+    /**
+     * 取掩码中最高的count个点数，从shift位起每4位放一个（依次右移4位）
+     */
+    private static int packTop(int mask, int count, int shift) {
+        int packed = 0;
+        for (int i = 0; i < count && mask != 0; i++) {
+            int bit = highestBit(mask);
+            packed |= (bit + 2) << shift;
+            mask &= ~(1 << bit);
+            shift -= 4;
+        }
+        return packed;
+    }
+
+    private static int highestBit(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
     /**
      * 比较多个玩家的手牌，返回获胜者列表
      */
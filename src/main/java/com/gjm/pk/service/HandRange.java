@@ -0,0 +1,280 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+
+import java.util.Arrays;
+
+/**
+ * 手牌范围
+ * 以1326个组合上的权重数组表示（下标为 HandEvaluator 的组合序号），权重为0表示不在范围内
+ *
+ * 支持的记法（逗号分隔，可附加 ":权重"）：
+ * QQ、QQ+、22-55、AK、AKs、AKo、A5s+、A5s-A2s、KTo+、AsKs、QQ+:0.5
+ *
+ * @author: guojianming
+ * @date: 2025/10/11
+ */
+public final class HandRange {
+
+    private static final String RANK_CHARS = "23456789TJQKA";
+
+    private final String notation;
+    private final float[] weights;
+
+    private HandRange(String notation, float[] weights) {
+        this.notation = notation;
+        this.weights = weights;
+    }
+
+    /**
+     * 解析范围记法
+     *
+     * @param notation 如 "QQ+, AKs, A5s-A2s, KQo"
+     * @return 手牌范围
+     */
+    public static HandRange parse(String notation) {
+        if (notation == null || notation.trim().isEmpty()) {
+            throw new IllegalArgumentException("范围不能为空");
+        }
+        float[] weights = new float[HandEvaluator.COMBO_COUNT];
+        for (String rawToken : notation.split(",")) {
+            String token = rawToken.replaceAll("\\s", "");
+            if (token.isEmpty()) {
+                continue;
+            }
+            float weight = 1f;
+            int colon = token.indexOf(':');
+            if (colon >= 0) {
+                weight = parseWeight(token.substring(colon + 1), rawToken);
+                token = token.substring(0, colon);
+            }
+            parseToken(token, weight, weights);
+        }
+        HandRange range = new HandRange(notation.trim(), weights);
+        if (range.comboCount() == 0) {
+            throw new IllegalArgumentException("范围不包含任何手牌: " + notation);
+        }
+        return range;
+    }
+
+    /**
+     * 仅包含一手具体手牌的范围
+     */
+    public static HandRange of(Card card1, Card card2) {
+        float[] weights = new float[HandEvaluator.COMBO_COUNT];
+        weights[HandEvaluator.comboIndex(card1.toIndex(), card2.toIndex())] = 1f;
+        return new HandRange(card1.toShortString() + card2.toShortString(), weights);
+    }
+
+    /**
+     * 去掉与给定牌掩码冲突的组合后的新范围
+     */
+    public HandRange without(long cardMask) {
+        float[] filtered = weights.clone();
+        for (int combo = 0; combo < filtered.length; combo++) {
+            if (filtered[combo] > 0 && (comboMask(combo) & cardMask) != 0) {
+                filtered[combo] = 0f;
+            }
+        }
+        return new HandRange(notation, filtered);
+    }
+
+    /**
+     * 组合的两张牌掩码
+     */
+    public static long comboMask(int combo) {
+        return 1L << HandEvaluator.comboCard1(combo) | 1L << HandEvaluator.comboCard2(combo);
+    }
+
+    /**
+     * 范围内（权重大于0）的组合数
+     */
+    public int comboCount() {
+        int count = 0;
+        for (float weight : weights) {
+            if (weight > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 若范围只包含一个组合则返回其序号，否则返回-1
+     */
+    public int singleCombo() {
+        int found = -1;
+        for (int combo = 0; combo < weights.length; combo++) {
+            if (weights[combo] > 0) {
+                if (found >= 0) {
+                    return -1;
+                }
+                found = combo;
+            }
+        }
+        return found;
+    }
+
+    public float weight(int combo) {
+        return weights[combo];
+    }
+
+    /**
+     * 权重数组的只读副本
+     */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    public String getNotation() {
+        return notation;
+    }
+
+    @Override
+    public String toString() {
+        return notation;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return Arrays.equals(weights, ((HandRange) obj).weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    private static float parseWeight(String text, String token) {
+        try {
+            float weight = Float.parseFloat(text);
+            if (weight < 0 || weight > 1) {
+                throw new IllegalArgumentException("权重必须在0到1之间: " + token);
+            }
+            return weight;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无法识别的权重: " + token);
+        }
+    }
+
+    private static void parseToken(String token, float weight, float[] weights) {
+        // 具体手牌，如 AsKs
+        if (token.length() == 4 && isSuit(token.charAt(1)) && isSuit(token.charAt(3))) {
+            Card card1 = Card.parse(token.substring(0, 2));
+            Card card2 = Card.parse(token.substring(2, 4));
+            if (card1.equals(card2)) {
+                throw new IllegalArgumentException("重复的牌: " + token);
+            }
+            weights[HandEvaluator.comboIndex(card1.toIndex(), card2.toIndex())] = weight;
+            return;
+        }
+        int dash = token.indexOf('-');
+        if (dash > 0) {
+            parseSpan(token.substring(0, dash), token.substring(dash + 1), token, weight, weights);
+            return;
+        }
+        boolean plus = token.endsWith("+");
+        String hand = plus ? token.substring(0, token.length() - 1) : token;
+        int high = rankIndex(hand, 0, token);
+        int low = rankIndex(hand, 1, token);
+        char suitedness = suitedness(hand, token);
+        if (!plus) {
+            addHand(high, low, suitedness, weight, weights);
+        } else if (high == low) {
+            // QQ+：QQ、KK、AA
+            for (int rank = low; rank < 13; rank++) {
+                addHand(rank, rank, suitedness, weight, weights);
+            }
+        } else {
+            // A5s+：A5s 到 AKs，高牌不变、踢脚递增
+            for (int kicker = low; kicker < high; kicker++) {
+                addHand(high, kicker, suitedness, weight, weights);
+            }
+        }
+    }
+
+    /**
+     * 区间记法：22-55（对子）或 A5s-A2s（高牌相同、踢脚连续）
+     */
+    private static void parseSpan(String from, String to, String token, float weight, float[] weights) {
+        int fromHigh = rankIndex(from, 0, token);
+        int fromLow = rankIndex(from, 1, token);
+        int toHigh = rankIndex(to, 0, token);
+        int toLow = rankIndex(to, 1, token);
+        char suitedness = suitedness(from, token);
+        if (suitedness != suitedness(to, token)) {
+            throw new IllegalArgumentException("区间两端的同花属性不一致: " + token);
+        }
+        if (fromHigh == fromLow && toHigh == toLow) {
+            for (int rank = Math.min(fromHigh, toHigh); rank <= Math.max(fromHigh, toHigh); rank++) {
+                addHand(rank, rank, suitedness, weight, weights);
+            }
+            return;
+        }
+        if (fromHigh != toHigh || fromHigh == fromLow || toHigh == toLow) {
+            throw new IllegalArgumentException("区间两端的高牌必须相同: " + token);
+        }
+        for (int kicker = Math.min(fromLow, toLow); kicker <= Math.max(fromLow, toLow); kicker++) {
+            addHand(fromHigh, kicker, suitedness, weight, weights);
+        }
+    }
+
+    /**
+     * 加入某一点数组合的全部花色组合
+     *
+     * @param suitedness 's'同花、'o'非同花、' '不限
+     */
+    private static void addHand(int high, int low, char suitedness, float weight, float[] weights) {
+        if (high == low && suitedness == 's') {
+            throw new IllegalArgumentException("对子不可能同花: " + RANK_CHARS.charAt(high) + RANK_CHARS.charAt(low) + "s");
+        }
+        for (int suit1 = 0; suit1 < 4; suit1++) {
+            for (int suit2 = 0; suit2 < 4; suit2++) {
+                int card1 = suit1 * 13 + high;
+                int card2 = suit2 * 13 + low;
+                if (card1 == card2 || (high == low && suit2 <= suit1)) {
+                    continue;
+                }
+                boolean suited = suit1 == suit2;
+                if ((suitedness == 's' && !suited) || (suitedness == 'o' && suited)) {
+                    continue;
+                }
+                weights[HandEvaluator.comboIndex(card1, card2)] = weight;
+            }
+        }
+    }
+
+    /**
+     * 两张牌中第position张的点数下标（0-12），并保证第一张不小于第二张
+     */
+    private static int rankIndex(String hand, int position, String token) {
+        if (hand.length() < 2 || hand.length() > 3) {
+            throw new IllegalArgumentException("无法识别的范围记法: " + token);
+        }
+        int first = RANK_CHARS.indexOf(Character.toUpperCase(hand.charAt(0)));
+        int second = RANK_CHARS.indexOf(Character.toUpperCase(hand.charAt(1)));
+        if (first < 0 || second < 0) {
+            throw new IllegalArgumentException("无法识别的范围记法: " + token);
+        }
+        int high = Math.max(first, second);
+        int low = Math.min(first, second);
+        return position == 0 ? high : low;
+    }
+
+    private static char suitedness(String hand, String token) {
+        if (hand.length() == 2) {
+            return ' ';
+        }
+        char c = Character.toLowerCase(hand.charAt(2));
+        if (c != 's' && c != 'o') {
+            throw new IllegalArgumentException("无法识别的范围记法: " + token);
+        }
+        return c;
+    }
+
+    private static boolean isSuit(char c) {
+        return "shdcSHDC".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.gjm.pk.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.gjm.pk.entity.Player;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 当前行动玩家的合法行动集合（不可变）
+ * 每次轮到新玩家时由 GameService 计算一次，随私有状态推送给该玩家；收到的行动直接与之比较，
+ * 客户端不必自己推算跟注额与加注范围。加注金额均为加注到的总下注额（与 "raise" 行动的 amount 含义一致）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class LegalActions {
+
+    /** 底池比例加注预设 */
+    private static final double[] PRESET_FRACTIONS = {1.0 / 3, 1.0 / 2, 2.0 / 3, 1.0};
+    private static final String[] PRESET_LABELS = {"1/3", "1/2", "2/3", "pot"};
+
+    /**
+     * 加注预设：按底池比例计算并夹在合法加注范围内的加注到金额
+     */
+    @Value
+    @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+            getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+    public static class BetPreset {
+        String label;
+        int amount;
+    }
+
+    String playerId;
+    boolean canFold;
+    boolean canCheck;
+    boolean canCall;
+    /** 跟注实际投入的筹码（筹码不足时为全部筹码） */
+    int callAmount;
+    boolean canRaise;
+    /** 最小加注到：当前最高下注 + 本轮最近一次加注的增量（至少一个大盲） */
+    int minRaiseTo;
+    /** 最大加注到：已下注 + 全部筹码 */
+    int maxRaiseTo;
+    boolean canAllIn;
+    /** 全下后的总下注额 */
+    int allInTo;
+    List<BetPreset> presets;
+
+    /**
+     * 计算玩家在当前下注状态下的合法行动；没有筹码的玩家（已全下）没有可做的决定，不会轮到行动
+     *
+     * @param currentBetAmount 本轮最高下注
+     * @param minRaiseIncrement 最小加注增量
+     * @param pot 底池（已包含本轮下注）
+     */
+    public static LegalActions of(Player player, int currentBetAmount, int minRaiseIncrement, int pot) {
+        int chips = player.getChips();
+        if (chips <= 0) {
+            throw new IllegalArgumentException("玩家 " + player.getId() + " 已没有筹码，没有可选的行动");
+        }
+        int toCall = Math.max(0, currentBetAmount - player.getCurrentBet());
+        int maxRaiseTo = player.getCurrentBet() + chips;
+        int minRaiseTo = currentBetAmount + minRaiseIncrement;
+        boolean canRaise = chips > toCall && minRaiseTo <= maxRaiseTo;
+
+        List<BetPreset> presets = new ArrayList<>(PRESET_FRACTIONS.length);
+        if (canRaise) {
+            int lastAmount = -1;
+            for (int i = 0; i < PRESET_FRACTIONS.length; i++) {
+                // 底池比例加注：先跟注，再加上跟注后底池的相应比例
+                int amount = currentBetAmount + (int) Math.round((pot + toCall) * PRESET_FRACTIONS[i]);
+                amount = Math.max(minRaiseTo, Math.min(maxRaiseTo, amount));
+                if (amount != lastAmount) {
+                    presets.add(new BetPreset(PRESET_LABELS[i], amount));
+                    lastAmount = amount;
+                }
+            }
+        }
+        return new LegalActions(player.getId(), true, toCall == 0, toCall > 0, Math.min(toCall, chips),
+                canRaise, canRaise ? minRaiseTo : 0, canRaise ? maxRaiseTo : 0, true, maxRaiseTo,
+                Collections.unmodifiableList(presets));
+    }
+
+    /**
+     * 校验行动，合法时返回null，否则返回原因
+     *
+     * @param action 小写的行动名（fold/check/call/raise/allin）
+     * @param amount raise 时为加注到的总下注额
+     */
+    public String validate(String action, int amount) {
+        if (action == null) {
+            return "缺少行动类型";
+        }
+        switch (action) {
+            case "fold":
+                return canFold ? null : "当前不能弃牌";
+            case "check":
+                return canCheck ? null : "需要跟注 " + callAmount + "，不能看牌";
+            case "call":
+                // 无需跟注时按看牌处理
+                return canCall || canCheck ? null : "当前不能跟注";
+            case "raise":
+                if (!canRaise) {
+                    return "当前不能加注";
+                }
+                if (amount < minRaiseTo || amount > maxRaiseTo) {
+                    return "加注金额必须在 " + minRaiseTo + " 到 " + maxRaiseTo + " 之间";
+                }
+                return null;
+            case "allin":
+                return canAllIn ? null : "没有可全下的筹码";
+            default:
+                return "未知的行动: " + action;
+        }
+    }
+
+    /**
+     * 不加注时的合法行动：能看牌就看牌，否则跟注，都不行时弃牌
+     */
+    public String passiveAction() {
+        return canCheck ? "check" : canCall ? "call" : "fold";
+    }
+
+    /**
+     * 加注到金额夹在合法范围内
+     */
+    public int clampRaise(int amount) {
+        return Math.max(minRaiseTo, Math.min(maxRaiseTo, amount));
+    }
+}
@@ -0,0 +1,97 @@
+package com.gjm.pk.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 底池结算（GameService 与无界面牌桌共用）
+ * 按各座位本手牌的投入逐层切分主池与边池，每层在投入达到该层、仍在牌局中的玩家里比牌平分；
+ * 不能平分的余数给庄家之后按座位顺序的第一位赢家。弃牌玩家超出所有摊牌者投入的部分归最后一层的赢家
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class PotSettlement {
+
+    private PotSettlement() {
+    }
+
+    /**
+     * 计算各座位赢得的筹码
+     *
+     * @param inHand 各座位是否仍在牌局中（未弃牌）
+     * @param contributions 各座位本手牌投入底池的筹码
+     * @param results 各座位的牌力；未摊牌（只剩一人）时可为null
+     * @param dealer 庄家座位，余数从其下一位开始分配
+     * @return 各座位赢得的筹码
+     */
+    public static int[] settle(boolean[] inHand, int[] contributions, HandEvaluator.HandResult[] results, int dealer) {
+        int n = contributions.length;
+        int[] payouts = new int[n];
+        int[] remaining = contributions.clone();
+        List<Integer> lastWinners = new ArrayList<>();
+        while (true) {
+            int layer = Integer.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (inHand[i] && remaining[i] > 0) {
+                    layer = Math.min(layer, remaining[i]);
+                }
+            }
+            if (layer == Integer.MAX_VALUE) {
+                break;
+            }
+            int layerPot = 0;
+            List<Integer> eligible = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                int take = Math.min(layer, remaining[i]);
+                layerPot += take;
+                remaining[i] -= take;
+                if (inHand[i] && take == layer) {
+                    eligible.add(i);
+                }
+            }
+            lastWinners = bestOf(eligible, results);
+            split(layerPot, lastWinners, dealer, payouts);
+        }
+
+        int leftover = 0;
+        for (int i = 0; i < n; i++) {
+            leftover += remaining[i];
+        }
+        if (leftover > 0 && !lastWinners.isEmpty()) {
+            split(leftover, lastWinners, dealer, payouts);
+        }
+        return payouts;
+    }
+
+    private static List<Integer> bestOf(List<Integer> eligible, HandEvaluator.HandResult[] results) {
+        if (eligible.size() <= 1 || results == null || results[eligible.get(0)] == null) {
+            return eligible;
+        }
+        List<HandEvaluator.HandResult> hands = new ArrayList<>(eligible.size());
+        for (int seat : eligible) {
+            hands.add(results[seat]);
+        }
+        List<Integer> best = new ArrayList<>();
+        for (int index : HandEvaluator.compareHands(hands)) {
+            best.add(eligible.get(index));
+        }
+        return best;
+    }
+
+    private static void split(int amount, List<Integer> winnerSeats, int dealer, int[] payouts) {
+        if (winnerSeats.isEmpty()) {
+            return;
+        }
+        int share = amount / winnerSeats.size();
+        int remainder = amount % winnerSeats.size();
+        int n = payouts.length;
+        for (int offset = 1; offset <= n; offset++) {
+            int seat = (dealer + offset) % n;
+            if (winnerSeats.contains(seat)) {
+                payouts[seat] += share + remainder;
+                remainder = 0;
+            }
+        }
+    }
+}
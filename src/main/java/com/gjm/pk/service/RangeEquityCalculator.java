@@ -0,0 +1,443 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 范围对范围胜率计算
+ * 问题规模足够小时精确枚举（所有玩家都是具体手牌，或两名玩家的范围组合×剩余发牌），
+ * 否则按权重进行考虑牌张移除的蒙特卡洛抽样；两种方式都在公共ForkJoin池中并行执行。
+ * 精确枚举按前两张发牌拆分并行任务、逐个访问其余发牌，不生成完整的发牌数组（空公共牌时为 C(48,5) 个）
+ *
+ * @author: guojianming
+ * @date: 2025/10/11
+ */
+@Service
+public class RangeEquityCalculator {
+
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 10;
+    /** 默认抽样次数 */
+    public static final int DEFAULT_TRIALS = 200_000;
+
+    /** 精确枚举的工作量上限（剩余发牌数 × 玩家数 或 × 组合对数） */
+    private static final long EXACT_WORK_LIMIT = 30_000_000L;
+    /** 每个并行任务的抽样次数 */
+    private static final int TRIALS_PER_TASK = 10_000;
+    /** 单次抽样允许的最大重抽次数（范围之间冲突过多时放弃） */
+    private static final int MAX_REJECTIONS = 10_000;
+
+    /**
+     * 胜率结果，数组下标与传入的范围顺序一致
+     */
+    public static class EquityResult {
+        private final double[] equity;
+        private final double[] win;
+        private final double[] tie;
+        private final long trials;
+        private final boolean exact;
+
+        EquityResult(double[] equity, double[] win, double[] tie, long trials, boolean exact) {
+            this.equity = equity;
+            this.win = win;
+            this.tie = tie;
+            this.trials = trials;
+            this.exact = exact;
+        }
+
+        /** 胜率（平局按人数平分） */
+        public double[] getEquity() { return equity; }
+        /** 独赢概率 */
+        public double[] getWin() { return win; }
+        /** 平分底池的概率 */
+        public double[] getTie() { return tie; }
+        /** 枚举的发牌数或抽样次数 */
+        public long getTrials() { return trials; }
+        /** 是否为精确枚举结果 */
+        public boolean isExact() { return exact; }
+    }
+
+    /**
+     * 计算多个范围在给定公共牌下的胜率
+     *
+     * @param ranges 各玩家的范围（2-10个）
+     * @param board 已知公共牌（0-5张）
+     * @param deadCards 死牌
+     * @param trials 需要抽样时的抽样次数，不大于0时使用默认值
+     * @return 胜率结果
+     */
+    public EquityResult calculate(List<HandRange> ranges, List<Card> board, List<Card> deadCards, int trials) {
+        if (ranges.size() < MIN_PLAYERS || ranges.size() > MAX_PLAYERS) {
+            throw new IllegalArgumentException("玩家数必须在" + MIN_PLAYERS + "到" + MAX_PLAYERS + "之间");
+        }
+        if (board.size() > 5) {
+            throw new IllegalArgumentException("公共牌最多5张");
+        }
+        long boardMask = HandEvaluator.cardMask(board);
+        long blocked = boardMask | HandEvaluator.cardMask(deadCards);
+        if (Long.bitCount(blocked) != board.size() + deadCards.size()) {
+            throw new IllegalArgumentException("公共牌与死牌中存在重复的牌");
+        }
+
+        List<HandRange> live = new ArrayList<>(ranges.size());
+        for (HandRange range : ranges) {
+            HandRange filtered = range.without(blocked);
+            if (filtered.comboCount() == 0) {
+                throw new IllegalArgumentException("范围 " + range + " 与公共牌或死牌冲突后为空");
+            }
+            live.add(filtered);
+        }
+
+        int boardCardsToCome = 5 - board.size();
+        long[] holeMasks = singleComboMasks(live);
+        if (holeMasks != null) {
+            long deckMask = ~(blocked | orAll(holeMasks)) & ((1L << 52) - 1);
+            if (binomial(Long.bitCount(deckMask), boardCardsToCome) * live.size() <= EXACT_WORK_LIMIT) {
+                return exactFixedHands(holeMasks, boardMask, deckMask, boardCardsToCome);
+            }
+        } else if (live.size() == 2) {
+            long deckMask = ~blocked & ((1L << 52) - 1);
+            long pairs = (long) live.get(0).comboCount() * live.get(1).comboCount();
+            if (binomial(Long.bitCount(deckMask), boardCardsToCome) * pairs <= EXACT_WORK_LIMIT) {
+                return exactHeadsUp(live.get(0), live.get(1), boardMask, deckMask, boardCardsToCome);
+            }
+        }
+        return monteCarlo(live, boardMask, blocked, boardCardsToCome, trials > 0 ? trials : DEFAULT_TRIALS);
+    }
+
+    /**
+     * 所有玩家都是具体手牌：枚举全部剩余发牌
+     */
+    private EquityResult exactFixedHands(long[] holeMasks, long boardMask, long deckMask, int cardsToCome) {
+        int players = holeMasks.length;
+        long[] holePacked = new long[players];
+        for (int i = 0; i < players; i++) {
+            holePacked[i] = packed(holeMasks[i]);
+        }
+        long boardPacked = packed(boardMask);
+
+        double[] totals = collectRunouts(deckMask, cardsToCome,
+                () -> new double[3 * players + 1],
+                (acc, runoutMask) -> {
+                    long fullBoard = boardPacked | packed(runoutMask);
+                    int best = 0;
+                    int bestCount = 0;
+                    int[] ranks = new int[players];
+                    for (int i = 0; i < players; i++) {
+                        ranks[i] = HandEvaluator.evaluatePacked(fullBoard | holePacked[i]);
+                        if (ranks[i] > best) {
+                            best = ranks[i];
+                            bestCount = 1;
+                        } else if (ranks[i] == best) {
+                            bestCount++;
+                        }
+                    }
+                    addShowdown(acc, ranks, best, bestCount, 1.0);
+                },
+                RangeEquityCalculator::merge);
+        return toResult(totals, players, binomial(Long.bitCount(deckMask), cardsToCome), true);
+    }
+
+    /**
+     * 两个范围：对每种剩余发牌，累加所有互不冲突的组合对
+     */
+    private EquityResult exactHeadsUp(HandRange first, HandRange second, long boardMask, long deckMask, int cardsToCome) {
+        int[] combos1 = liveCombos(first);
+        int[] combos2 = liveCombos(second);
+        long boardPacked = packed(boardMask);
+
+        double[] totals = collectRunouts(deckMask, cardsToCome,
+                () -> new double[3 * 2 + 1],
+                (acc, runoutMask) -> {
+                    long fullBoard = boardPacked | packed(runoutMask);
+                    int[] ranks2 = new int[combos2.length];
+                    for (int j = 0; j < combos2.length; j++) {
+                        ranks2[j] = (HandRange.comboMask(combos2[j]) & runoutMask) != 0 ? 0
+                                : HandEvaluator.evaluatePacked(fullBoard | comboPacked(combos2[j]));
+                    }
+                    int[] pair = new int[2];
+                    for (int combo1 : combos1) {
+                        long mask1 = HandRange.comboMask(combo1);
+                        if ((mask1 & runoutMask) != 0) {
+                            continue;
+                        }
+                        pair[0] = HandEvaluator.evaluatePacked(fullBoard | comboPacked(combo1));
+                        float weight1 = first.weight(combo1);
+                        for (int j = 0; j < combos2.length; j++) {
+                            if (ranks2[j] == 0 || (HandRange.comboMask(combos2[j]) & mask1) != 0) {
+                                continue;
+                            }
+                            pair[1] = ranks2[j];
+                            int best = Math.max(pair[0], pair[1]);
+                            addShowdown(acc, pair, best, pair[0] == pair[1] ? 2 : 1,
+                                    (double) weight1 * second.weight(combos2[j]));
+                        }
+                    }
+                },
+                RangeEquityCalculator::merge);
+        if (totals[6] == 0) {
+            throw new IllegalArgumentException("两个范围之间没有互不冲突的组合");
+        }
+        return toResult(totals, 2, binomial(Long.bitCount(deckMask), cardsToCome), true);
+    }
+
+    /**
+     * 蒙特卡洛抽样：按权重依次为每名玩家抽取组合，任何冲突都整轮重抽以保证无偏
+     */
+    private EquityResult monteCarlo(List<HandRange> ranges, long boardMask, long blocked, int cardsToCome, int trials) {
+        int players = ranges.size();
+        int[][] combos = new int[players][];
+        double[][] cumulative = new double[players][];
+        for (int p = 0; p < players; p++) {
+            combos[p] = liveCombos(ranges.get(p));
+            cumulative[p] = new double[combos[p].length];
+            double sum = 0;
+            for (int i = 0; i < combos[p].length; i++) {
+                sum += ranges.get(p).weight(combos[p][i]);
+                cumulative[p][i] = sum;
+            }
+        }
+        long boardPacked = packed(boardMask);
+        int tasks = (trials + TRIALS_PER_TASK - 1) / TRIALS_PER_TASK;
+        SplittableRandom root = new SplittableRandom();
+        SplittableRandom[] randoms = new SplittableRandom[tasks];
+        for (int t = 0; t < tasks; t++) {
+            randoms[t] = root.split();
+        }
+
+        double[] totals = IntStream.range(0, tasks).parallel().mapToObj(t -> {
+            SplittableRandom rng = randoms[t];
+            int count = Math.min(TRIALS_PER_TASK, trials - t * TRIALS_PER_TASK);
+            double[] acc = new double[3 * players + 1];
+            long[] holes = new long[players];
+            int[] ranks = new int[players];
+            for (int trial = 0; trial < count; trial++) {
+                long used = sampleHoles(combos, cumulative, blocked, holes, rng);
+                long fullBoard = boardPacked;
+                for (int k = 0; k < cardsToCome; k++) {
+                    int card;
+                    do {
+                        card = rng.nextInt(52);
+                    } while (((used >>> card) & 1L) != 0);
+                    used |= 1L << card;
+                    fullBoard |= HandEvaluator.packedCardBit(card);
+                }
+                int best = 0;
+                int bestCount = 0;
+                for (int p = 0; p < players; p++) {
+                    ranks[p] = HandEvaluator.evaluatePacked(fullBoard | packed(holes[p]));
+                    if (ranks[p] > best) {
+                        best = ranks[p];
+                        bestCount = 1;
+                    } else if (ranks[p] == best) {
+                        bestCount++;
+                    }
+                }
+                addShowdown(acc, ranks, best, bestCount, 1.0);
+            }
+            return acc;
+        }).reduce(new double[3 * players + 1], (a, b) -> {
+            double[] sum = a.clone();
+            merge(sum, b);
+            return sum;
+        });
+        return toResult(totals, players, trials, false);
+    }
+
+    /**
+     * 为每名玩家按权重抽取一个组合，返回已占用的牌掩码
+     */
+    private long sampleHoles(int[][] combos, double[][] cumulative, long blocked, long[] holes, SplittableRandom rng) {
+        for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+            long used = blocked;
+            boolean conflict = false;
+            for (int p = 0; p < combos.length && !conflict; p++) {
+                double[] cum = cumulative[p];
+                double target = rng.nextDouble() * cum[cum.length - 1];
+                int index = upperBound(cum, target);
+                long mask = HandRange.comboMask(combos[p][index]);
+                if ((mask & used) != 0) {
+                    conflict = true;
+                } else {
+                    holes[p] = mask;
+                    used |= mask;
+                }
+            }
+            if (!conflict) {
+                return used;
+            }
+        }
+        throw new IllegalArgumentException("范围之间的牌张冲突过多，无法抽样");
+    }
+
+    /**
+     * 累加一次摊牌：独赢、平局次数与按人数平分的胜率份额
+     */
+    private static void addShowdown(double[] acc, int[] ranks, int best, int bestCount, double weight) {
+        int players = ranks.length;
+        for (int p = 0; p < players; p++) {
+            if (ranks[p] != best) {
+                continue;
+            }
+            if (bestCount == 1) {
+                acc[p] += weight;
+            } else {
+                acc[players + p] += weight;
+            }
+            acc[2 * players + p] += weight / bestCount;
+        }
+        acc[3 * players] += weight;
+    }
+
+    private static void merge(double[] target, double[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private static EquityResult toResult(double[] totals, int players, long trials, boolean exact) {
+        double total = totals[3 * players];
+        double[] equity = new double[players];
+        double[] win = new double[players];
+        double[] tie = new double[players];
+        for (int p = 0; p < players; p++) {
+            win[p] = totals[p] / total;
+            tie[p] = totals[players + p] / total;
+            equity[p] = totals[2 * players + p] / total;
+        }
+        return new EquityResult(equity, win, tie, trials, exact);
+    }
+
+    /**
+     * 若所有范围都只有一个组合且互不冲突，返回各自的牌掩码，否则返回null
+     */
+    private static long[] singleComboMasks(List<HandRange> ranges) {
+        long[] masks = new long[ranges.size()];
+        long used = 0L;
+        for (int i = 0; i < masks.length; i++) {
+            int combo = ranges.get(i).singleCombo();
+            if (combo < 0) {
+                return null;
+            }
+            masks[i] = HandRange.comboMask(combo);
+            if ((used & masks[i]) != 0) {
+                throw new IllegalArgumentException("玩家手牌之间存在重复的牌");
+            }
+            used |= masks[i];
+        }
+        return masks;
+    }
+
+    /**
+     * 并行访问从牌掩码中选出count张牌的全部组合（以牌掩码表示）
+     * 只生成前两张牌的组合作为任务（最多 C(50,2) 个），每个任务递归访问其余的牌
+     */
+    private static <A> A collectRunouts(long deckMask, int count, Supplier<A> supplier,
+                                        ObjLongConsumer<A> accumulator, BiConsumer<A, A> combiner) {
+        int[] deck = new int[Long.bitCount(deckMask)];
+        long remaining = deckMask;
+        for (int i = 0; i < deck.length; i++) {
+            deck[i] = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+        }
+        int prefixCards = Math.min(count, 2);
+        int prefixCount = (int) binomial(deck.length, prefixCards);
+        long[] prefixMasks = new long[prefixCount];
+        int[] nextStarts = new int[prefixCount];
+        fillPrefixes(deck, 0, prefixCards, 0L, prefixMasks, nextStarts, new int[1]);
+        int rest = count - prefixCards;
+        return IntStream.range(0, prefixCount).parallel().collect(supplier,
+                (acc, i) -> visitRunouts(deck, nextStarts[i], rest, prefixMasks[i], acc, accumulator), combiner);
+    }
+
+    private static void fillPrefixes(int[] deck, int start, int count, long mask,
+                                     long[] masks, int[] nextStarts, int[] position) {
+        if (count == 0) {
+            masks[position[0]] = mask;
+            nextStarts[position[0]++] = start;
+            return;
+        }
+        for (int i = start; i <= deck.length - count; i++) {
+            fillPrefixes(deck, i + 1, count - 1, mask | 1L << deck[i], masks, nextStarts, position);
+        }
+    }
+
+    private static <A> void visitRunouts(int[] deck, int start, int count, long mask,
+                                         A acc, ObjLongConsumer<A> accumulator) {
+        if (count == 0) {
+            accumulator.accept(acc, mask);
+            return;
+        }
+        for (int i = start; i <= deck.length - count; i++) {
+            visitRunouts(deck, i + 1, count - 1, mask | 1L << deck[i], acc, accumulator);
+        }
+    }
+
+    static long binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static long packed(long cardMask) {
+        long packed = 0L;
+        while (cardMask != 0) {
+            packed |= HandEvaluator.packedCardBit(Long.numberOfTrailingZeros(cardMask));
+            cardMask &= cardMask - 1;
+        }
+        return packed;
+    }
+
+    private static long comboPacked(int combo) {
+        return HandEvaluator.packedCardBit(HandEvaluator.comboCard1(combo))
+                | HandEvaluator.packedCardBit(HandEvaluator.comboCard2(combo));
+    }
+
+    private static int[] liveCombos(HandRange range) {
+        int[] combos = new int[range.comboCount()];
+        int i = 0;
+        for (int combo = 0; combo < HandEvaluator.COMBO_COUNT; combo++) {
+            if (range.weight(combo) > 0) {
+                combos[i++] = combo;
+            }
+        }
+        return combos;
+    }
+
+    private static long orAll(long[] masks) {
+        long result = 0L;
+        for (long mask : masks) {
+            result |= mask;
+        }
+        return result;
+    }
+
+    /**
+     * 第一个大于target的下标（落在最后一个元素时返回末尾下标）
+     */
+    private static int upperBound(double[] cumulative, double target) {
+        int low = 0, high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
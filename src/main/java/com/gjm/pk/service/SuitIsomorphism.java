@@ -0,0 +1,92 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+
+import java.util.List;
+
+/**
+ * 花色同构规范化工具
+ * 将只在花色命名上不同的牌面（如 AsKs/Qs 与 AhKh/Qh）映射为同一个键，
+ * 供各类跨牌桌共享的缓存使用
+ *
+ * @author: guojianming
+ * @date: 2025/10/09
+ */
+public final class SuitIsomorphism {
+
+    /** 手牌槽位数 */
+    private static final int HOLE_SLOTS = 2;
+    /** 公共牌槽位数 */
+    private static final int BOARD_SLOTS = 5;
+    /** 每张牌占用的位数（0表示空位，1-52表示规范化后的牌） */
+    private static final int BITS_PER_CARD = 6;
+
+    private SuitIsomorphism() {
+    }
+
+    /**
+     * 计算手牌+公共牌的规范化键
+     * 手牌、公共牌分别按点数降序排序，再按花色首次出现的顺序重新编号，
+     * 结果占用低42位。点数相同的牌仍按原花色排序，因此属于近似规范化：
+     * 同构牌面可能得到不同的键（只影响命中率），但不同牌面不会得到相同的键
+     *
+     * @param holeCards 手牌（最多2张，可为空）
+     * @param boardCards 公共牌（最多5张）
+     * @return 规范化键
+     */
+    public static long canonicalKey(List<Card> holeCards, List<Card> boardCards) {
+        int[] suitMap = {-1, -1, -1, -1};
+        int[] nextSuit = {0};
+        long key = packSection(sortedIndexes(holeCards, HOLE_SLOTS), HOLE_SLOTS, suitMap, nextSuit, 0L);
+        return packSection(sortedIndexes(boardCards, BOARD_SLOTS), BOARD_SLOTS, suitMap, nextSuit, key);
+    }
+
+    /**
+     * 公共牌的规范化键（手牌槽位留空）
+     */
+    public static long canonicalBoardKey(List<Card> boardCards) {
+        return canonicalKey(null, boardCards);
+    }
+
+    private static long packSection(int[] indexes, int slots, int[] suitMap, int[] nextSuit, long key) {
+        for (int i = 0; i < slots; i++) {
+            int packed = 0;
+            if (i < indexes.length) {
+                int suit = indexes[i] / 13;
+                if (suitMap[suit] < 0) {
+                    suitMap[suit] = nextSuit[0]++;
+                }
+                packed = suitMap[suit] * 13 + indexes[i] % 13 + 1;
+            }
+            key = (key << BITS_PER_CARD) | packed;
+        }
+        return key;
+    }
+
+    /**
+     * 按点数降序、花色升序排列的牌索引
+     */
+    private static int[] sortedIndexes(List<Card> cards, int maxSlots) {
+        if (cards == null || cards.isEmpty()) {
+            return new int[0];
+        }
+        if (cards.size() > maxSlots) {
+            throw new IllegalArgumentException("牌数超出上限: " + cards.size() + " > " + maxSlots);
+        }
+        int[] indexes = new int[cards.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            int index = cards.get(i).toIndex();
+            int j = i;
+            while (j > 0 && sortOrder(indexes[j - 1]) > sortOrder(index)) {
+                indexes[j] = indexes[j - 1];
+                j--;
+            }
+            indexes[j] = index;
+        }
+        return indexes;
+    }
+
+    private static int sortOrder(int index) {
+        return (12 - index % 13) * 4 + index / 13;
+    }
+}
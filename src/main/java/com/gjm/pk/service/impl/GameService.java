@@ -3,14 +3,24 @@ package com.gjm.pk.service.impl;
 import com.gjm.pk.config.GameWebSocketHandler;
 import com.gjm.pk.entity.Card;
 import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.EquityService;
 import com.gjm.pk.service.HandEvaluator;
+import com.gjm.pk.service.HandRange;
+import com.gjm.pk.service.LegalActions;
+import com.gjm.pk.service.PotSettlement;
 import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.monitor.GameEventLog;
+import com.gjm.pk.monitor.GameEvents;
+import com.gjm.pk.monitor.GameMetrics;
+import com.gjm.pk.monitor.ScheduledTaskTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +41,8 @@ public class GameService {
     public static final int DEFAULT_CHIPS = 1000;
     public static final int DEFAULT_SMALL_BLIND = 10;
     public static final int DEFAULT_BIG_BLIND = 20;
+    /** 下注回合结束到发下一条街的停顿（毫秒），全员全下后每条街之间也按此停顿 */
+    private static final long STREET_DELAY_MILLIS = 1500;
 
     // 游戏状态枚举
     public enum GamePhase {
@@ -57,11 +69,56 @@ public class GameService {
     private boolean autoGameEnabled = false;
     private Timer autoGameTimer;
     private long gameId;
+    /** 当前只有一张桌 */
+    private static final String TABLE_ID = GameWebSocketHandler.DEFAULT_TABLE_ID;
+    /** 本服务启动以来的手牌编号，JFR 事件据此关联同一手牌 */
+    private long handId;
+
+    private final GameMetrics gameMetrics;
+    private final EquityService equityService;
+    /** 全员全下后当前街的胜率，由 EquityService 异步算出后写入 */
+    private volatile RunoutEquity runoutEquity;
+    /** 当前阶段与本手牌的开始时间（nanoTime），0 表示未开始 */
+    private long phaseStartNanos;
+    private long handStartNanos;
+    /** 已安排、尚未执行的阶段推进定时任务数 */
+    private final AtomicInteger pendingPhaseTasks = new AtomicInteger();
+    /** 阶段推进任务的调度滞后 */
+    private final ScheduledTaskTracker phaseTaskTracker = new ScheduledTaskTracker();
+    /** 当前玩家开始等待行动的时间（nanoTime），供运维查看最久未处理的行动 */
+    private volatile long turnStartNanos;
+    /** 当前行动玩家的合法行动，每次轮到新玩家时计算，没有行动玩家时为null */
+    private volatile LegalActions legalActions;
+    /** 本轮最近一次加注的增量，最小加注不得低于它 */
+    private int lastRaiseIncrement = DEFAULT_BIG_BLIND;
+
+    /**
+     * 全员全下后某一手牌某条街（按公共牌张数区分）各玩家的胜率
+     */
+    private static final class RunoutEquity {
+        private final long handId;
+        private final int boardSize;
+        private final Map<String, Double> equityByPlayer;
+
+        RunoutEquity(long handId, int boardSize, Map<String, Double> equityByPlayer) {
+            this.handId = handId;
+            this.boardSize = boardSize;
+            this.equityByPlayer = equityByPlayer;
+        }
+    }
 
     @Autowired
-    public GameService(AIPlayerDecisionService aiPlayerDecisionService) {
+    public GameService(AIPlayerDecisionService aiPlayerDecisionService, GameMetrics gameMetrics,
+                       EquityService equityService) {
         this.aiPlayerDecisionService = aiPlayerDecisionService;
+        this.gameMetrics = gameMetrics;
+        this.equityService = equityService;
         this.gameId = System.currentTimeMillis();
+        gameMetrics.gauge("poker.game.tables.active", "正在进行牌局的桌数", this,
+                service -> service.isHandInProgress() ? 1 : 0);
+        gameMetrics.gauge("poker.game.players.seated", "已入座玩家数", this, service -> service.players.size());
+        gameMetrics.gauge("poker.game.scheduler.pending", "待执行的定时任务数", pendingPhaseTasks,
+                AtomicInteger::get, "executor", "phase-timer");
     }
 
     @Autowired
@@ -111,16 +168,26 @@ public class GameService {
             currentDealer = (currentDealer + 1) % this.players.size();
         }
 
+        handId++;
+        GameEventLog.handStart(TABLE_ID, handId, this.players.size(),
+                this.players.get(currentDealer).getId(),
+                this.players.get(getSmallBlindPosition()).getId(),
+                this.players.get(getBigBlindPosition()).getId());
         setupBlinds();
         dealHoleCards();
 
         currentPlayerTurn = getNextActivePlayer(getBigBlindPosition(),false);
-        currentPhase = GamePhase.PRE_FLOP;
-
-        log.info("游戏开始，庄家: {}, 小盲注: {}, 大盲注: {}",
-                this.players.get(currentDealer).getName(),
-                this.players.get(getSmallBlindPosition()).getName(),
-                this.players.get(getBigBlindPosition()).getName());
+        turnStartNanos = System.nanoTime();
+        refreshLegalActions();
+        GameEvents.HandStart handStart = new GameEvents.HandStart();
+        if (handStart.shouldCommit()) {
+            handStart.tableId = TABLE_ID;
+            handStart.handId = handId;
+            handStart.players = this.players.size();
+            handStart.dealer = this.players.get(currentDealer).getName();
+            handStart.commit();
+        }
+        enterPhase(GamePhase.PRE_FLOP);
 
         webSocketHandler.broadcastGameState();
     }
@@ -147,10 +214,10 @@ public class GameService {
 
         pot += smallBlindBet + bigBlindBet;
         currentBetAmount = DEFAULT_BIG_BLIND;
+        lastRaiseIncrement = DEFAULT_BIG_BLIND;
 
-        log.info("小盲注: {} 下注 {}, 大盲注: {} 下注 {}",
-                smallBlindPlayer.getName(), smallBlindBet,
-                bigBlindPlayer.getName(), bigBlindBet);
+        GameEventLog.action(TABLE_ID, handId, smallBlindPlayer.getId(), "small_blind", smallBlindBet, pot);
+        GameEventLog.action(TABLE_ID, handId, bigBlindPlayer.getId(), "big_blind", bigBlindBet, pot);
     }
 
     private int getSmallBlindPosition() {
@@ -170,7 +237,6 @@ public class GameService {
                 }
             }
         }
-        log.info("已发手牌，每名玩家获得2张牌");
     }
 
     public void flop() {
@@ -178,10 +244,11 @@ public class GameService {
 
         burnCard();
         for (int i = 0; i < 3; i++) communityCards.add(deck.remove(0));
-        currentPhase = GamePhase.FLOP;
+        enterPhase(GamePhase.FLOP);
         resetBettingRound();
+        continueRunoutIfAllIn();
 
-        log.info("翻牌阶段，公共牌: {}", getCommunityCardsString());
+        logPhase(GamePhase.FLOP);
         webSocketHandler.broadcastGameState();
     }
 
@@ -190,10 +257,11 @@ public class GameService {
 
         burnCard();
         communityCards.add(deck.remove(0));
-        currentPhase = GamePhase.TURN;
+        enterPhase(GamePhase.TURN);
         resetBettingRound();
+        continueRunoutIfAllIn();
 
-        log.info("转牌阶段，公共牌: {}", getCommunityCardsString());
+        logPhase(GamePhase.TURN);
         webSocketHandler.broadcastGameState();
     }
 
@@ -202,10 +270,11 @@ public class GameService {
 
         burnCard();
         communityCards.add(deck.remove(0));
-        currentPhase = GamePhase.RIVER;
+        enterPhase(GamePhase.RIVER);
         resetBettingRound();
+        continueRunoutIfAllIn();
 
-        log.info("河牌阶段，公共牌: {}", getCommunityCardsString());
+        logPhase(GamePhase.RIVER);
         webSocketHandler.broadcastGameState();
     }
 
@@ -217,57 +286,86 @@ public class GameService {
      */
     private void resetBettingRound() {
         currentBetAmount = 0;
+        lastRaiseIncrement = bigBlindAmount;
         players.forEach(Player::resetCurrentBet);
         currentPlayerTurn = getNextActivePlayer(currentDealer, false);
+        turnStartNanos = System.nanoTime();
+        refreshLegalActions();
     }
 
     public boolean playerAction(String playerId, String action, int amount) {
+        GameEvents.PlayerAction event = new GameEvents.PlayerAction();
+        event.begin();
+        long start = System.nanoTime();
+        long actionHandId = handId;
+        GamePhase actionPhase = currentPhase;
+        boolean accepted = false;
+        try {
+            accepted = applyPlayerAction(playerId, action, amount);
+            return accepted;
+        } finally {
+            gameMetrics.recordPlayerAction(action != null ? action.toLowerCase() : null, accepted,
+                    System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.tableId = TABLE_ID;
+                event.handId = actionHandId;
+                event.playerId = playerId;
+                event.action = action;
+                event.amount = amount;
+                event.phase = actionPhase.name();
+                event.accepted = accepted;
+                event.commit();
+            }
+        }
+    }
+
+    private boolean applyPlayerAction(String playerId, String action, int amount) {
         Player player = findPlayerById(playerId);
         if (player == null || !isPlayerTurn(playerId)) {
             log.warn("非法操作: 玩家 {} 不存在或未轮到其行动", playerId);
             return false;
         }
+        String rejection = checkAction(playerId, action, amount);
+        if (rejection != null) {
+            log.warn("玩家 {} 的行动 {}({}) 不合法: {}", player.getName(), action, amount, rejection);
+            return false;
+        }
 
         switch (action.toLowerCase()) {
             case "fold":
                 player.fold();
-                log.info("玩家 {} 弃牌", player.getName());
+                GameEventLog.action(TABLE_ID, handId, playerId, "fold", 0, pot);
                 break;
             case "check":
-                if (currentBetAmount > player.getCurrentBet()) {
-                    log.warn("玩家 {} 不能看牌，需要跟注", player.getName());
-                    return false;
-                }
                 player.check();
-                log.info("玩家 {} 看牌", player.getName());
+                GameEventLog.action(TABLE_ID, handId, playerId, "check", 0, pot);
                 break;
             case "call":
                 int callAmount = currentBetAmount - player.getCurrentBet();
                 if (callAmount > 0) {
                     pot += player.call(callAmount);
-                    log.info("玩家 {} 跟注 {}", player.getName(), callAmount);
+                    GameEventLog.action(TABLE_ID, handId, playerId, "call", callAmount, pot);
                 } else {
                     player.check();
-                    log.info("玩家 {} 看牌 (无需跟注)", player.getName());
+                    GameEventLog.action(TABLE_ID, handId, playerId, "check", 0, pot);
                 }
                 break;
             case "raise":
-                if (amount <= currentBetAmount) {
-                    log.warn("加注金额 {} 必须大于当前下注金额 {}", amount, currentBetAmount);
-                    return false;
-                }
                 int totalRaise = amount - player.getCurrentBet();
                 pot += player.raise(totalRaise);
+                lastRaiseIncrement = player.getCurrentBet() - currentBetAmount;
                 currentBetAmount = player.getCurrentBet();
-                log.info("玩家 {} 加注到 {}", player.getName(), currentBetAmount);
+                GameEventLog.action(TABLE_ID, handId, playerId, "raise", currentBetAmount, pot);
                 break;
             case "allin":
                 int allInAmount = player.allIn();
                 pot += allInAmount;
                 if (player.getCurrentBet() > currentBetAmount) {
+                    // 不足一次完整加注的全下不改变最小加注增量
+                    lastRaiseIncrement = Math.max(lastRaiseIncrement, player.getCurrentBet() - currentBetAmount);
                     currentBetAmount = player.getCurrentBet();
                 }
-                log.info("玩家 {} 全下 {}", player.getName(), allInAmount);
+                GameEventLog.action(TABLE_ID, handId, playerId, "allin", allInAmount, pot);
                 break;
             default:
                 log.warn("未知的行动: {}", action);
@@ -281,20 +379,184 @@ public class GameService {
         webSocketHandler.broadcastGameState();
 
         if (roundComplete) {
-            new Timer().schedule(new TimerTask() {
-                @Override public void run() { proceedToNextPhase(); }
-            }, 1500);
+            if (isAllInRunout()) {
+                updateRunoutEquity();
+            }
+            schedulePhaseTask(this::proceedToNextPhase, STREET_DELAY_MILLIS);
         }
 
         return true;
     }
 
+    /**
+     * 切换阶段并记录上一阶段的持续时间；进入翻牌前开始计时一手牌，结束时记录整手时长
+     */
+    private void enterPhase(GamePhase next) {
+        long now = System.nanoTime();
+        long previousPhaseNanos = phaseStartNanos != 0 && isHandInProgress() ? now - phaseStartNanos : 0;
+        if (previousPhaseNanos > 0) {
+            gameMetrics.recordPhase(currentPhase, previousPhaseNanos);
+        }
+        GameEvents.PhaseTransition transition = new GameEvents.PhaseTransition();
+        if (transition.shouldCommit()) {
+            transition.tableId = TABLE_ID;
+            transition.handId = handId;
+            transition.from = currentPhase.name();
+            transition.to = next.name();
+            transition.previousPhaseDuration = previousPhaseNanos;
+            transition.commit();
+        }
+        if (next == GamePhase.PRE_FLOP) {
+            handStartNanos = now;
+        } else if (next == GamePhase.FINISHED && handStartNanos != 0) {
+            gameMetrics.recordHand(now - handStartNanos);
+            GameEvents.HandEnd handEnd = new GameEvents.HandEnd();
+            if (handEnd.shouldCommit()) {
+                handEnd.tableId = TABLE_ID;
+                handEnd.handId = handId;
+                handEnd.handDuration = now - handStartNanos;
+                handEnd.commit();
+            }
+            handStartNanos = 0;
+        }
+        phaseStartNanos = now;
+        currentPhase = next;
+    }
+
+    private boolean isHandInProgress() {
+        return currentPhase != GamePhase.WAITING && currentPhase != GamePhase.FINISHED;
+    }
+
+    /**
+     * 当前待处理的行动已等待的毫秒数，没有进行中的牌局时为0
+     */
+    public long getPendingActionAgeMillis() {
+        long since = turnStartNanos;
+        if (!isHandInProgress() || getCurrentPlayer() == null || since == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+
+    private void schedulePhaseTask(Runnable task, long delayMillis) {
+        pendingPhaseTasks.incrementAndGet();
+        Runnable tracked = phaseTaskTracker.wrap(task, delayMillis);
+        new Timer().schedule(new TimerTask() {
+            @Override
+            public void run() {
+                pendingPhaseTasks.decrementAndGet();
+                tracked.run();
+            }
+        }, delayMillis);
+    }
+
+    /**
+     * 是否进入全下摊牌：至少两名玩家在局中，最多一人还有筹码且已跟到最高下注
+     * （isAllIn 在每条街重置下注后变为false，这里按剩余筹码判断）
+     */
+    private boolean isAllInRunout() {
+        List<Player> activePlayers = getActivePlayers();
+        if (activePlayers.size() < 2) {
+            return false;
+        }
+        List<Player> withChips = activePlayers.stream()
+                .filter(p -> p.getChips() > 0)
+                .collect(Collectors.toList());
+        if (withChips.size() > 1) {
+            return false;
+        }
+        int highestBet = activePlayers.stream().mapToInt(Player::getCurrentBet).max().orElse(0);
+        return withChips.isEmpty() || withChips.get(0).getCurrentBet() >= highestBet;
+    }
+
+    /**
+     * 新的一条街发出后若已是全下摊牌，不再轮到任何人行动：计算本街胜率，并在停顿后自动发下一条街
+     */
+    private void continueRunoutIfAllIn() {
+        if (!isAllInRunout()) {
+            return;
+        }
+        currentPlayerTurn = -1;
+        legalActions = null;
+        updateRunoutEquity();
+        schedulePhaseTask(this::proceedToNextPhase, STREET_DELAY_MILLIS);
+    }
+
+    /**
+     * 异步计算局中玩家在当前公共牌下的胜率，算完后写入 runoutEquity 并广播；
+     * 结果经 EquityService 按（手牌, 公共牌）缓存，计算期间不推迟发下一条街，算完时牌面已变化则丢弃
+     */
+    private void updateRunoutEquity() {
+        List<Player> contenders = getActivePlayers();
+        List<HandRange> hands = new ArrayList<>(contenders.size());
+        for (Player player : contenders) {
+            hands.add(HandRange.of(player.getHoleCards().get(0), player.getHoleCards().get(1)));
+        }
+        long equityHandId = handId;
+        List<Card> board = new ArrayList<>(communityCards);
+        equityService.equity(hands, board, Collections.emptyList(), 0).whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("全下胜率计算失败: {}", error.getMessage());
+                return;
+            }
+            if (equityHandId != handId || board.size() != communityCards.size()) {
+                return;
+            }
+            Map<String, Double> equityByPlayer = new HashMap<>();
+            for (int i = 0; i < contenders.size(); i++) {
+                equityByPlayer.put(contenders.get(i).getId(), result.getEquity()[i]);
+            }
+            runoutEquity = new RunoutEquity(equityHandId, board.size(), Collections.unmodifiableMap(equityByPlayer));
+            webSocketHandler.broadcastGameState();
+        });
+    }
+
+    /**
+     * 全下摊牌中当前街各玩家（按ID）的胜率，不在全下摊牌或尚未算完时返回null
+     */
+    public Map<String, Double> getRunoutEquity() {
+        RunoutEquity equity = runoutEquity;
+        if (equity == null || equity.handId != handId || equity.boardSize != communityCards.size()
+                || !isHandInProgress()) {
+            return null;
+        }
+        return equity.equityByPlayer;
+    }
+
+    /**
+     * 轮到新玩家（或下注状态变化）后重新计算合法行动
+     */
+    private void refreshLegalActions() {
+        Player player = getCurrentPlayer();
+        legalActions = player != null && player.getChips() > 0
+                ? LegalActions.of(player, currentBetAmount, Math.max(lastRaiseIncrement, bigBlindAmount), pot)
+                : null;
+    }
+
+    /**
+     * 当前行动玩家的合法行动，没有行动玩家时返回null
+     */
+    public LegalActions getLegalActions() {
+        return legalActions;
+    }
+
+    /**
+     * 按本回合预先计算的合法行动校验，合法时返回null，否则返回原因
+     */
+    public String checkAction(String playerId, String action, int amount) {
+        LegalActions legal = legalActions;
+        if (legal == null || !legal.getPlayerId().equals(playerId)) {
+            return "不是你的回合";
+        }
+        return legal.validate(action != null ? action.toLowerCase() : null, amount);
+    }
+
     private void proceedToNextPhase() {
         List<Player> activePlayers = getActivePlayersInHand();
 
         if (activePlayers.size() <= 1) {
             determineWinner();
-            currentPhase = GamePhase.FINISHED;
+            enterPhase(GamePhase.FINISHED);
             webSocketHandler.broadcastGameState();
             return;
         }
@@ -319,6 +581,8 @@ public class GameService {
         }
 
         // 调用AI决策服务获取决策
+        GameEvents.AIDecision event = new GameEvents.AIDecision();
+        event.begin();
         AIPlayerDecisionService.AIDecision decision = aiPlayerDecisionService.makeDecision(
                 player,
                 communityCards,
@@ -329,22 +593,64 @@ public class GameService {
                 player.getAiLevel() != null ? player.getAiLevel() : AIPlayerDecisionService.AILevel.MEDIUM
         );
 
+        if (event.shouldCommit()) {
+            event.tableId = TABLE_ID;
+            event.handId = handId;
+            event.playerId = playerId;
+            event.level = player.getAiLevel() != null ? player.getAiLevel().name() : null;
+            event.phase = currentPhase.name();
+            event.decision = String.valueOf(decision.getAction());
+            event.commit();
+        }
+
         // 根据决策执行相应的玩家动作
+        String action;
         switch (decision.getAction()) {
             case FOLD:
-                return playerAction(playerId, "fold", 0);
+                action = "fold";
+                break;
             case CHECK:
-                return playerAction(playerId, "check", 0);
+                action = "check";
+                break;
             case CALL:
-                return playerAction(playerId, "call", 0);
+                action = "call";
+                break;
             case RAISE:
-                return playerAction(playerId, "raise", decision.getAmount());
+                action = "raise";
+                break;
             case ALL_IN:
-                return playerAction(playerId, "allin", 0);
+                action = "allin";
+                break;
             default:
                 log.warn("AI玩家 {} 未知决策: {}，默认弃牌", player.getName(), decision.getAction());
-                return playerAction(playerId, "fold", 0); // 安全默认操作
+                action = "fold"; // 安全默认操作
+        }
+        return applyAIAction(player, action, decision.getAmount());
+    }
+
+    /**
+     * 把AI的决策调整到本回合的合法行动内再执行：加注金额夹在最小/最大加注之间，
+     * 不能加注时按金额改为全下或跟注，其余不合法的行动退为看牌/跟注
+     */
+    private boolean applyAIAction(Player player, String action, int amount) {
+        LegalActions legal = legalActions;
+        if (legal == null || !legal.getPlayerId().equals(player.getId())
+                || legal.validate(action, amount) == null) {
+            return playerAction(player.getId(), action, amount);
+        }
+        String adjusted;
+        int adjustedAmount = 0;
+        if ("raise".equals(action) && legal.isCanRaise()) {
+            adjusted = "raise";
+            adjustedAmount = legal.clampRaise(amount);
+        } else if (("raise".equals(action) || "allin".equals(action)) && legal.isCanAllIn()
+                && amount >= legal.getAllInTo()) {
+            adjusted = "allin";
+        } else {
+            adjusted = legal.passiveAction();
         }
+        log.debug("AI玩家 {} 的决策 {}({}) 调整为 {}({})", player.getName(), action, amount, adjusted, adjustedAmount);
+        return playerAction(player.getId(), adjusted, adjustedAmount);
     }
 
     /**
@@ -357,17 +663,14 @@ public class GameService {
                 .collect(Collectors.toList());
     }
     private void showdown() {
-        log.info("开始摊牌");
-        currentPhase = GamePhase.SHOWDOWN;
+        logPhase(GamePhase.SHOWDOWN);
+        enterPhase(GamePhase.SHOWDOWN);
         webSocketHandler.broadcastGameState();
 
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                determineWinner();
-                currentPhase = GamePhase.FINISHED;
-                webSocketHandler.broadcastGameState();
-            }
+        schedulePhaseTask(() -> {
+            determineWinner();
+            enterPhase(GamePhase.FINISHED);
+            webSocketHandler.broadcastGameState();
         }, 3000);
     }
     /**
@@ -561,68 +864,77 @@ public class GameService {
             return true;
         }
 
-        // 检查所有活跃玩家是否都已行动且下注金额相同
+        // 检查所有活跃玩家是否都已行动且下注金额相同（全下加注后其余玩家也要跟到该金额）；
+        // 没有筹码的玩家已全下，不再参与下注（isAllIn 在每条街重置下注后为false，这里按剩余筹码判断）
         int targetBet = activePlayers.stream()
-                .filter(p -> !p.isAllIn())
                 .mapToInt(Player::getCurrentBet)
                 .max().orElse(0);
 
         return activePlayers.stream()
-                .allMatch(p -> p.isAllIn() || p.getCurrentBet() == targetBet);
+                .allMatch(p -> p.getChips() == 0 || p.getCurrentBet() == targetBet);
     }
 
     /**
      * 决定胜者
      */
     private void determineWinner() {
+        GameEvents.ShowdownEvaluation event = new GameEvents.ShowdownEvaluation();
+        event.begin();
+        int settledPot = pot;
+        int winners = 0;
         List<Player> activePlayers = getActivePlayers();
 
-        // 如果只剩一个活跃玩家，该玩家获胜
-        if (activePlayers.size() == 1) {
-            Player winner = activePlayers.get(0);
-            winner.addWinnings(pot);
-            log.info("玩家 {} 获胜（其他玩家已弃牌），奖金: {}", winner.getName(), pot);
-        }
-        // 如果有多个活跃玩家，进行牌型比较
-        else if (activePlayers.size() > 1) {
-            // 评估所有玩家的手牌
-            List<HandEvaluator.HandResult> handResults = new ArrayList<>();
-            Map<Integer, Player> playerMap = new HashMap<>();
-
-            for (int i = 0; i < activePlayers.size(); i++) {
-                Player player = activePlayers.get(i);
-                HandEvaluator.HandResult result = HandEvaluator.evaluateHand(
-                    player.getHoleCards(), communityCards);
-                handResults.add(result);
-                playerMap.put(i, player);
-
-                log.info("玩家 {} 的牌型: {}", player.getName(), result.toString());
+        if (activePlayers.isEmpty()) {
+            // 理论上不应该发生
+            log.warn("没有活跃玩家，奖池将被重置");
+        } else {
+            // 按各玩家本手牌的投入切分主池与边池（与无界面牌桌共用 PotSettlement）
+            int n = players.size();
+            boolean[] inHand = new boolean[n];
+            int[] contributions = new int[n];
+            HandEvaluator.HandResult[] results = new HandEvaluator.HandResult[n];
+            int contributed = 0;
+            for (int i = 0; i < n; i++) {
+                Player player = players.get(i);
+                inHand[i] = activePlayers.contains(player);
+                contributions[i] = player.getHandContribution();
+                contributed += contributions[i];
+                if (inHand[i] && activePlayers.size() > 1) {
+                    results[i] = HandEvaluator.evaluateHand(player.getHoleCards(), communityCards);
+                    GameEventLog.showdown(TABLE_ID, handId, player.getId(), results[i]);
+                }
             }
-
-            // 比较手牌，找出获胜者
-            List<Integer> winnerIndices = HandEvaluator.compareHands(handResults);
-            int winningsPerPlayer = pot / winnerIndices.size();
-
-            for (int winnerIndex : winnerIndices) {
-                Player winner = playerMap.get(winnerIndex);
-                winner.addWinnings(winningsPerPlayer);
-                log.info("玩家 {} 获胜，奖金: {}", winner.getName(), winningsPerPlayer);
+            int[] payouts = PotSettlement.settle(inHand, contributions, results, Math.max(currentDealer, 0));
+            if (contributed != pot) {
+                // 投入记录与底池不一致（如牌局中途有玩家离开）时，差额给第一位赢家，筹码不凭空消失
+                log.warn("第 {} 手牌投入合计 {} 与底池 {} 不一致", handId, contributed, pot);
+                for (int i = 0; i < n; i++) {
+                    if (payouts[i] > 0) {
+                        payouts[i] = Math.max(0, payouts[i] + pot - contributed);
+                        break;
+                    }
+                }
             }
-
-            // 处理余数
-            int remainder = pot % winnerIndices.size();
-            if (remainder > 0 && !winnerIndices.isEmpty()) {
-                Player firstWinner = playerMap.get(winnerIndices.get(0));
-                firstWinner.addWinnings(remainder);
-                log.info("余数 {} 分配给玩家 {}", remainder, firstWinner.getName());
+            String reason = activePlayers.size() == 1 ? "uncontested" : "showdown";
+            for (int i = 0; i < n; i++) {
+                if (payouts[i] > 0) {
+                    Player winner = players.get(i);
+                    winner.addWinnings(payouts[i]);
+                    winners++;
+                    GameEventLog.win(TABLE_ID, handId, winner.getId(), payouts[i], reason);
+                }
             }
         }
-        // 如果没有活跃玩家（理论上不应该发生）
-        else {
-            log.warn("没有活跃玩家，奖池将被重置");
-        }
 
         pot = 0;
+        if (event.shouldCommit()) {
+            event.tableId = TABLE_ID;
+            event.handId = handId;
+            event.evaluatedPlayers = activePlayers.size();
+            event.winners = winners;
+            event.pot = settledPot;
+            event.commit();
+        }
 
         // 确保在最后广播状态
         webSocketHandler.broadcastGameState();
@@ -646,7 +958,9 @@ public class GameService {
     private void nextPlayerTurn() {
         int oldTurn = currentPlayerTurn;
         currentPlayerTurn = getNextActivePlayer(currentPlayerTurn, true);
-        log.info("玩家轮次变更: {} -> {}", oldTurn, currentPlayerTurn);
+        turnStartNanos = System.nanoTime();
+        refreshLegalActions();
+        GameEventLog.turn(TABLE_ID, handId, oldTurn, currentPlayerTurn);
     }
 
     private int getNextActivePlayer(int startIndex, boolean checkTurn) {
@@ -654,7 +968,8 @@ public class GameService {
         int nextIndex = (startIndex + 1) % players.size();
         for (int i = 0; i < players.size(); i++) {
             Player player = players.get(nextIndex);
-            if (player.isInGame() && !player.isAllIn() && (!checkTurn || !player.isHasFolded())) {
+            // 没有筹码的玩家（此前已全下）不再轮到行动
+            if (player.isInGame() && player.getChips() > 0 && (!checkTurn || !player.isHasFolded())) {
                 return nextIndex;
             }
             nextIndex = (nextIndex + 1) % players.size();
@@ -668,16 +983,20 @@ public class GameService {
                 .collect(Collectors.toList());
     }
 
-    private String getCommunityCardsString() {
-        return communityCards.stream()
-                .map(Card::toString)
-                .collect(Collectors.joining(", "));
+    private void logPhase(GamePhase phase) {
+        if (GameEventLog.isEnabled()) {
+            GameEventLog.phase(TABLE_ID, handId, phase.name(), new ArrayList<>(communityCards));
+        }
     }
 
     // Getters
     public List<Player> getPlayers() { return new ArrayList<>(players); }
     public List<Card> getCommunityCards() { return new ArrayList<>(communityCards); }
     public int getPot() { return pot; }
+    public long getGameId() { return gameId; }
+    public long getHandId() { return handId; }
+    public int getPendingPhaseTaskCount() { return pendingPhaseTasks.get(); }
+    public ScheduledTaskTracker getPhaseTaskTracker() { return phaseTaskTracker; }
     public int getCurrentBetAmount() { return currentBetAmount; }
     public GamePhase getCurrentPhase() { return currentPhase; }
     public int getCurrentPlayerTurn() { return currentPlayerTurn; }
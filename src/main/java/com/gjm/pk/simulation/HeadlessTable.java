@@ -0,0 +1,364 @@
+package com.gjm.pk.simulation;
+
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.HandEvaluator;
+import com.gjm.pk.service.LegalActions;
+import com.gjm.pk.service.PotSettlement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 无界面牌桌
+ * 不依赖Spring、定时器与WebSocket，同步地打完一手牌，供离线自我对弈与批量模拟使用。
+ * 盲注位置、发牌顺序、下注语义（加注为"加注到"）与 GameService 一致；
+ * AI 决策与 GameService 一样先按 LegalActions 调整（加注夹在最小/最大加注之间，不合法的看牌改为跟注）；
+ * 下注轮以"所有可行动玩家都已行动且下注持平"结束，结算与 GameService 共用 PotSettlement（按投入分配边池）
+ *
+ * 非线程安全：每个工作线程使用自己的实例
+ *
+ * @author: guojianming
+ * @date: 2025/10/10
+ */
+public class HeadlessTable {
+
+    private static final String[] STREETS = {"PRE_FLOP", "FLOP", "TURN", "RIVER"};
+
+    private final AIPlayerDecisionService decisionService;
+    private final int smallBlind;
+    private final int bigBlind;
+
+    private final List<Card> deck = new ArrayList<>(52);
+    private final List<Card> board = new ArrayList<>(5);
+
+    // 单手牌状态
+    private List<Player> seats;
+    private int[] committed;
+    private boolean[] acted;
+    private int deckPos;
+    private int pot;
+    private int currentBet;
+    /** 本轮最近一次完整加注的增量，决定最小加注 */
+    private int lastRaiseIncrement;
+    private Random rng;
+
+    public HeadlessTable(AIPlayerDecisionService decisionService, int smallBlind, int bigBlind) {
+        this.decisionService = decisionService;
+        this.smallBlind = smallBlind;
+        this.bigBlind = bigBlind;
+    }
+
+    /**
+     * 单手牌结果
+     */
+    public static class HandRecord {
+        private final int[] chipDeltas;
+        private final boolean showdown;
+        private final HandEvaluator.HandType[] shownHandTypes;
+        private final boolean[] winners;
+
+        HandRecord(int[] chipDeltas, boolean showdown, HandEvaluator.HandType[] shownHandTypes, boolean[] winners) {
+            this.chipDeltas = chipDeltas;
+            this.showdown = showdown;
+            this.shownHandTypes = shownHandTypes;
+            this.winners = winners;
+        }
+
+        /** 各座位本手牌的筹码变化 */
+        public int[] getChipDeltas() { return chipDeltas; }
+        /** 是否进行了摊牌 */
+        public boolean isShowdown() { return showdown; }
+        /** 各座位摊牌时的牌型，未摊牌为null */
+        public HandEvaluator.HandType[] getShownHandTypes() { return shownHandTypes; }
+        /** 各座位是否赢得（部分）底池 */
+        public boolean[] getWinners() { return winners; }
+    }
+
+    /**
+     * 打完一手牌
+     *
+     * @param players 按座位排列的AI玩家（筹码在本方法内直接增减）
+     * @param dealer 庄家座位
+     * @param deckSeed 洗牌种子，相同种子得到相同的牌序
+     * @param decisionRng AI决策随机源
+     * @return 本手牌结果
+     */
+    public HandRecord playHand(List<Player> players, int dealer, long deckSeed, Random decisionRng) {
+        int n = players.size();
+        this.seats = players;
+        this.committed = new int[n];
+        this.acted = new boolean[n];
+        this.rng = decisionRng;
+        this.pot = 0;
+        this.currentBet = 0;
+        this.lastRaiseIncrement = bigBlind;
+
+        int[] startChips = new int[n];
+        int seatsWithChips = 0;
+        for (int i = 0; i < n; i++) {
+            Player player = players.get(i);
+            player.resetForNewHand();
+            startChips[i] = player.getChips();
+            if (player.getChips() > 0) {
+                seatsWithChips++;
+            }
+        }
+        if (seatsWithChips < 2) {
+            throw new IllegalStateException("有筹码的玩家不足2人，无法开始一手牌");
+        }
+        shuffleDeck(deckSeed);
+        board.clear();
+
+        int smallBlindSeat = seatsWithChips == 2 ? dealer : nextSeatWithChips(dealer);
+        int bigBlindSeat = nextSeatWithChips(smallBlindSeat);
+        players.get(dealer).setDealer(true);
+        players.get(smallBlindSeat).setSmallBlind(true);
+        players.get(bigBlindSeat).setBigBlind(true);
+        pay(smallBlindSeat, players.get(smallBlindSeat).bet(smallBlind));
+        pay(bigBlindSeat, players.get(bigBlindSeat).bet(bigBlind));
+        currentBet = Math.max(players.get(smallBlindSeat).getCurrentBet(), players.get(bigBlindSeat).getCurrentBet());
+
+        for (int round = 0; round < 2; round++) {
+            for (Player player : players) {
+                if (player.isInGame()) {
+                    player.getHoleCards().add(deck.get(deckPos++));
+                }
+            }
+        }
+
+        int firstToAct = nextSeatWithChips(bigBlindSeat);
+        for (int street = 0; street < STREETS.length; street++) {
+            if (street > 0) {
+                dealStreet(street);
+                firstToAct = nextSeatWithChips(dealer);
+            }
+            if (playersInHand() <= 1) {
+                break;
+            }
+            bettingRound(firstToAct, STREETS[street]);
+        }
+
+        boolean showdown = playersInHand() > 1;
+        HandEvaluator.HandType[] shownHandTypes = new HandEvaluator.HandType[n];
+        boolean[] winners = new boolean[n];
+        awardPots(dealer, showdown, shownHandTypes, winners);
+
+        int[] chipDeltas = new int[n];
+        for (int i = 0; i < n; i++) {
+            chipDeltas[i] = players.get(i).getChips() - startChips[i];
+        }
+        return new HandRecord(chipDeltas, showdown, shownHandTypes, winners);
+    }
+
+    private void shuffleDeck(long deckSeed) {
+        deck.clear();
+        for (int suit = 0; suit < 4; suit++) {
+            for (int rank = 2; rank <= 14; rank++) {
+                deck.add(new Card(suit, rank));
+            }
+        }
+        Collections.shuffle(deck, new Random(deckSeed));
+        deckPos = 0;
+    }
+
+    /**
+     * 发出某条街的公共牌（先烧一张）
+     */
+    private void dealStreet(int street) {
+        deckPos++;
+        int cards = street == 1 ? 3 : 1;
+        for (int i = 0; i < cards; i++) {
+            board.add(deck.get(deckPos++));
+        }
+        currentBet = 0;
+        lastRaiseIncrement = bigBlind;
+        for (Player player : seats) {
+            player.resetCurrentBet();
+        }
+    }
+
+    private void bettingRound(int firstToAct, String phase) {
+        int n = seats.size();
+        for (int i = 0; i < n; i++) {
+            acted[i] = false;
+        }
+        int seat = firstToAct < 0 ? 0 : firstToAct;
+        while (playersInHand() > 1 && !isRoundComplete()) {
+            Player player = seats.get(seat);
+            if (canAct(player)) {
+                act(seat, player, phase);
+            }
+            seat = (seat + 1) % n;
+        }
+    }
+
+    private void act(int seat, Player player, String phase) {
+        AIPlayerDecisionService.AILevel level = player.getAiLevel() != null
+                ? player.getAiLevel() : AIPlayerDecisionService.AILevel.MEDIUM;
+        AIPlayerDecisionService.AIDecision decision = decisionService.makeDecision(
+                player, board, currentBet, pot, playersInHand(), phase, level, rng);
+        LegalActions legal = LegalActions.of(player, currentBet, Math.max(lastRaiseIncrement, bigBlind), pot);
+
+        String action;
+        switch (decision.getAction()) {
+            case CHECK:
+                action = "check";
+                break;
+            case CALL:
+                action = "call";
+                break;
+            case RAISE:
+                action = "raise";
+                break;
+            case ALL_IN:
+                action = "allin";
+                break;
+            case FOLD:
+            default:
+                action = "fold";
+                break;
+        }
+        int amount = decision.getAmount();
+        // 与 GameService.applyAIAction 相同的调整
+        if (legal.validate(action, amount) != null) {
+            if ("raise".equals(action) && legal.isCanRaise()) {
+                amount = legal.clampRaise(amount);
+            } else if (("raise".equals(action) || "allin".equals(action)) && legal.isCanAllIn()
+                    && amount >= legal.getAllInTo()) {
+                action = "allin";
+            } else {
+                action = legal.passiveAction();
+            }
+        }
+
+        int paid = 0;
+        switch (action) {
+            case "check":
+                player.check();
+                break;
+            case "call":
+                int toCall = currentBet - player.getCurrentBet();
+                if (toCall > 0) {
+                    paid = player.call(toCall);
+                } else {
+                    player.check();
+                }
+                break;
+            case "raise":
+                paid = player.raise(amount - player.getCurrentBet());
+                break;
+            case "allin":
+                paid = player.allIn();
+                break;
+            case "fold":
+            default:
+                player.fold();
+                break;
+        }
+        pay(seat, paid);
+        acted[seat] = true;
+
+        if (player.getCurrentBet() > currentBet) {
+            // 不足一次完整加注的全下不改变最小加注增量
+            int increment = player.getCurrentBet() - currentBet;
+            lastRaiseIncrement = "raise".equals(action) ? increment : Math.max(lastRaiseIncrement, increment);
+            currentBet = player.getCurrentBet();
+            for (int i = 0; i < acted.length; i++) {
+                if (i != seat) {
+                    acted[i] = false;
+                }
+            }
+        }
+    }
+
+    private void pay(int seat, int amount) {
+        committed[seat] += amount;
+        pot += amount;
+    }
+
+    /**
+     * 所有仍可行动的玩家都已行动且下注持平；只剩一名可行动玩家且无需跟注时也视为结束
+     */
+    private boolean isRoundComplete() {
+        int canActCount = 0;
+        boolean allSettled = true;
+        for (int i = 0; i < seats.size(); i++) {
+            Player player = seats.get(i);
+            if (!canAct(player)) {
+                continue;
+            }
+            canActCount++;
+            if (!acted[i] || player.getCurrentBet() != currentBet) {
+                allSettled = false;
+            }
+        }
+        if (canActCount == 0) {
+            return true;
+        }
+        if (canActCount == 1) {
+            for (Player player : seats) {
+                if (canAct(player)) {
+                    return player.getCurrentBet() >= currentBet;
+                }
+            }
+        }
+        return allSettled;
+    }
+
+    /**
+     * 按投入分配主池与边池（PotSettlement，与 GameService 相同的结算）
+     */
+    private void awardPots(int dealer, boolean showdown, HandEvaluator.HandType[] shownHandTypes, boolean[] winners) {
+        int n = seats.size();
+        boolean[] inHand = new boolean[n];
+        HandEvaluator.HandResult[] results = new HandEvaluator.HandResult[n];
+        for (int i = 0; i < n; i++) {
+            inHand[i] = isInHand(seats.get(i));
+            if (showdown && inHand[i]) {
+                results[i] = HandEvaluator.evaluateHand(seats.get(i).getHoleCards(), board);
+                shownHandTypes[i] = results[i].getHandType();
+            }
+        }
+        int[] payouts = PotSettlement.settle(inHand, committed, results, dealer);
+        for (int i = 0; i < n; i++) {
+            if (payouts[i] > 0) {
+                seats.get(i).addWinnings(payouts[i]);
+                winners[i] = true;
+            }
+        }
+        pot = 0;
+    }
+
+    private int nextSeatWithChips(int from) {
+        int n = seats.size();
+        for (int offset = 1; offset <= n; offset++) {
+            int seat = (from + offset) % n;
+            if (canAct(seats.get(seat))) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    private int playersInHand() {
+        int count = 0;
+        for (Player player : seats) {
+            if (isInHand(player)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isInHand(Player player) {
+        return player.isInGame() && !player.isHasFolded();
+    }
+
+    private static boolean canAct(Player player) {
+        return isInHand(player) && player.getChips() > 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gjm.pk.simulation;
+
+/**
+ * 模拟用的种子工具
+ * 每手牌的洗牌种子与决策种子都由起始种子加手牌序号混合得到，结果与分块方式、线程数无关
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class Seeds {
+
+    private Seeds() {
+    }
+
+    /**
+     * SplitMix64 混合，让相邻的序号得到互不相关的种子
+     */
+    public static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
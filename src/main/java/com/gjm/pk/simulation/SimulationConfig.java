@@ -0,0 +1,30 @@
+package com.gjm.pk.simulation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.gjm.pk.service.impl.GameService;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量模拟请求
+ * 请求示例：{"seats": ["EXPERT", "HARD", "MEDIUM", "EASY"], "stacks": [2000], "smallBlind": 10,
+ * "bigBlind": 20, "hands": 100000, "seed": 42}
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SimulationConfig {
+
+    /** 各座位的AI等级（EASY / MEDIUM / HARD / EXPERT），2-6个 */
+    private List<String> seats;
+    /** 各座位起始筹码；只给一个值时所有座位相同，省略时为100个大盲。每手牌开始前重置 */
+    private List<Integer> stacks;
+    private int smallBlind = GameService.DEFAULT_SMALL_BLIND;
+    private int bigBlind = GameService.DEFAULT_BIG_BLIND;
+    private long hands = 10_000;
+    /** 相同种子与配置得到相同的结果，与线程数无关 */
+    private long seed = 20250923L;
+}
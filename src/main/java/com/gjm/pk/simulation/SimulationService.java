@@ -0,0 +1,345 @@
+package com.gjm.pk.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjm.pk.config.SimulationProperties;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.GameMetrics;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.service.impl.GameService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量模拟服务
+ * 按请求的座位配置用 HeadlessTable 无延迟、无广播地连续打牌（与 GameService 共用 LegalActions 与 PotSettlement 的下注与结算规则，决策来自 AIPlayerDecisionService），
+ * 以 NDJSON 流式输出进度与最终统计。所有模拟共用一个固定大小的工作线程池（即CPU配额）：
+ * 每个模拟切成若干任务，同时最多占用线程数个任务，完成一个再提交下一个，因此并发的模拟在池中轮流推进。
+ * 第k手牌的洗牌与决策种子只由 seed 与 k 决定，结果与线程数、并发情况无关。
+ * 使用独立的决策服务实例：不记录线上AI指标，也不挤占线上的信息集缓存
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+@Service
+public class SimulationService {
+
+    public static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+    private final SimulationProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AIPlayerDecisionService decisionService = new AIPlayerDecisionService(new BoardTextureAnalyzer());
+    private final int threads;
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final AtomicLong nextRunId = new AtomicLong();
+
+    @Autowired
+    public SimulationService(SimulationProperties properties, ObjectMapper objectMapper, GameMetrics gameMetrics) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.threads = properties.getThreads() > 0
+                ? properties.getThreads() : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger index = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sim-worker-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.slots = new Semaphore(Math.max(1, properties.getMaxConcurrent()));
+        gameMetrics.gauge("poker.simulation.active", "正在运行的批量模拟数", activeRuns, AtomicInteger::get);
+    }
+
+    /**
+     * 校验配置并开始模拟
+     *
+     * @return 输出 NDJSON 的响应；并发模拟数已满时返回null
+     * @throws IllegalArgumentException 配置不合法
+     */
+    public ResponseBodyEmitter start(SimulationConfig config) {
+        List<AIPlayerDecisionService.AILevel> levels = parseLevels(config.getSeats());
+        int[] stacks = resolveStacks(config, levels.size());
+        if (config.getSmallBlind() <= 0 || config.getBigBlind() < config.getSmallBlind()) {
+            throw new IllegalArgumentException("盲注不合法: " + config.getSmallBlind() + "/" + config.getBigBlind());
+        }
+        if (config.getHands() <= 0 || config.getHands() > properties.getMaxHands()) {
+            throw new IllegalArgumentException("hands 必须在 1 到 " + properties.getMaxHands() + " 之间");
+        }
+        if (!slots.tryAcquire()) {
+            return null;
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(properties.getTimeoutMillis());
+        Run run = new Run(nextRunId.incrementAndGet(), config, levels, stacks, emitter);
+        emitter.onCompletion(run::cancel);
+        emitter.onTimeout(run::cancel);
+        emitter.onError(error -> run.cancel());
+        activeRuns.incrementAndGet();
+        run.begin();
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static List<AIPlayerDecisionService.AILevel> parseLevels(List<String> seats) {
+        if (seats == null || seats.size() < 2 || seats.size() > GameService.MAX_PLAYERS) {
+            throw new IllegalArgumentException("seats 需要 2-" + GameService.MAX_PLAYERS + " 个AI等级");
+        }
+        List<AIPlayerDecisionService.AILevel> levels = new ArrayList<>(seats.size());
+        for (String seat : seats) {
+            try {
+                levels.add(AIPlayerDecisionService.AILevel.valueOf(String.valueOf(seat).trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的AI等级: " + seat);
+            }
+        }
+        return levels;
+    }
+
+    private static int[] resolveStacks(SimulationConfig config, int seats) {
+        List<Integer> configured = config.getStacks();
+        int[] stacks = new int[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            if (configured == null || configured.isEmpty()) {
+                stacks[seat] = config.getBigBlind() * 100;
+            } else if (configured.size() == 1) {
+                stacks[seat] = configured.get(0);
+            } else if (configured.size() == seats) {
+                stacks[seat] = configured.get(seat);
+            } else {
+                throw new IllegalArgumentException("stacks 需要1个或 " + seats + " 个值");
+            }
+            if (stacks[seat] <= 0) {
+                throw new IllegalArgumentException("起始筹码必须为正数");
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * 一次模拟的进度与累计结果
+     */
+    private final class Run {
+        private final long id;
+        private final SimulationConfig config;
+        private final List<AIPlayerDecisionService.AILevel> levels;
+        private final List<String> levelNames = new ArrayList<>();
+        private final int[] stacks;
+        private final ResponseBodyEmitter emitter;
+        private final long totalChunks;
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong nextChunk = new AtomicLong();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        /** 累计结果与已完成的任务数（由 this 的锁保护） */
+        private final SimulationStats total;
+        private long completedChunks;
+        private long lastProgressNanos = startNanos;
+
+        Run(long id, SimulationConfig config, List<AIPlayerDecisionService.AILevel> levels, int[] stacks,
+            ResponseBodyEmitter emitter) {
+            this.id = id;
+            this.config = config;
+            this.levels = levels;
+            this.stacks = stacks;
+            this.emitter = emitter;
+            this.total = new SimulationStats(levels.size());
+            this.totalChunks = (config.getHands() + properties.getChunkHands() - 1) / properties.getChunkHands();
+            for (AIPlayerDecisionService.AILevel level : levels) {
+                levelNames.add(level.name());
+            }
+        }
+
+        void begin() {
+            Map<String, Object> started = new LinkedHashMap<>();
+            started.put("type", "started");
+            started.put("simulationId", id);
+            started.put("seats", levelNames);
+            started.put("stacks", stacks);
+            started.put("smallBlind", config.getSmallBlind());
+            started.put("bigBlind", config.getBigBlind());
+            started.put("hands", config.getHands());
+            started.put("seed", config.getSeed());
+            started.put("threads", threads);
+            emit(started);
+            log.info("批量模拟 {} 开始: {} 手，座位 {}", id, config.getHands(), levelNames);
+            // 同一模拟最多占用全部工作线程，任务完成后再提交下一个，多个模拟在线程池队列中交替执行
+            for (int i = 0; i < Math.min(threads, totalChunks); i++) {
+                submitNext();
+            }
+        }
+
+        void cancel() {
+            if (cancelled.compareAndSet(false, true) && !finished.get()) {
+                log.info("批量模拟 {} 已取消", id);
+                finish();
+            }
+        }
+
+        private void submitNext() {
+            if (cancelled.get()) {
+                return;
+            }
+            long chunk = nextChunk.getAndIncrement();
+            if (chunk >= totalChunks) {
+                return;
+            }
+            try {
+                workers.execute(() -> runChunk(chunk));
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+
+        private void runChunk(long chunk) {
+            if (cancelled.get()) {
+                return;
+            }
+            SimulationStats stats;
+            try {
+                stats = playHands(chunk * properties.getChunkHands(),
+                        Math.min(config.getHands(), (chunk + 1) * properties.getChunkHands()));
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            boolean done;
+            Map<String, Object> progress = null;
+            synchronized (this) {
+                total.merge(stats);
+                completedChunks++;
+                done = completedChunks == totalChunks;
+                long now = System.nanoTime();
+                if (!done && now - lastProgressNanos >= properties.getProgressIntervalMillis() * 1_000_000L) {
+                    lastProgressNanos = now;
+                    progress = progressLine(total.getHands(), now);
+                }
+            }
+            if (progress != null) {
+                emit(progress);
+            }
+            if (done) {
+                complete();
+            } else {
+                submitNext();
+            }
+        }
+
+        /**
+         * 打 [from, to) 区间的手牌，每手牌前重置起始筹码，庄位按手数轮转
+         */
+        private SimulationStats playHands(long from, long to) {
+            HeadlessTable table = new HeadlessTable(decisionService, config.getSmallBlind(), config.getBigBlind());
+            List<Player> players = new ArrayList<>(levels.size());
+            for (int seat = 0; seat < levels.size(); seat++) {
+                AIPlayerDecisionService.AILevel level = levels.get(seat);
+                players.add(new Player("seat" + seat, level.name(), stacks[seat], true, level));
+            }
+            SimulationStats stats = new SimulationStats(levels.size());
+            Random decisionRng = new Random();
+            for (long hand = from; hand < to && !cancelled.get(); hand++) {
+                for (int seat = 0; seat < players.size(); seat++) {
+                    players.get(seat).setChips(stacks[seat]);
+                }
+                long deckSeed = Seeds.mix(config.getSeed() + hand);
+                decisionRng.setSeed(Seeds.mix(deckSeed));
+                stats.add(table.playHand(players, (int) (hand % players.size()), deckSeed, decisionRng));
+            }
+            return stats;
+        }
+
+        private Map<String, Object> progressLine(long hands, long now) {
+            double elapsedSeconds = (now - startNanos) / 1e9;
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("type", "progress");
+            progress.put("handsCompleted", hands);
+            progress.put("hands", config.getHands());
+            progress.put("elapsedMillis", (long) (elapsedSeconds * 1000));
+            progress.put("handsPerSecond", elapsedSeconds > 0 ? hands / elapsedSeconds : 0);
+            return progress;
+        }
+
+        private void complete() {
+            Map<String, Object> result;
+            long now = System.nanoTime();
+            synchronized (this) {
+                result = progressLine(total.getHands(), now);
+                result.put("type", "result");
+                result.remove("handsCompleted");
+                result.putAll(total.summarize(levelNames, stacks, config.getBigBlind()));
+            }
+            emit(result);
+            log.info("批量模拟 {} 完成: {} 手，耗时 {}ms", id, config.getHands(), (now - startNanos) / 1_000_000);
+            if (finish()) {
+                emitter.complete();
+            }
+        }
+
+        private void fail(Exception e) {
+            log.error("批量模拟 {} 失败: {}", id, e.getMessage(), e);
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("type", "error");
+            error.put("message", e.getMessage());
+            emit(error);
+            cancelled.set(true);
+            if (finish()) {
+                emitter.complete();
+            }
+        }
+
+        /**
+         * 释放并发名额，只执行一次
+         */
+        private boolean finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return false;
+            }
+            activeRuns.decrementAndGet();
+            slots.release();
+            return true;
+        }
+
+        /**
+         * 写出一行 JSON；客户端已断开时取消模拟
+         */
+        private void emit(Map<String, Object> line) {
+            if (finished.get()) {
+                return;
+            }
+            try {
+                byte[] json = objectMapper.writeValueAsBytes(line);
+                byte[] bytes = new byte[json.length + 1];
+                System.arraycopy(json, 0, bytes, 0, json.length);
+                bytes[json.length] = '\n';
+                emitter.send(bytes, NDJSON);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("批量模拟 {} 输出失败: {}", id, e.getMessage());
+                cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.gjm.pk.simulation;
+
+import com.gjm.pk.service.HandEvaluator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量模拟的累计统计：各座位筹码期望、胜率与摊牌率，以及摊牌牌型频率
+ * 每个任务各自累计，完成后合并进总量（非线程安全，合并由调用方加锁）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class SimulationStats {
+
+    /** 95%置信区间对应的z值 */
+    private static final double Z_95 = 1.96;
+    private static final HandEvaluator.HandType[] HAND_TYPES = HandEvaluator.HandType.values();
+
+    private long hands;
+    private long showdowns;
+    private final long[] chipSum;
+    private final double[] chipSumSquares;
+    private final long[] wins;
+    private final long[] showdownsSeen;
+    private final long[] showdownWins;
+    private final long[] handTypeCounts = new long[HAND_TYPES.length];
+
+    public SimulationStats(int seats) {
+        this.chipSum = new long[seats];
+        this.chipSumSquares = new double[seats];
+        this.wins = new long[seats];
+        this.showdownsSeen = new long[seats];
+        this.showdownWins = new long[seats];
+    }
+
+    public void add(HeadlessTable.HandRecord record) {
+        hands++;
+        if (record.isShowdown()) {
+            showdowns++;
+        }
+        int[] deltas = record.getChipDeltas();
+        HandEvaluator.HandType[] shown = record.getShownHandTypes();
+        boolean[] winners = record.getWinners();
+        for (int seat = 0; seat < chipSum.length; seat++) {
+            chipSum[seat] += deltas[seat];
+            chipSumSquares[seat] += (double) deltas[seat] * deltas[seat];
+            if (winners[seat]) {
+                wins[seat]++;
+            }
+            if (shown[seat] != null) {
+                showdownsSeen[seat]++;
+                handTypeCounts[shown[seat].ordinal()]++;
+                if (winners[seat]) {
+                    showdownWins[seat]++;
+                }
+            }
+        }
+    }
+
+    public void merge(SimulationStats other) {
+        hands += other.hands;
+        showdowns += other.showdowns;
+        for (int seat = 0; seat < chipSum.length; seat++) {
+            chipSum[seat] += other.chipSum[seat];
+            chipSumSquares[seat] += other.chipSumSquares[seat];
+            wins[seat] += other.wins[seat];
+            showdownsSeen[seat] += other.showdownsSeen[seat];
+            showdownWins[seat] += other.showdownWins[seat];
+        }
+        for (int i = 0; i < handTypeCounts.length; i++) {
+            handTypeCounts[i] += other.handTypeCounts[i];
+        }
+    }
+
+    public long getHands() {
+        return hands;
+    }
+
+    /**
+     * 汇总为输出结构
+     *
+     * @param levels 各座位AI等级
+     * @param stacks 各座位起始筹码
+     */
+    public Map<String, Object> summarize(List<String> levels, int[] stacks, int bigBlind) {
+        List<Map<String, Object>> seats = new ArrayList<>(chipSum.length);
+        for (int seat = 0; seat < chipSum.length; seat++) {
+            double mean = hands > 0 ? (double) chipSum[seat] / hands : 0;
+            double variance = hands > 1
+                    ? Math.max(0, (chipSumSquares[seat] - hands * mean * mean) / (hands - 1)) : 0;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("seat", seat);
+            row.put("level", levels.get(seat));
+            row.put("stack", stacks[seat]);
+            row.put("chipEv", mean);
+            row.put("bbPer100", mean / bigBlind * 100);
+            row.put("bbPer100Confidence95", hands > 1 ? Z_95 * Math.sqrt(variance / hands) / bigBlind * 100 : 0);
+            row.put("winRate", ratio(wins[seat], hands));
+            row.put("showdownRate", ratio(showdownsSeen[seat], hands));
+            row.put("showdownWinRate", ratio(showdownWins[seat], showdownsSeen[seat]));
+            seats.add(row);
+        }
+
+        long shownHands = 0;
+        for (long count : handTypeCounts) {
+            shownHands += count;
+        }
+        Map<String, Object> handTypes = new LinkedHashMap<>();
+        for (HandEvaluator.HandType type : HAND_TYPES) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", handTypeCounts[type.ordinal()]);
+            row.put("frequency", ratio(handTypeCounts[type.ordinal()], shownHands));
+            handTypes.put(type.name(), row);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("hands", hands);
+        summary.put("showdownRate", ratio(showdowns, hands));
+        summary.put("seats", seats);
+        summary.put("showdownHandTypes", handTypes);
+        return summary;
+    }
+
+    private static double ratio(long count, long total) {
+        return total > 0 ? (double) count / total : 0;
+    }
+}
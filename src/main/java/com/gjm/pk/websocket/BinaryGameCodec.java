@@ -0,0 +1,278 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.impl.GameService;
+import com.gjm.pk.websocket.dto.ClientRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 紧凑二进制协议编解码（握手时 ?protocol=binary 启用，大端字节序）
+ *
+ * 牌：1字节，suit*13+(rank-2)，0xFF 表示无/未公开；行动：1字节操作码，FOLD=1 CHECK=2 CALL=3 RAISE=4 ALL_IN=5，0 表示无
+ *
+ * 服务端 -> 客户端
+ * STATE(0x01)：type u8 | version u64 | pot i32 | currentBet i32 | phase u8 | currentSeat u8 | flags u8(bit0 自动游戏)
+ *              | selfSeat u8 | outs u8 | completion u16(千分比) | boardCount u8 | board[5] u8
+ *              | playerCount u8 | 每名玩家12字节定长记录：chips i32 | currentBet i32 | flags u8 | lastAction u8 | card1 u8 | card2 u8
+ *              玩家flags：bit0 inGame, bit1 isAi, bit2 hasFolded, bit3 isAllIn, bit4 isDealer, bit5 isSmallBlind, bit6 isBigBlind
+ * ROSTER(0x02)：type u8 | count u8 | 每个座位：idLength u8 | id | nameLength u8 | name（UTF-8），座位或姓名变化时发送
+ *
+ * 客户端 -> 服务端
+ * ACTION(0x10)：type u8 | 操作码 u8 | amount i32
+ * JOIN(0x11)：type u8 | chips i32 | nameLength u8 | name
+ * RESYNC(0x12)：type u8
+ *
+ * 连接、加入结果、错误等低频消息仍为JSON文本
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+public final class BinaryGameCodec {
+
+    public static final byte TYPE_STATE = 0x01;
+    public static final byte TYPE_ROSTER = 0x02;
+    public static final byte CLIENT_ACTION = 0x10;
+    public static final byte CLIENT_JOIN = 0x11;
+    public static final byte CLIENT_RESYNC = 0x12;
+
+    public static final byte NONE = (byte) 0xFF;
+    public static final int MAX_BOARD = 5;
+    public static final int HEADER_SIZE = 31;
+    public static final int PLAYER_RECORD_SIZE = 12;
+
+    private static final int SELF_SEAT_OFFSET = 20;
+    private static final int OUTS_OFFSET = 21;
+    private static final int COMPLETION_OFFSET = 22;
+    private static final int HOLE_CARDS_IN_RECORD = 10;
+
+    /** 操作码 -> GameService.playerAction 的行动名 */
+    private static final String[] ACTION_NAMES = {null, "fold", "check", "call", "raise", "allin"};
+
+    private BinaryGameCodec() {
+    }
+
+    /**
+     * 编码公共状态（selfSeat 为 NONE，非摊牌阶段不含手牌）
+     */
+    public static void encodeState(ByteBuffer out, long version, List<Player> players, List<Card> board, int pot,
+                                   int currentBetAmount, String currentPhase, Player currentPlayer,
+                                   boolean autoGameRunning) {
+        boolean showdown = "SHOWDOWN".equals(currentPhase);
+        out.put(TYPE_STATE);
+        out.putLong(version);
+        out.putInt(pot);
+        out.putInt(currentBetAmount);
+        out.put((byte) GameService.GamePhase.valueOf(currentPhase).ordinal());
+        out.put(seatByte(currentPlayer != null ? players.indexOf(currentPlayer) : -1));
+        out.put((byte) (autoGameRunning ? 1 : 0));
+        out.put(NONE);
+        out.put((byte) 0);
+        out.putShort((short) 0);
+        out.put((byte) board.size());
+        for (int i = 0; i < MAX_BOARD; i++) {
+            out.put(i < board.size() ? cardByte(board.get(i)) : NONE);
+        }
+        out.put((byte) players.size());
+        for (Player player : players) {
+            out.putInt(player.getChips());
+            out.putInt(player.getCurrentBet());
+            out.put(playerFlags(player));
+            out.put(actionOpcode(player.getLastAction()));
+            List<Card> holeCards = player.getHoleCards();
+            out.put(showdown && holeCards.size() > 0 ? cardByte(holeCards.get(0)) : NONE);
+            out.put(showdown && holeCards.size() > 1 ? cardByte(holeCards.get(1)) : NONE);
+        }
+    }
+
+    /**
+     * 复制公共状态并填入本人的座位、手牌与听牌信息
+     *
+     * @param template 已编码的公共状态（position 到 limit）
+     * @param seat 本人座位，-1 表示观战
+     */
+    public static void personalize(ByteBuffer template, ByteBuffer out, int seat, List<Card> holeCards,
+                                   int outs, double completionProbability) {
+        int start = out.position();
+        out.put(template.duplicate());
+        if (seat < 0) {
+            return;
+        }
+        out.put(start + SELF_SEAT_OFFSET, (byte) seat);
+        out.put(start + OUTS_OFFSET, (byte) Math.min(outs, 255));
+        out.putShort(start + COMPLETION_OFFSET, (short) Math.round(completionProbability * 1000));
+        int cardsAt = start + HEADER_SIZE + seat * PLAYER_RECORD_SIZE + HOLE_CARDS_IN_RECORD;
+        out.put(cardsAt, holeCards.size() > 0 ? cardByte(holeCards.get(0)) : NONE);
+        out.put(cardsAt + 1, holeCards.size() > 1 ? cardByte(holeCards.get(1)) : NONE);
+    }
+
+    /**
+     * 编码座位名单
+     */
+    public static void encodeRoster(ByteBuffer out, List<Player> players) {
+        out.put(TYPE_ROSTER);
+        out.put((byte) players.size());
+        for (Player player : players) {
+            putShortString(out, player.getId());
+            putShortString(out, player.getName());
+        }
+    }
+
+    /**
+     * 解码客户端消息为与JSON协议相同的请求结构
+     */
+    public static ClientRequest decodeClientMessage(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case CLIENT_ACTION:
+                int opcode = in.get() & 0xFF;
+                if (opcode < 1 || opcode >= ACTION_NAMES.length) {
+                    throw new IllegalArgumentException("未知的操作码: " + opcode);
+                }
+                return ClientRequest.playerAction(ACTION_NAMES[opcode], in.getInt());
+            case CLIENT_JOIN:
+                int chips = in.getInt();
+                return ClientRequest.join(getShortString(in), chips);
+            case CLIENT_RESYNC:
+                return ClientRequest.of("resync");
+            default:
+                throw new IllegalArgumentException("未知的二进制消息类型: " + type);
+        }
+    }
+
+    /**
+     * 解码后的状态（用于测试与基准校验）
+     */
+    public static class DecodedState {
+        private long version;
+        private int pot;
+        private int currentBetAmount;
+        private String currentPhase;
+        private int currentSeat;
+        private boolean autoGameRunning;
+        private int selfSeat;
+        private int outs;
+        private double completionProbability;
+        private final List<Card> communityCards = new ArrayList<>();
+        private final List<DecodedPlayer> players = new ArrayList<>();
+
+        public long getVersion() { return version; }
+        public int getPot() { return pot; }
+        public int getCurrentBetAmount() { return currentBetAmount; }
+        public String getCurrentPhase() { return currentPhase; }
+        public int getCurrentSeat() { return currentSeat; }
+        public boolean isAutoGameRunning() { return autoGameRunning; }
+        public int getSelfSeat() { return selfSeat; }
+        public int getOuts() { return outs; }
+        public double getCompletionProbability() { return completionProbability; }
+        public List<Card> getCommunityCards() { return communityCards; }
+        public List<DecodedPlayer> getPlayers() { return players; }
+    }
+
+    /**
+     * 解码后的玩家记录
+     */
+    public static class DecodedPlayer {
+        private int chips;
+        private int currentBet;
+        private int flags;
+        private Player.PlayerAction lastAction;
+        private final List<Card> holeCards = new ArrayList<>(2);
+
+        public int getChips() { return chips; }
+        public int getCurrentBet() { return currentBet; }
+        public boolean isInGame() { return (flags & 1) != 0; }
+        public boolean isAi() { return (flags & 1 << 1) != 0; }
+        public boolean isHasFolded() { return (flags & 1 << 2) != 0; }
+        public boolean isAllIn() { return (flags & 1 << 3) != 0; }
+        public boolean isDealer() { return (flags & 1 << 4) != 0; }
+        public boolean isSmallBlind() { return (flags & 1 << 5) != 0; }
+        public boolean isBigBlind() { return (flags & 1 << 6) != 0; }
+        public Player.PlayerAction getLastAction() { return lastAction; }
+        public List<Card> getHoleCards() { return holeCards; }
+    }
+
+    public static DecodedState decodeState(ByteBuffer in) {
+        if (in.get() != TYPE_STATE) {
+            throw new IllegalArgumentException("不是状态消息");
+        }
+        DecodedState state = new DecodedState();
+        state.version = in.getLong();
+        state.pot = in.getInt();
+        state.currentBetAmount = in.getInt();
+        state.currentPhase = GameService.GamePhase.values()[in.get()].name();
+        state.currentSeat = seatOf(in.get());
+        state.autoGameRunning = (in.get() & 1) != 0;
+        state.selfSeat = seatOf(in.get());
+        state.outs = in.get() & 0xFF;
+        state.completionProbability = (in.getShort() & 0xFFFF) / 1000.0;
+        int boardCount = in.get();
+        for (int i = 0; i < MAX_BOARD; i++) {
+            byte card = in.get();
+            if (i < boardCount) {
+                state.communityCards.add(Card.fromIndex(card));
+            }
+        }
+        int playerCount = in.get();
+        for (int i = 0; i < playerCount; i++) {
+            DecodedPlayer player = new DecodedPlayer();
+            player.chips = in.getInt();
+            player.currentBet = in.getInt();
+            player.flags = in.get();
+            int opcode = in.get();
+            player.lastAction = opcode > 0 ? Player.PlayerAction.values()[opcode - 1] : null;
+            for (int c = 0; c < 2; c++) {
+                byte card = in.get();
+                if (card != NONE) {
+                    player.holeCards.add(Card.fromIndex(card));
+                }
+            }
+            state.players.add(player);
+        }
+        return state;
+    }
+
+    public static byte cardByte(Card card) {
+        return (byte) card.toIndex();
+    }
+
+    private static byte actionOpcode(Player.PlayerAction action) {
+        return action == null ? 0 : (byte) (action.ordinal() + 1);
+    }
+
+    private static byte playerFlags(Player player) {
+        int flags = (player.isInGame() ? 1 : 0)
+                | (player.isAi() ? 1 << 1 : 0)
+                | (player.isHasFolded() ? 1 << 2 : 0)
+                | (player.isAllIn() ? 1 << 3 : 0)
+                | (player.isDealer() ? 1 << 4 : 0)
+                | (player.isSmallBlind() ? 1 << 5 : 0)
+                | (player.isBigBlind() ? 1 << 6 : 0);
+        return (byte) flags;
+    }
+
+    private static byte seatByte(int seat) {
+        return seat < 0 ? NONE : (byte) seat;
+    }
+
+    private static int seatOf(byte value) {
+        return value == NONE ? -1 : value & 0xFF;
+    }
+
+    private static void putShortString(ByteBuffer out, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 255);
+        out.put((byte) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getShortString(ByteBuffer in) {
+        byte[] bytes = new byte[in.get() & 0xFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
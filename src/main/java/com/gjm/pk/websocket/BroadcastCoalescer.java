@@ -0,0 +1,117 @@
+package com.gjm.pk.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * 单张桌的状态广播合并
+ * 状态变化只标记为待发送，每个间隔最多执行一次广播；轮到人类玩家行动等延迟敏感的事件可立即广播。
+ * 导出请求次数、实际广播次数与发出的状态消息数
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+public class BroadcastCoalescer {
+
+    private final long tickMillis;
+    private final ScheduledExecutorService scheduler;
+    /** 执行一次广播，返回发出的状态消息数 */
+    private final IntSupplier flush;
+
+    /** 已安排的合并广播（由 this 的锁保护） */
+    private ScheduledFuture<?> pending;
+
+    private final Counter requestedCounter;
+    private final Counter flushedCounter;
+    private final Counter framesCounter;
+
+    /**
+     * @param tickMillis 合并间隔，0 表示每次请求都立即广播
+     * @param meterRegistry 可为null
+     */
+    public BroadcastCoalescer(String tableId, long tickMillis, ScheduledExecutorService scheduler,
+                              IntSupplier flush, MeterRegistry meterRegistry) {
+        this.tickMillis = tickMillis;
+        this.scheduler = scheduler;
+        this.flush = flush;
+        if (meterRegistry != null) {
+            requestedCounter = Counter.builder("poker.websocket.broadcast.requested")
+                    .description("请求广播的状态变化次数")
+                    .tag("table", tableId)
+                    .register(meterRegistry);
+            flushedCounter = Counter.builder("poker.websocket.broadcast.flushed")
+                    .description("合并后实际执行的广播次数")
+                    .tag("table", tableId)
+                    .register(meterRegistry);
+            framesCounter = Counter.builder("poker.websocket.broadcast.frames")
+                    .description("广播发出的状态消息数")
+                    .tag("table", tableId)
+                    .register(meterRegistry);
+        } else {
+            requestedCounter = null;
+            flushedCounter = null;
+            framesCounter = null;
+        }
+    }
+
+    /**
+     * 标记状态已变化，在本间隔结束时广播
+     */
+    public void request() {
+        increment(requestedCounter, 1);
+        if (tickMillis <= 0) {
+            flush();
+            return;
+        }
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = scheduler.schedule(this::flushScheduled, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 立即广播，并取消已安排的合并广播
+     */
+    public void flushNow() {
+        increment(requestedCounter, 1);
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+        flush();
+    }
+
+    private void flushScheduled() {
+        synchronized (this) {
+            pending = null;
+        }
+        flush();
+    }
+
+    private void flush() {
+        try {
+            int frames = flush.getAsInt();
+            increment(flushedCounter, 1);
+            increment(framesCounter, frames);
+        } catch (Exception e) {
+            log.error("广播游戏状态失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void increment(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+}
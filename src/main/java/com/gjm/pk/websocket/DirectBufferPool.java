@@ -0,0 +1,53 @@
+package com.gjm.pk.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 定长直接缓冲区池
+ * 二进制消息编码进池中的直接缓冲区，发送完成后归还，避免每条消息分配堆外内存；
+ * 池空时临时分配，池满时归还的缓冲区直接丢弃
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> pool;
+
+    public DirectBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * 取出一个已清空的缓冲区
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize) {
+            pool.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 池中空闲的缓冲区数
+     */
+    public int getPooledCount() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.gjm.pk.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gjm.pk.websocket.dto.ClientRequest;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.WsMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * WebSocket消息的JSON读写
+ * 按类型预先绑定 ObjectWriter/ObjectReader，避免每条消息重新查找序列化器
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class GameMessageJson {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter messageWriter;
+    private final ObjectWriter privateStateWriter;
+    private final ObjectReader requestReader;
+
+    public GameMessageJson(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.messageWriter = objectMapper.writerFor(WsMessage.class);
+        this.privateStateWriter = objectMapper.writerFor(PrivateGameState.class);
+        this.requestReader = objectMapper.readerFor(ClientRequest.class);
+    }
+
+    public String writeMessage(WsMessage message) throws IOException {
+        return messageWriter.writeValueAsString(message);
+    }
+
+    public byte[] writePrivateState(PrivateGameState privateState) {
+        try {
+            return privateStateWriter.writeValueAsBytes(privateState);
+        } catch (IOException e) {
+            throw new UncheckedIOException("私有状态编码失败", e);
+        }
+    }
+
+    public ClientRequest readRequest(String payload) throws IOException {
+        return requestReader.readValue(payload);
+    }
+
+    /**
+     * 流式写出的生成器，可用 writeObject 写任意值
+     */
+    JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out);
+    }
+}
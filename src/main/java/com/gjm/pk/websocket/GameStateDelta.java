@@ -0,0 +1,101 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.websocket.dto.CardView;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PublicGameState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 游戏状态增量计算
+ * 比较前后两个公共状态，只输出变化的部分：
+ * 顶层字段变化直接给出新值；
+ * 公共牌只追加时给出 communityCardsAdded，否则给出完整列表；
+ * 玩家座位不变时按玩家ID给出 playerChanges（只含变化字段），座位变化时给出完整 players 列表；
+ * 当前行动玩家只给出 currentPlayerId，客户端从玩家列表中取对应条目
+ *
+ * @author: guojianming
+ * @date: 2025/10/13
+ */
+public final class GameStateDelta {
+
+    private GameStateDelta() {
+    }
+
+    /**
+     * 计算增量，状态没有变化时返回空Map
+     */
+    public static Map<String, Object> diff(PublicGameState previous, PublicGameState current) {
+        Map<String, Object> delta = new HashMap<>();
+        if (previous.getGameId() != current.getGameId()) {
+            delta.put("gameId", current.getGameId());
+        }
+        if (previous.getPot() != current.getPot()) {
+            delta.put("pot", current.getPot());
+        }
+        if (previous.getCurrentBetAmount() != current.getCurrentBetAmount()) {
+            delta.put("currentBetAmount", current.getCurrentBetAmount());
+        }
+        if (!Objects.equals(previous.getCurrentPhase(), current.getCurrentPhase())) {
+            delta.put("currentPhase", current.getCurrentPhase());
+        }
+        if (previous.isAutoGameRunning() != current.isAutoGameRunning()) {
+            delta.put("isAutoGameRunning", current.isAutoGameRunning());
+        }
+        String previousCurrentId = idOf(previous.getCurrentPlayer());
+        String currentId = idOf(current.getCurrentPlayer());
+        if (!Objects.equals(previousCurrentId, currentId)) {
+            delta.put("currentPlayerId", currentId);
+        }
+
+        List<CardView> previousCards = previous.getCommunityCards();
+        List<CardView> currentCards = current.getCommunityCards();
+        if (!previousCards.equals(currentCards)) {
+            if (currentCards.size() > previousCards.size()
+                    && currentCards.subList(0, previousCards.size()).equals(previousCards)) {
+                delta.put("communityCardsAdded",
+                        new ArrayList<>(currentCards.subList(previousCards.size(), currentCards.size())));
+            } else {
+                delta.put("communityCards", currentCards);
+            }
+        }
+
+        List<PlayerView> previousPlayers = previous.getPlayers();
+        List<PlayerView> currentPlayers = current.getPlayers();
+        if (!previousPlayers.equals(currentPlayers)) {
+            if (sameSeating(previousPlayers, currentPlayers)) {
+                Map<String, Object> playerChanges = new HashMap<>();
+                for (int i = 0; i < currentPlayers.size(); i++) {
+                    Map<String, Object> changes = currentPlayers.get(i).diff(previousPlayers.get(i));
+                    if (!changes.isEmpty()) {
+                        playerChanges.put(currentPlayers.get(i).getId(), changes);
+                    }
+                }
+                delta.put("playerChanges", playerChanges);
+            } else {
+                delta.put("players", currentPlayers);
+            }
+        }
+        return delta;
+    }
+
+    private static String idOf(PlayerView player) {
+        return player != null ? player.getId() : null;
+    }
+
+    private static boolean sameSeating(List<PlayerView> previous, List<PlayerView> current) {
+        if (previous.size() != current.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (!Objects.equals(previous.get(i).getId(), current.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
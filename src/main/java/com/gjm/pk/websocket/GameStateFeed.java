@@ -0,0 +1,344 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.monitor.GameMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 面向 HTTP 客户端（机器人、看板）的游戏状态推送
+ * 每个版本发布时保存 GameStateFrames 已编码好的公共快照（与观战者收到的字节相同），
+ * 长轮询请求（DeferredResult）在版本前进时直接以这份字节完成，SSE 订阅者由推送线程池按版本顺序写出。
+ * 两者都是异步 Servlet 请求，等待期间不占用线程，也不再为每次轮询重新构建状态、复制玩家列表。
+ * 每个 SSE 订阅者只保留一份待发的最新快照（推送的是完整快照，跳过中间版本不丢信息），同一时刻最多占用一个推送线程；
+ * 单次写出超过 SSE_SEND_TIME_LIMIT_MILLIS 的订阅者被移除，慢客户端不会拖慢其他订阅者。
+ * 版本对外以 VersionedStateViews 的 "<启动标识>-<版本号>" 表示，服务重启后客户端带回的旧标识会得到当前快照
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+@Component
+public class GameStateFeed {
+
+    /** 长轮询最长等待时间，超时返回204，客户端以同一版本重新请求 */
+    public static final long LONG_POLL_TIMEOUT_MILLIS = 30000;
+    /** SSE 连接的最长存活时间，到期后客户端带 Last-Event-ID 自动重连 */
+    public static final long SSE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    public static final String VERSION_HEADER = "X-State-Version";
+    /** SSE 推送线程数 */
+    private static final int PUSH_THREADS = 4;
+    /** 单个 SSE 事件的写出时限，超过时移除该订阅者 */
+    public static final long SSE_SEND_TIME_LIMIT_MILLIS = 10000;
+
+    /**
+     * 某一版本的公共快照（不可变）
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final byte[] body;
+
+        Snapshot(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 等待版本前进的长轮询请求
+     */
+    private static final class Waiter {
+        private final long sinceVersion;
+        private final DeferredResult<ResponseEntity<byte[]>> result;
+
+        Waiter(long sinceVersion, DeferredResult<ResponseEntity<byte[]>> result) {
+            this.sinceVersion = sinceVersion;
+            this.result = result;
+        }
+    }
+
+    /**
+     * SSE 订阅者
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        /** 已发出的最新版本（只由当前排空该订阅者的推送线程访问） */
+        private long sentVersion;
+        /** 待发的最新快照、是否有推送线程在排空、是否已移除（由 this 的锁保护） */
+        private Snapshot pending;
+        private boolean draining;
+        private boolean removed;
+        /** 正在进行的写出的开始时间（System.nanoTime），0 表示没有写出中的事件 */
+        private volatile long sendStartedNanos;
+
+        Subscriber(SseEmitter emitter, long sentVersion) {
+            this.emitter = emitter;
+            this.sentVersion = sentVersion;
+        }
+    }
+
+    /**
+     * 单张桌的最新快照、长轮询等待者与 SSE 订阅者
+     */
+    private static final class TableFeed {
+        /** 最新快照与等待者（由 this 的锁保护） */
+        private Snapshot latest;
+        private final Set<Waiter> waiters = new LinkedHashSet<>();
+        /** SSE 订阅者 */
+        private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    }
+
+    private final Map<String, TableFeed> tables = new ConcurrentHashMap<>();
+    private final VersionedStateViews stateViews;
+    /** 推送线程池：SSE 写出不占用广播线程；同一订阅者同一时刻只由一个线程排空，事件严格按版本顺序 */
+    private final ExecutorService pushExecutor = Executors.newFixedThreadPool(PUSH_THREADS, daemonThreadFactory("http-state-push-"));
+    private final ScheduledExecutorService sendWatchdog =
+            Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("http-state-watchdog-"));
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public GameStateFeed(GameMetrics gameMetrics, VersionedStateViews stateViews) {
+        this.stateViews = stateViews;
+        gameMetrics.gauge("poker.http.state.waiters", "等待版本前进的长轮询请求数", waiterCount, AtomicInteger::get);
+        gameMetrics.gauge("poker.http.state.subscribers", "SSE 状态订阅数", subscriberCount, AtomicInteger::get);
+        long period = SSE_SEND_TIME_LIMIT_MILLIS / 4;
+        sendWatchdog.scheduleWithFixedDelay(this::removeStalledSubscribers, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发布新版本：完成所有已落后的长轮询，并把快照交给各 SSE 订阅者（调用方持有发布锁，这里不做 I/O）
+     */
+    public void publish(String tableId, GameStateFrames frames) {
+        TableFeed feed = table(tableId);
+        Snapshot snapshot = new Snapshot(frames.getVersion(), frames.snapshotFor(null, null));
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (feed) {
+            feed.latest = snapshot;
+            for (Iterator<Waiter> it = feed.waiters.iterator(); it.hasNext(); ) {
+                Waiter waiter = it.next();
+                if (waiter.sinceVersion < snapshot.version) {
+                    ready.add(waiter);
+                    it.remove();
+                }
+            }
+        }
+        for (Waiter waiter : ready) {
+            waiterCount.decrementAndGet();
+            waiter.result.setResult(ok(snapshot));
+        }
+        for (Subscriber subscriber : feed.subscribers.values()) {
+            offer(feed, subscriber, snapshot);
+        }
+    }
+
+    /**
+     * 长轮询：当前版本已超过 sinceToken 时立即返回，否则等到下一个版本或超时
+     *
+     * @param sinceToken 客户端上次收到的 X-State-Version；不是本次启动发出的标识时视为从未收到过状态
+     */
+    public DeferredResult<ResponseEntity<byte[]>> awaitVersion(String tableId, String sinceToken) {
+        long sinceVersion = stateViews.parseToken(sinceToken);
+        DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(LONG_POLL_TIMEOUT_MILLIS);
+        TableFeed feed = table(tableId);
+        Snapshot current;
+        Waiter waiter = new Waiter(sinceVersion, result);
+        synchronized (feed) {
+            current = feed.latest;
+            if (current == null || current.version <= sinceVersion) {
+                feed.waiters.add(waiter);
+                waiterCount.incrementAndGet();
+            }
+        }
+        if (current != null && current.version > sinceVersion) {
+            result.setResult(ok(current));
+            return result;
+        }
+        result.onTimeout(() -> {
+            Snapshot latest = removeWaiter(feed, waiter);
+            result.setResult(ResponseEntity.status(HttpStatus.NO_CONTENT)
+                    .header(VERSION_HEADER, latest != null ? stateViews.token(latest.version) : sinceToken)
+                    .build());
+        });
+        result.onError(error -> removeWaiter(feed, waiter));
+        return result;
+    }
+
+    /**
+     * SSE 订阅：先推送当前快照（Last-Event-ID 已是本次启动的最新版本时跳过），之后每个版本推送一次
+     */
+    public SseEmitter subscribe(String tableId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MILLIS);
+        TableFeed feed = table(tableId);
+        Subscriber subscriber = new Subscriber(emitter, stateViews.parseToken(lastEventId));
+        Runnable unsubscribe = () -> remove(feed, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        feed.subscribers.put(emitter, subscriber);
+        subscriberCount.incrementAndGet();
+        Snapshot latest;
+        synchronized (feed) {
+            latest = feed.latest;
+        }
+        if (latest != null) {
+            offer(feed, subscriber, latest);
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendWatchdog.shutdownNow();
+        pushExecutor.shutdownNow();
+    }
+
+    private TableFeed table(String tableId) {
+        return tables.computeIfAbsent(tableId, key -> new TableFeed());
+    }
+
+    private Snapshot removeWaiter(TableFeed feed, Waiter waiter) {
+        synchronized (feed) {
+            if (feed.waiters.remove(waiter)) {
+                waiterCount.decrementAndGet();
+            }
+            return feed.latest;
+        }
+    }
+
+    /**
+     * 把快照放入订阅者的待发槽（只保留最新一份），没有推送线程在排空该订阅者时提交一个
+     */
+    private void offer(TableFeed feed, Subscriber subscriber, Snapshot snapshot) {
+        synchronized (subscriber) {
+            if (subscriber.removed) {
+                return;
+            }
+            if (subscriber.pending == null || subscriber.pending.version < snapshot.version) {
+                subscriber.pending = snapshot;
+            }
+            if (subscriber.draining) {
+                return;
+            }
+            subscriber.draining = true;
+        }
+        try {
+            pushExecutor.execute(() -> drain(feed, subscriber));
+        } catch (RejectedExecutionException e) {
+            synchronized (subscriber) {
+                subscriber.draining = false;
+            }
+            log.warn("状态推送线程已关闭");
+        }
+    }
+
+    /**
+     * 在推送线程上执行：依次写出待发快照直到槽为空
+     */
+    private void drain(TableFeed feed, Subscriber subscriber) {
+        while (true) {
+            Snapshot next;
+            synchronized (subscriber) {
+                next = subscriber.pending;
+                subscriber.pending = null;
+                if (next == null || subscriber.removed) {
+                    subscriber.draining = false;
+                    return;
+                }
+            }
+            send(feed, subscriber, next);
+        }
+    }
+
+    /**
+     * 只发比订阅者已收到的更新的版本，写出失败时移除订阅
+     */
+    private void send(TableFeed feed, Subscriber subscriber, Snapshot snapshot) {
+        if (snapshot.version <= subscriber.sentVersion) {
+            return;
+        }
+        subscriber.sendStartedNanos = System.nanoTime();
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(stateViews.token(snapshot.version))
+                    .name("gameState")
+                    .data(snapshot.body, MediaType.APPLICATION_JSON));
+            subscriber.sentVersion = snapshot.version;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE 订阅已断开: {}", e.getMessage());
+            remove(feed, subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sendStartedNanos = 0;
+        }
+    }
+
+    /**
+     * 移除写出超时的订阅者，不再为其排队快照；卡住的写出由容器的写超时结束，期间只占用一个推送线程
+     */
+    private void removeStalledSubscribers() {
+        long now = System.nanoTime();
+        for (TableFeed feed : tables.values()) {
+            for (Subscriber subscriber : feed.subscribers.values()) {
+                long started = subscriber.sendStartedNanos;
+                if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(SSE_SEND_TIME_LIMIT_MILLIS)
+                        && remove(feed, subscriber)) {
+                    log.warn("SSE 订阅者写出超过 {} ms，已移除", SSE_SEND_TIME_LIMIT_MILLIS);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 本次调用是否移除了该订阅者
+     */
+    private boolean remove(TableFeed feed, Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.removed = true;
+            subscriber.pending = null;
+        }
+        if (feed.subscribers.remove(subscriber.emitter, subscriber)) {
+            subscriberCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private ResponseEntity<byte[]> ok(Snapshot snapshot) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(VERSION_HEADER, stateViews.token(snapshot.version))
+                .body(snapshot.body);
+    }
+}
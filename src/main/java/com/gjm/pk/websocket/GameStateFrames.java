@@ -0,0 +1,231 @@
+package com.gjm.pk.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.PublicGameState;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 某一版本游戏状态的预编码消息
+ * 公共部分每个版本只用 Jackson 流式编码一次：快照记录每个玩家条目结束前的字节偏移，
+ * 发给某个玩家时把其私有字段（手牌、听牌提示）拼接到对应偏移处；增量消息的公共部分预编码为前缀，
+ * 需要时在末尾追加 self 字段。没有私有状态的连接（观战者）直接共享同一份字节；
+ * TextMessage 构造时会把字节解码成字符串，共享的快照与增量因此各只包装一次，所有连接发送同一个消息对象。
+ * 公共条目已亮出手牌（摊牌、全下发牌）的玩家，拼接时不再重复写 holeCards
+ *
+ * @author: guojianming
+ * @date: 2025/10/13
+ */
+public final class GameStateFrames {
+
+    private static final byte[] SELF_FIELD = ",\"self\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLOSE_DATA_AND_MESSAGE = "}}".getBytes(StandardCharsets.UTF_8);
+
+    private final GameMessageJson json;
+    private final long version;
+    private final byte[] snapshot;
+    private final Map<String, Integer> privateInsertOffsets;
+    /** 公共条目中已包含手牌的玩家 */
+    private final Set<String> revealedPlayers;
+    /** 增量消息（baseVersion = version - 1）的公共前缀，首个版本没有增量时为null */
+    private final byte[] deltaPrefix;
+    private final byte[] sharedDelta;
+    private final TextMessage snapshotMessage;
+    private final TextMessage sharedDeltaMessage;
+    /** 公共状态未变、只有私有状态变化时的增量前缀（baseVersion = version） */
+    private final byte[] selfOnlyPrefix;
+
+    private GameStateFrames(GameMessageJson json, long version, byte[] snapshot,
+                            Map<String, Integer> privateInsertOffsets, Set<String> revealedPlayers,
+                            byte[] deltaPrefix, byte[] selfOnlyPrefix) {
+        this.json = json;
+        this.version = version;
+        this.snapshot = snapshot;
+        this.privateInsertOffsets = privateInsertOffsets;
+        this.revealedPlayers = revealedPlayers;
+        this.deltaPrefix = deltaPrefix;
+        this.sharedDelta = deltaPrefix != null ? concat(deltaPrefix, CLOSE_DATA_AND_MESSAGE) : null;
+        this.snapshotMessage = new TextMessage(snapshot);
+        this.sharedDeltaMessage = sharedDelta != null ? new TextMessage(sharedDelta) : null;
+        this.selfOnlyPrefix = selfOnlyPrefix;
+    }
+
+    /**
+     * 编码某一版本的公共状态
+     *
+     * @param publicState 公共状态
+     * @param delta 相对上一版本的增量，没有时为null
+     */
+    public static GameStateFrames encode(GameMessageJson json, long version,
+                                         PublicGameState publicState, Map<String, Object> delta) {
+        long timestamp = System.currentTimeMillis();
+        try {
+            Map<String, Integer> offsets = new HashMap<>();
+            Set<String> revealed = new HashSet<>();
+            byte[] snapshot = encodeSnapshot(json, version, publicState, timestamp, offsets, revealed);
+            byte[] deltaPrefix = delta != null
+                    ? encodeDeltaPrefix(json, version - 1, version, delta, timestamp) : null;
+            byte[] selfOnlyPrefix = encodeDeltaPrefix(json, version, version,
+                    Collections.<String, Object>emptyMap(), timestamp);
+            return new GameStateFrames(json, version, snapshot, offsets, revealed, deltaPrefix, selfOnlyPrefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException("游戏状态编码失败", e);
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean hasDelta() {
+        return deltaPrefix != null;
+    }
+
+    /**
+     * 完整快照；私有状态非空时拼接进该玩家的条目
+     */
+    public byte[] snapshotFor(String playerId, PrivateGameState privateState) {
+        Integer offset = playerId != null ? privateInsertOffsets.get(playerId) : null;
+        if (offset == null || privateState == null) {
+            return snapshot;
+        }
+        if (privateState.getHoleCards() != null && revealedPlayers.contains(playerId)) {
+            privateState = new PrivateGameState(null, privateState.getDraws(), privateState.getLegalActions());
+        }
+        byte[] fields = json.writePrivateState(privateState);
+        // {"a":1,"b":2} -> ,"a":1,"b":2
+        int fieldsLength = fields.length - 2;
+        if (fieldsLength <= 0) {
+            return snapshot;
+        }
+        byte[] message = new byte[snapshot.length + fieldsLength + 1];
+        System.arraycopy(snapshot, 0, message, 0, offset);
+        message[offset] = ',';
+        System.arraycopy(fields, 1, message, offset + 1, fieldsLength);
+        System.arraycopy(snapshot, offset, message, offset + 1 + fieldsLength, snapshot.length - offset);
+        return message;
+    }
+
+    /**
+     * 发给连接的快照消息；不需要拼接私有字段时返回本版本共享的同一条消息
+     */
+    public TextMessage snapshotMessageFor(String playerId, PrivateGameState privateState) {
+        byte[] payload = snapshotFor(playerId, privateState);
+        return payload == snapshot ? snapshotMessage : new TextMessage(payload);
+    }
+
+    /**
+     * 相对上一版本的增量；self 为null时返回所有连接共享的同一份字节
+     */
+    public byte[] deltaFor(PrivateGameState self) {
+        if (deltaPrefix == null) {
+            throw new IllegalStateException("版本 " + version + " 没有增量");
+        }
+        return self == null ? sharedDelta : withSelf(deltaPrefix, self);
+    }
+
+    /**
+     * 增量消息；self 为null时返回本版本共享的同一条消息
+     */
+    public TextMessage deltaMessageFor(PrivateGameState self) {
+        byte[] payload = deltaFor(self);
+        return payload == sharedDelta ? sharedDeltaMessage : new TextMessage(payload);
+    }
+
+    /**
+     * 公共状态未变时只携带私有状态的增量
+     */
+    public byte[] selfOnlyDelta(PrivateGameState self) {
+        return withSelf(selfOnlyPrefix, self);
+    }
+
+    public TextMessage selfOnlyDeltaMessage(PrivateGameState self) {
+        return new TextMessage(selfOnlyDelta(self));
+    }
+
+    private byte[] withSelf(byte[] prefix, PrivateGameState self) {
+        return concat(prefix, SELF_FIELD, json.writePrivateState(self), CLOSE_DATA_AND_MESSAGE);
+    }
+
+    private static byte[] encodeSnapshot(GameMessageJson json, long version, PublicGameState publicState,
+                                         long timestamp, Map<String, Integer> offsets,
+                                         Set<String> revealed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+        JsonGenerator generator = json.createGenerator(out);
+        generator.writeStartObject();
+        generator.writeStringField("type", "gameState");
+        generator.writeStringField("message", "游戏状态更新");
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeObjectFieldStart("data");
+        generator.writeNumberField("gameId", publicState.getGameId());
+        generator.writeNumberField("pot", publicState.getPot());
+        generator.writeNumberField("currentBetAmount", publicState.getCurrentBetAmount());
+        generator.writeStringField("currentPhase", publicState.getCurrentPhase());
+        generator.writeObjectField("communityCards", publicState.getCommunityCards());
+        if (publicState.getCurrentPlayer() != null) {
+            generator.writeObjectField("currentPlayer", publicState.getCurrentPlayer());
+        }
+        generator.writeBooleanField("isAutoGameRunning", publicState.isAutoGameRunning());
+        generator.writeArrayFieldStart("players");
+        for (PlayerView player : publicState.getPlayers()) {
+            generator.writeObject(player);
+            generator.flush();
+            // 私有字段插在该玩家条目的 '}' 之前
+            offsets.put(player.getId(), out.size() - 1);
+            if (player.getHoleCards() != null) {
+                revealed.add(player.getId());
+            }
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("version", version);
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 增量消息去掉最后的 "}}"，以便追加 self 字段
+     */
+    private static byte[] encodeDeltaPrefix(GameMessageJson json, long baseVersion, long version,
+                                            Map<String, Object> delta, long timestamp) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        JsonGenerator generator = json.createGenerator(out);
+        generator.writeStartObject();
+        generator.writeStringField("type", "gameDelta");
+        generator.writeNumberField("timestamp", timestamp);
+        generator.writeObjectFieldStart("data");
+        for (Map.Entry<String, Object> entry : delta.entrySet()) {
+            generator.writeObjectField(entry.getKey(), entry.getValue());
+        }
+        generator.writeNumberField("baseVersion", baseVersion);
+        generator.writeNumberField("version", version);
+        generator.flush();
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+}
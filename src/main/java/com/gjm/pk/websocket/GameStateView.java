@@ -0,0 +1,94 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.service.LegalActions;
+import com.gjm.pk.websocket.dto.DrawHint;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.PublicGameState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 游戏状态视图
+ * 把牌桌状态转换为推送给客户端的结构：所有连接共享的公共状态，以及只发给本人的私有状态（手牌与听牌提示）
+ *
+ * @author: guojianming
+ * @date: 2025/10/13
+ */
+public final class GameStateView {
+
+    private GameStateView() {
+    }
+
+    /**
+     * 公共状态，手牌只在摊牌阶段公开
+     */
+    public static PublicGameState publicState(List<Player> players, List<Card> communityCards, int pot,
+                                              int currentBetAmount, String currentPhase, Player currentPlayer,
+                                              boolean autoGameRunning) {
+        return publicState(0, players, communityCards, pot, currentBetAmount, currentPhase, currentPlayer,
+                autoGameRunning, null);
+    }
+
+    /**
+     * 公共状态；全下摊牌中（runoutEquity 不为null）局中玩家亮出手牌并附带本街胜率
+     *
+     * @param gameId 牌局ID
+     * @param runoutEquity 玩家ID -> 胜率，不在全下摊牌时为null
+     */
+    public static PublicGameState publicState(long gameId, List<Player> players, List<Card> communityCards, int pot,
+                                              int currentBetAmount, String currentPhase, Player currentPlayer,
+                                              boolean autoGameRunning, Map<String, Double> runoutEquity) {
+        boolean showdown = "SHOWDOWN".equals(currentPhase);
+        List<PlayerView> playerViews = new ArrayList<>(players.size());
+        for (Player player : players) {
+            Double equity = runoutEquity != null ? runoutEquity.get(player.getId()) : null;
+            playerViews.add(PlayerView.of(player, showdown || equity != null, equity));
+        }
+        return new PublicGameState(gameId, pot, currentBetAmount, currentPhase, PlayerView.cards(communityCards),
+                Collections.unmodifiableList(playerViews),
+                currentPlayer != null ? PlayerView.of(currentPlayer, false) : null, autoGameRunning);
+    }
+
+    /**
+     * 私有状态：手牌，人类玩家在翻牌与转牌圈另有听牌提示
+     *
+     * @param analyzer 听牌分析器，为null时不生成听牌提示
+     */
+    public static PrivateGameState privateState(Player player, List<Card> communityCards,
+                                                BoardTextureAnalyzer analyzer) {
+        return privateState(player, communityCards, analyzer, null);
+    }
+
+    /**
+     * 私有状态；轮到该玩家行动时附带本回合的合法行动
+     *
+     * @param legalActions 当前行动玩家的合法行动，属于其他玩家时忽略
+     */
+    public static PrivateGameState privateState(Player player, List<Card> communityCards,
+                                                BoardTextureAnalyzer analyzer, LegalActions legalActions) {
+        DrawHint draws = null;
+        if (analyzer != null && !player.isAi() && !player.isHasFolded()) {
+            draws = drawHint(player, communityCards, analyzer);
+        }
+        LegalActions own = legalActions != null && legalActions.getPlayerId().equals(player.getId())
+                ? legalActions : null;
+        return new PrivateGameState(PlayerView.cards(player.getHoleCards()), draws, own);
+    }
+
+    /**
+     * 翻牌与转牌圈的听牌提示，其余阶段返回null
+     */
+    private static DrawHint drawHint(Player player, List<Card> board, BoardTextureAnalyzer analyzer) {
+        if (board.size() < 3 || board.size() >= 5 || player.getHoleCards().size() < 2) {
+            return null;
+        }
+        return DrawHint.of(analyzer.analyzeDraws(player.getHoleCards(), board));
+    }
+}
@@ -0,0 +1,253 @@
+package com.gjm.pk.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个连接的有界发送队列
+ * 入队不阻塞调用线程；同一时刻最多一个发送任务在共享线程池上按顺序排空队列，
+ * 因此同一连接不会被并发调用 sendMessage，慢客户端也不会拖住广播线程。
+ * 发送中的消息记录开始时间，由 SessionOutboundRegistry 对超时的连接强制断开，避免发送线程被卡死的客户端长期占用
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+@Slf4j
+public class SessionOutbound {
+
+    private static class Outgoing {
+        private final WebSocketMessage<?> message;
+        private final boolean state;
+        /** 消息发送或丢弃后的回调（归还池化缓冲区），可为null */
+        private final Runnable onDone;
+
+        Outgoing(WebSocketMessage<?> message, boolean state, Runnable onDone) {
+            this.message = message;
+            this.state = state;
+            this.onDone = onDone;
+        }
+
+        void done() {
+            if (onDone != null) {
+                onDone.run();
+            }
+        }
+    }
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final Executor executor;
+    private final Runnable onDrained;
+
+    private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+    /** 是否已有发送任务在运行（由 queue 的锁保护） */
+    private boolean draining;
+    /** 丢弃过状态消息、排空后需要补发快照（由 queue 的锁保护） */
+    private boolean stale;
+    /** 已关闭：不再接收消息（由 queue 的锁保护） */
+    private boolean closed;
+    /** 正在进行的 sendMessage 的开始时间（System.nanoTime），0 表示没有发送中的消息 */
+    private volatile long sendStartedNanos;
+
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * @param onDrained 标记为过期的连接在队列排空后的回调（用于补发快照）
+     */
+    public SessionOutbound(WebSocketSession session, int capacity, Executor executor, Runnable onDrained) {
+        this.session = session;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.onDrained = onDrained;
+    }
+
+    /**
+     * 队列已满
+     */
+    public boolean isCongested() {
+        synchronized (queue) {
+            return queue.size() >= capacity;
+        }
+    }
+
+    public int getDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * 入队一条消息
+     *
+     * @param state 是否为游戏状态消息（可被丢弃或合并），其他消息总是保留
+     * @return 超出硬上限（容量的2倍）时返回false，调用方应断开连接
+     */
+    public boolean enqueue(WebSocketMessage<?> message, boolean state) {
+        return enqueue(message, state, null);
+    }
+
+    /**
+     * 入队一条消息，消息发送或被丢弃后执行 onDone
+     */
+    public boolean enqueue(WebSocketMessage<?> message, boolean state, Runnable onDone) {
+        synchronized (queue) {
+            if (closed) {
+                runQuietly(onDone);
+                return true;
+            }
+            if (queue.size() >= capacity * 2) {
+                droppedMessages.incrementAndGet();
+                runQuietly(onDone);
+                return false;
+            }
+            queue.addLast(new Outgoing(message, state, onDone));
+            scheduleDrainLocked();
+        }
+        return true;
+    }
+
+    /**
+     * 丢弃排队中的状态消息并放入一条最新快照
+     *
+     * @return 被丢弃的消息数
+     */
+    public int replaceStates(WebSocketMessage<?> latestSnapshot) {
+        return replaceStates(latestSnapshot, null);
+    }
+
+    public int replaceStates(WebSocketMessage<?> latestSnapshot, Runnable onDone) {
+        int dropped = 0;
+        synchronized (queue) {
+            if (closed) {
+                runQuietly(onDone);
+                return 0;
+            }
+            for (Iterator<Outgoing> it = queue.iterator(); it.hasNext(); ) {
+                Outgoing outgoing = it.next();
+                if (outgoing.state) {
+                    it.remove();
+                    outgoing.done();
+                    dropped++;
+                }
+            }
+            queue.addLast(new Outgoing(latestSnapshot, true, onDone));
+            scheduleDrainLocked();
+        }
+        droppedMessages.addAndGet(dropped);
+        return dropped;
+    }
+
+    /**
+     * 丢弃一条未入队的状态消息，并标记排空后需要补发快照
+     */
+    public void dropState() {
+        droppedMessages.incrementAndGet();
+        boolean idle;
+        synchronized (queue) {
+            idle = !draining;
+            stale = !idle;
+        }
+        if (idle) {
+            onDrained.run();
+        }
+    }
+
+    /**
+     * 当前消息已发送的时长（毫秒），没有发送中的消息时返回0
+     */
+    public long getSendingMillis() {
+        long started = sendStartedNanos;
+        return started == 0 ? 0 : (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * 关闭发送队列：丢弃排队中的消息并执行它们的回调（归还池化缓冲区），之后入队的消息直接丢弃
+     * 正在发送的消息由发送线程在结束后自行回调
+     *
+     * @return 被丢弃的消息数
+     */
+    public int close() {
+        ArrayDeque<Outgoing> pending;
+        synchronized (queue) {
+            closed = true;
+            stale = false;
+            pending = new ArrayDeque<>(queue);
+            queue.clear();
+        }
+        for (Outgoing outgoing : pending) {
+            outgoing.done();
+        }
+        droppedMessages.addAndGet(pending.size());
+        return pending.size();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    private void scheduleDrainLocked() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining = false;
+            log.warn("发送线程池已关闭，session {} 的消息未发送", session.getId());
+        }
+    }
+
+    private static void runQuietly(Runnable onDone) {
+        if (onDone != null) {
+            onDone.run();
+        }
+    }
+
+    private void drain() {
+        boolean resync;
+        while (true) {
+            Outgoing next;
+            synchronized (queue) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    resync = stale;
+                    stale = false;
+                    break;
+                }
+            }
+            try {
+                if (session.isOpen()) {
+                    sendStartedNanos = System.nanoTime();
+                    session.sendMessage(next.message);
+                    sentMessages.incrementAndGet();
+                }
+            } catch (Exception e) {
+                log.error("发送消息到 session {} 失败: {}", session.getId(), e.getMessage());
+            } finally {
+                sendStartedNanos = 0;
+                next.done();
+            }
+        }
+        if (resync && session.isOpen()) {
+            onDrained.run();
+        }
+    }
+}
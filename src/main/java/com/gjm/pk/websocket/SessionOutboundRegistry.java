@@ -0,0 +1,263 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.config.WebSocketOutboundProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 各连接发送队列的注册表
+ * 统一持有发送线程池、执行慢客户端策略，并导出队列深度与丢弃计数；
+ * 单条消息发送超过 sendTimeLimitMillis 的连接被视为卡死并断开，释放其占用的发送线程
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+@Slf4j
+@Component
+public class SessionOutboundRegistry {
+
+    /**
+     * 状态消息的投递结果
+     */
+    public enum StateDelivery {
+        /** 已入队 */
+        ENQUEUED,
+        /** 队列满，排队中的状态消息已合并为最新快照 */
+        COALESCED,
+        /** 队列满，本条消息被丢弃，排空后会补发快照 */
+        DROPPED,
+        /** 队列满，连接已断开 */
+        DISCONNECTED
+    }
+
+    private final WebSocketOutboundProperties properties;
+    private final Map<String, SessionOutbound> outbounds = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService sendWatchdog;
+
+    private Counter droppedCounter;
+    private Counter coalescedCounter;
+    private Counter disconnectedCounter;
+    private Counter timedOutCounter;
+
+    @Autowired
+    public SessionOutboundRegistry(WebSocketOutboundProperties properties,
+                                   ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()),
+                daemonThreadFactory("ws-sender-"));
+        this.sendWatchdog = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("ws-send-watchdog-"));
+        long sendTimeLimit = properties.getSendTimeLimitMillis();
+        if (sendTimeLimit > 0) {
+            long period = Math.max(100, sendTimeLimit / 4);
+            sendWatchdog.scheduleWithFixedDelay(this::closeStalledSessions, period, period, TimeUnit.MILLISECONDS);
+        }
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            registerMetrics(meterRegistry);
+        }
+    }
+
+    public SessionOutbound register(WebSocketSession session, Runnable onDrained) {
+        SessionOutbound outbound = new SessionOutbound(session, properties.getQueueCapacity(), senders, onDrained);
+        outbounds.put(session.getId(), outbound);
+        return outbound;
+    }
+
+    /**
+     * 连接关闭时移除发送队列，排队中的消息丢弃并归还其缓冲区
+     */
+    public void remove(String sessionId) {
+        SessionOutbound outbound = outbounds.remove(sessionId);
+        if (outbound != null) {
+            outbound.close();
+        }
+    }
+
+    /**
+     * 发送非状态消息（加入结果、错误等），只有超过硬上限时才断开连接
+     */
+    public void sendControl(WebSocketSession session, WebSocketMessage<?> message) {
+        SessionOutbound outbound = outbounds.get(session.getId());
+        if (outbound != null && !outbound.enqueue(message, false)) {
+            disconnect(outbound);
+        }
+    }
+
+    /**
+     * 发送状态消息，队列满时按配置的慢客户端策略处理
+     *
+     * @param snapshot 当前版本的完整快照（合并策略使用）
+     */
+    public StateDelivery sendState(String sessionId, WebSocketMessage<?> message,
+                                   Supplier<WebSocketMessage<?>> snapshot) {
+        return sendState(sessionId, message, snapshot, null);
+    }
+
+    /**
+     * 发送状态消息，message 发送或被丢弃后执行 onDone（用于归还池化缓冲区）
+     * 合并策略下 snapshot 返回 message 本身时沿用 onDone，否则 message 立即视为丢弃
+     */
+    public StateDelivery sendState(String sessionId, WebSocketMessage<?> message,
+                                   Supplier<WebSocketMessage<?>> snapshot, Runnable onDone) {
+        SessionOutbound outbound = outbounds.get(sessionId);
+        if (outbound == null) {
+            runQuietly(onDone);
+            return StateDelivery.DROPPED;
+        }
+        if (!outbound.isCongested()) {
+            outbound.enqueue(message, true, onDone);
+            return StateDelivery.ENQUEUED;
+        }
+        switch (properties.getSlowConsumerPolicy()) {
+            case DISCONNECT:
+                runQuietly(onDone);
+                disconnect(outbound);
+                return StateDelivery.DISCONNECTED;
+            case DROP_INTERMEDIATE:
+                runQuietly(onDone);
+                outbound.dropState();
+                increment(droppedCounter, 1);
+                return StateDelivery.DROPPED;
+            case COALESCE_LATEST:
+            default:
+                WebSocketMessage<?> latest = snapshot.get();
+                if (latest == message) {
+                    increment(coalescedCounter, outbound.replaceStates(latest, onDone));
+                } else {
+                    runQuietly(onDone);
+                    increment(coalescedCounter, outbound.replaceStates(latest));
+                }
+                return StateDelivery.COALESCED;
+        }
+    }
+
+    public int getSessionCount() {
+        return outbounds.size();
+    }
+
+    /**
+     * 所有连接排队中的消息总数
+     */
+    public int getTotalDepth() {
+        int total = 0;
+        for (SessionOutbound outbound : outbounds.values()) {
+            total += outbound.getDepth();
+        }
+        return total;
+    }
+
+    public int getMaxDepth() {
+        int max = 0;
+        for (SessionOutbound outbound : outbounds.values()) {
+            max = Math.max(max, outbound.getDepth());
+        }
+        return max;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendWatchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * 断开单条消息发送超时的连接；关闭底层连接会使阻塞中的 sendMessage 失败返回，发送线程得以释放
+     */
+    private void closeStalledSessions() {
+        long limit = properties.getSendTimeLimitMillis();
+        for (SessionOutbound outbound : outbounds.values()) {
+            long sendingMillis = outbound.getSendingMillis();
+            if (sendingMillis > limit && outbounds.remove(outbound.getSession().getId(), outbound)) {
+                increment(timedOutCounter, 1);
+                log.warn("session {} 单条消息发送已 {} ms，断开卡住的客户端", outbound.getSession().getId(), sendingMillis);
+                closeSession(outbound);
+            }
+        }
+    }
+
+    private void disconnect(SessionOutbound outbound) {
+        outbounds.remove(outbound.getSession().getId());
+        increment(disconnectedCounter, 1);
+        log.warn("session {} 发送队列已满，断开慢客户端", outbound.getSession().getId());
+        closeSession(outbound);
+    }
+
+    private static void closeSession(SessionOutbound outbound) {
+        outbound.close();
+        try {
+            outbound.getSession().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.error("关闭 session {} 失败: {}", outbound.getSession().getId(), e.getMessage());
+        }
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("poker.websocket.outbound.depth", this, SessionOutboundRegistry::getTotalDepth)
+                .description("所有连接排队中的消息总数")
+                .register(meterRegistry);
+        Gauge.builder("poker.websocket.outbound.depth.max", this, SessionOutboundRegistry::getMaxDepth)
+                .description("单个连接的最大排队消息数")
+                .register(meterRegistry);
+        Gauge.builder("poker.websocket.sessions", this, SessionOutboundRegistry::getSessionCount)
+                .description("当前连接数")
+                .register(meterRegistry);
+        String policy = properties.getSlowConsumerPolicy().name();
+        droppedCounter = Counter.builder("poker.websocket.outbound.dropped")
+                .description("慢客户端被丢弃的状态消息数")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        coalescedCounter = Counter.builder("poker.websocket.outbound.coalesced")
+                .description("慢客户端被合并掉的状态消息数")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        disconnectedCounter = Counter.builder("poker.websocket.outbound.disconnected")
+                .description("因发送队列满被断开的连接数")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        timedOutCounter = Counter.builder("poker.websocket.outbound.timed.out")
+                .description("因单条消息发送超时被断开的连接数")
+                .register(meterRegistry);
+    }
+
+    private static void runQuietly(Runnable onDone) {
+        if (onDone != null) {
+            onDone.run();
+        }
+    }
+
+    private static void increment(Counter counter, int amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package com.gjm.pk.websocket;
+
+import com.gjm.pk.config.WebSocketOutboundProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 观战推送
+ * 观战者看不到手牌（摊牌除外），所有观战者收到的画面相同：每个版本只编码一次为不可变帧，
+ * 由专用的推送线程写入各观战连接的发送队列，广播线程只需提交固定数量的任务，与观战人数无关。
+ * 每个观战连接固定分配到一个推送线程（lane），该线程独占其观战者的状态，因此同一连接的帧严格按版本顺序；
+ * 配置了延迟时，帧先在延迟队列中保留再推送
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Slf4j
+@Component
+public class SpectatorBroadcaster {
+
+    /**
+     * 某一版本的观战帧
+     */
+    public static final class Frame {
+        private final long version;
+        private final TextMessage snapshot;
+        /** 相对上一版本的增量，没有时为null */
+        private final TextMessage delta;
+
+        private Frame(long version, TextMessage snapshot, TextMessage delta) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.delta = delta;
+        }
+
+        public static Frame of(GameStateFrames frames) {
+            return new Frame(frames.getVersion(), frames.snapshotMessageFor(null, null),
+                    frames.hasDelta() ? frames.deltaMessageFor(null) : null);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * 观战连接（只由所属 lane 线程访问）
+     */
+    private static class Spectator {
+        private final WebSocketSession session;
+        private final boolean deltaProtocol;
+        private long sentVersion = -1;
+
+        Spectator(WebSocketSession session, boolean deltaProtocol) {
+            this.session = session;
+            this.deltaProtocol = deltaProtocol;
+        }
+    }
+
+    /**
+     * 推送线程及其独占的观战者：桌号 -> (sessionId -> 观战者)
+     */
+    private static class Lane {
+        private final ExecutorService executor;
+        private final Map<String, Map<String, Spectator>> tables = new HashMap<>();
+
+        Lane(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        Map<String, Spectator> table(String tableId) {
+            return tables.computeIfAbsent(tableId, key -> new LinkedHashMap<>());
+        }
+    }
+
+    private final SessionOutboundRegistry outboundRegistry;
+    private final long delayMillis;
+    private final Lane[] lanes;
+    private final ScheduledExecutorService delayScheduler;
+    /** 各桌最近推送出去的帧（延迟之后），新观战者先收到它的快照 */
+    private final Map<String, Frame> latestFrames = new ConcurrentHashMap<>();
+    private final AtomicInteger spectatorCount = new AtomicInteger();
+
+    @Autowired
+    public SpectatorBroadcaster(SessionOutboundRegistry outboundRegistry, WebSocketOutboundProperties properties,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.outboundRegistry = outboundRegistry;
+        this.delayMillis = properties.getSpectatorDelayMillis();
+        this.lanes = new Lane[Math.max(1, properties.getSpectatorFanOutThreads())];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "ws-spectator-" + (i + 1);
+            lanes[i] = new Lane(Executors.newSingleThreadExecutor(runnable -> daemon(runnable, name)));
+        }
+        this.delayScheduler = delayMillis > 0
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "ws-spectator-delay"))
+                : null;
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            Gauge.builder("poker.websocket.spectators", spectatorCount, AtomicInteger::get)
+                    .description("当前观战连接数")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 登记观战者，并在其推送线程上补发当前画面
+     */
+    public void addSpectator(String tableId, WebSocketSession session, boolean deltaProtocol) {
+        spectatorCount.incrementAndGet();
+        Lane lane = laneOf(session);
+        execute(lane, () -> {
+            Spectator spectator = new Spectator(session, deltaProtocol);
+            lane.table(tableId).put(session.getId(), spectator);
+            Frame latest = latestFrames.get(tableId);
+            if (latest != null) {
+                deliver(spectator, latest, true);
+            }
+        });
+    }
+
+    public void removeSpectator(String tableId, WebSocketSession session) {
+        spectatorCount.decrementAndGet();
+        Lane lane = laneOf(session);
+        execute(lane, () -> lane.table(tableId).remove(session.getId()));
+    }
+
+    /**
+     * 补发当前画面的完整快照（丢弃过消息或客户端请求重新同步时）
+     */
+    public void resync(String tableId, WebSocketSession session) {
+        Lane lane = laneOf(session);
+        execute(lane, () -> {
+            Spectator spectator = lane.table(tableId).get(session.getId());
+            Frame latest = latestFrames.get(tableId);
+            if (spectator != null && latest != null) {
+                deliver(spectator, latest, true);
+            }
+        });
+    }
+
+    /**
+     * 发布新版本的帧；调用方只提交固定数量的任务
+     */
+    public void publish(String tableId, Frame frame) {
+        if (delayScheduler != null) {
+            try {
+                delayScheduler.schedule(() -> fanOut(tableId, frame), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("观战延迟队列已关闭，版本 {} 未推送", frame.getVersion());
+            }
+        } else {
+            fanOut(tableId, frame);
+        }
+    }
+
+    public int getSpectatorCount() {
+        return spectatorCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (delayScheduler != null) {
+            delayScheduler.shutdownNow();
+        }
+        for (Lane lane : lanes) {
+            lane.executor.shutdownNow();
+        }
+    }
+
+    private void fanOut(String tableId, Frame frame) {
+        latestFrames.put(tableId, frame);
+        for (Lane lane : lanes) {
+            execute(lane, () -> {
+                for (Spectator spectator : lane.table(tableId).values()) {
+                    deliver(spectator, frame, false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在 lane 线程上执行：版本连续且客户端支持增量时发增量，否则发快照
+     */
+    private void deliver(Spectator spectator, Frame frame, boolean forceSnapshot) {
+        if (!spectator.session.isOpen() || (!forceSnapshot && spectator.sentVersion >= frame.version)) {
+            return;
+        }
+        boolean useDelta = !forceSnapshot && spectator.deltaProtocol && frame.delta != null
+                && spectator.sentVersion == frame.version - 1;
+        SessionOutboundRegistry.StateDelivery delivery = outboundRegistry.sendState(spectator.session.getId(),
+                useDelta ? frame.delta : frame.snapshot, () -> frame.snapshot);
+        switch (delivery) {
+            case ENQUEUED:
+            case COALESCED:
+                spectator.sentVersion = frame.version;
+                break;
+            default:
+                spectator.sentVersion = -1;
+                break;
+        }
+    }
+
+    private Lane laneOf(WebSocketSession session) {
+        return lanes[Math.floorMod(session.getId().hashCode(), lanes.length)];
+    }
+
+    private static void execute(Lane lane, Runnable task) {
+        try {
+            lane.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("观战推送线程已关闭，任务未执行");
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
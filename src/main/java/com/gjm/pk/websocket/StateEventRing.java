@@ -0,0 +1,76 @@
+package com.gjm.pk.websocket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单张桌最近状态增量的环形缓冲
+ * 按版本顺序保存每个版本相对上一版本的公共增量（已编码字节），重连的客户端只补发它错过的部分；
+ * 需要的版本已被覆盖或中间有版本没有增量时返回null，调用方改发完整快照
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class StateEventRing {
+
+    private final long[] versions;
+    private final byte[][] deltas;
+    private int start;
+    private int size;
+
+    public StateEventRing(int capacity) {
+        this.versions = new long[Math.max(1, capacity)];
+        this.deltas = new byte[versions.length][];
+    }
+
+    /**
+     * 追加一个版本
+     *
+     * @param delta 相对上一版本的增量，没有增量（如首个版本）时为null
+     */
+    public synchronized void append(long version, byte[] delta) {
+        int index;
+        if (size < versions.length) {
+            index = (start + size) % versions.length;
+            size++;
+        } else {
+            index = start;
+            start = (start + 1) % versions.length;
+        }
+        versions[index] = version;
+        deltas[index] = delta;
+    }
+
+    /**
+     * lastVersion 之后的所有增量，按版本顺序
+     *
+     * @return 已是最新时返回空列表；无法连续补齐时返回null
+     */
+    public synchronized List<byte[]> since(long lastVersion) {
+        if (size == 0) {
+            return null;
+        }
+        long newest = versions[(start + size - 1) % versions.length];
+        if (lastVersion == newest) {
+            return Collections.emptyList();
+        }
+        long oldest = versions[start];
+        if (lastVersion < oldest - 1 || lastVersion > newest) {
+            return null;
+        }
+        List<byte[]> missed = new ArrayList<>((int) (newest - lastVersion));
+        for (int i = (int) (lastVersion + 1 - oldest); i < size; i++) {
+            byte[] delta = deltas[(start + i) % versions.length];
+            if (delta == null) {
+                return null;
+            }
+            missed.add(delta);
+        }
+        return missed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
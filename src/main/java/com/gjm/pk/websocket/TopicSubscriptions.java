@@ -0,0 +1,117 @@
+package com.gjm.pk.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket主题订阅
+ * 主题为 table:{桌号}、lobby、tournament:{赛事ID}，每个主题一个并发订阅集合，
+ * 推送某个主题只遍历它的订阅者；另维护 playerId -> session 反向索引，私有消息直接定位连接
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+public class TopicSubscriptions {
+
+    public static final String LOBBY = "lobby";
+    public static final String TABLE_PREFIX = "table:";
+    public static final String TOURNAMENT_PREFIX = "tournament:";
+
+    private final Map<String, Set<WebSocketSession>> subscribers = new ConcurrentHashMap<>();
+    /** session -> 已订阅的主题，断开时清理 */
+    private final Map<String, Set<String>> sessionTopics = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> playerSessions = new ConcurrentHashMap<>();
+
+    public static String tableTopic(String tableId) {
+        return TABLE_PREFIX + tableId;
+    }
+
+    public static String tournamentTopic(String tournamentId) {
+        return TOURNAMENT_PREFIX + tournamentId;
+    }
+
+    /**
+     * 是否为合法主题
+     */
+    public static boolean isValidTopic(String topic) {
+        if (topic == null) {
+            return false;
+        }
+        if (LOBBY.equals(topic)) {
+            return true;
+        }
+        return (topic.startsWith(TABLE_PREFIX) && topic.length() > TABLE_PREFIX.length())
+                || (topic.startsWith(TOURNAMENT_PREFIX) && topic.length() > TOURNAMENT_PREFIX.length());
+    }
+
+    public void subscribe(String topic, WebSocketSession session) {
+        subscribers.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(session);
+        sessionTopics.computeIfAbsent(session.getId(), key -> ConcurrentHashMap.newKeySet()).add(topic);
+    }
+
+    public void unsubscribe(String topic, WebSocketSession session) {
+        Set<WebSocketSession> sessions = subscribers.get(topic);
+        if (sessions != null) {
+            sessions.remove(session);
+        }
+        Set<String> topics = sessionTopics.get(session.getId());
+        if (topics != null) {
+            topics.remove(topic);
+        }
+    }
+
+    /**
+     * 连接关闭：退订所有主题并移除玩家索引
+     */
+    public void removeSession(WebSocketSession session) {
+        Set<String> topics = sessionTopics.remove(session.getId());
+        if (topics != null) {
+            for (String topic : topics) {
+                Set<WebSocketSession> sessions = subscribers.get(topic);
+                if (sessions != null) {
+                    sessions.remove(session);
+                }
+            }
+        }
+        playerSessions.values().remove(session);
+    }
+
+    /**
+     * 主题的订阅者（只读视图，可在遍历时并发增删）
+     */
+    public Set<WebSocketSession> getSubscribers(String topic) {
+        Set<WebSocketSession> sessions = subscribers.get(topic);
+        return sessions != null ? Collections.unmodifiableSet(sessions) : Collections.<WebSocketSession>emptySet();
+    }
+
+    public int getSubscriberCount(String topic) {
+        Set<WebSocketSession> sessions = subscribers.get(topic);
+        return sessions != null ? sessions.size() : 0;
+    }
+
+    public Set<String> getTopics(WebSocketSession session) {
+        Set<String> topics = sessionTopics.get(session.getId());
+        return topics != null ? Collections.unmodifiableSet(topics) : Collections.<String>emptySet();
+    }
+
+    public void bindPlayer(String playerId, WebSocketSession session) {
+        playerSessions.put(playerId, session);
+    }
+
+    public void unbindPlayer(String playerId) {
+        playerSessions.remove(playerId);
+    }
+
+    /**
+     * 玩家当前的连接，未连接时返回null
+     */
+    public WebSocketSession getPlayerSession(String playerId) {
+        return playerSessions.get(playerId);
+    }
+}
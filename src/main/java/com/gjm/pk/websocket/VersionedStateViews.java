@@ -0,0 +1,111 @@
+package com.gjm.pk.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjm.pk.websocket.dto.PublicGameState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * REST 读接口按状态版本缓存的响应
+ * 每发布一个版本保存其不可变公共状态与强 ETag；各接口的响应体从该版本的公共状态渲染一次后缓存，
+ * 同一版本内的重复请求直接返回缓存的字节，带 If-None-Match 的请求只比较 ETag，不读取游戏状态
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Component
+public class VersionedStateViews {
+
+    /**
+     * 某一版本的公共状态及已渲染的响应体
+     */
+    public static final class Version {
+        private final long version;
+        private final PublicGameState state;
+        private final String eTag;
+        private final ObjectMapper objectMapper;
+        /** 视图名 -> 响应体 */
+        private final Map<String, byte[]> bodies = new ConcurrentHashMap<>(8);
+
+        private Version(long version, PublicGameState state, String eTag, ObjectMapper objectMapper) {
+            this.version = version;
+            this.state = state;
+            this.eTag = eTag;
+            this.objectMapper = objectMapper;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * 本版本某个视图的响应体，首次请求时由 builder 从公共状态构建并编码
+         */
+        public byte[] render(String view, Function<PublicGameState, Object> builder) {
+            return bodies.computeIfAbsent(view, key -> {
+                try {
+                    return objectMapper.writeValueAsBytes(builder.apply(state));
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException("响应编码失败: " + view, e);
+                }
+            });
+        }
+    }
+
+    /** 进程启动标识，重启后版本号从头开始也不会与旧 ETag、SSE 事件ID、长轮询版本相同 */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ObjectMapper objectMapper;
+    private volatile Version current;
+
+    @Autowired
+    public VersionedStateViews(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 发布新版本（调用方持有发布锁）
+     */
+    public void publish(long version, PublicGameState state) {
+        current = new Version(version, state, "\"" + token(version) + "\"", objectMapper);
+    }
+
+    /**
+     * 对外的版本标识 "<启动标识>-<版本号>"，用作 ETag、SSE 事件ID 与 X-State-Version
+     */
+    public String token(long version) {
+        return epoch + "-" + version;
+    }
+
+    /**
+     * 解析客户端带回的版本标识；来自本次启动时返回版本号，否则（重启前的标识、格式错误、null）返回-1，
+     * 调用方据此把客户端视为从未收到过状态
+     */
+    public long parseToken(String token) {
+        if (token == null || !token.startsWith(epoch) || token.length() <= epoch.length() + 1
+                || token.charAt(epoch.length()) != '-') {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 最新版本，尚未发布过状态时为null
+     */
+    public Version current() {
+        return current;
+    }
+}
@@ -0,0 +1,84 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.gjm.pk.entity.Card;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 推送给客户端的扑克牌
+ * 52张牌各有一个共享实例，JSON在类加载时预先序列化，写出时直接输出缓存的UTF-8字节
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public final class CardView implements JsonSerializable {
+
+    private static final CardView[] CARDS = new CardView[52];
+
+    static {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int index = 0; index < CARDS.length; index++) {
+            Card card = Card.fromIndex(index);
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("suit", card.getSuit());
+            fields.put("rank", card.getRank());
+            fields.put("suitName", card.getSuitName());
+            fields.put("rankName", card.getRankName());
+            fields.put("display", card.toString());
+            fields.put("shortDisplay", card.toShortString());
+            try {
+                CARDS[index] = new CardView(card, new SerializedString(objectMapper.writeValueAsString(fields)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("扑克牌JSON预编码失败: " + card, e);
+            }
+        }
+    }
+
+    private final Card card;
+    private final SerializedString json;
+
+    private CardView(Card card, SerializedString json) {
+        this.card = card;
+        this.json = json;
+    }
+
+    public static CardView of(Card card) {
+        return CARDS[card.toIndex()];
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    /**
+     * 预编码的JSON
+     */
+    public String getJson() {
+        return json.getValue();
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+                                  TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return card.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+/**
+ * 客户端请求（JSON与二进制协议解码为同一结构）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ClientRequest {
+
+    String action;
+    /** playerAction：fold / check / call / raise / allin */
+    String actionType;
+    Integer amount;
+    /** join */
+    String playerName;
+    Integer chips;
+    /** subscribe / unsubscribe */
+    String topic;
+    /** resume：加入时下发的重连令牌与客户端已应用的状态版本 */
+    String reconnectToken;
+    Long lastVersion;
+
+    @JsonCreator
+    public ClientRequest(@JsonProperty("action") String action,
+                         @JsonProperty("actionType") String actionType,
+                         @JsonProperty("amount") Integer amount,
+                         @JsonProperty("playerName") String playerName,
+                         @JsonProperty("chips") Integer chips,
+                         @JsonProperty("topic") String topic,
+                         @JsonProperty("reconnectToken") String reconnectToken,
+                         @JsonProperty("lastVersion") Long lastVersion) {
+        this.action = action;
+        this.actionType = actionType;
+        this.amount = amount;
+        this.playerName = playerName;
+        this.chips = chips;
+        this.topic = topic;
+        this.reconnectToken = reconnectToken;
+        this.lastVersion = lastVersion;
+    }
+
+    public static ClientRequest of(String action) {
+        return new ClientRequest(action, null, null, null, null, null, null, null);
+    }
+
+    public static ClientRequest playerAction(String actionType, int amount) {
+        return new ClientRequest("playerAction", actionType, amount, null, null, null, null, null);
+    }
+
+    public static ClientRequest join(String playerName, int chips) {
+        return new ClientRequest("join", null, null, playerName, chips, null, null, null);
+    }
+}
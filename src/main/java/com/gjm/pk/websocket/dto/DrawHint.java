@@ -0,0 +1,33 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import lombok.Value;
+
+/**
+ * 听牌提示（只发给本人）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class DrawHint {
+
+    boolean flushDraw;
+    boolean backdoorFlushDraw;
+    boolean openEndedStraightDraw;
+    boolean gutshot;
+    boolean doubleGutshot;
+    boolean backdoorStraightDraw;
+    int outs;
+    double completionProbability;
+
+    public static DrawHint of(BoardTextureAnalyzer.DrawInfo drawInfo) {
+        return new DrawHint(drawInfo.isFlushDraw(), drawInfo.isBackdoorFlushDraw(),
+                drawInfo.isOpenEndedStraightDraw(), drawInfo.isGutshot(), drawInfo.isDoubleGutshot(),
+                drawInfo.isBackdoorStraightDraw(),
+                drawInfo.getOuts(), drawInfo.getCompletionProbability());
+    }
+}
@@ -0,0 +1,91 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 推送给客户端的玩家信息（不可变），手牌只在摊牌或发给本人时填充
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class PlayerView {
+
+    String id;
+    String name;
+    int chips;
+    int currentBet;
+    boolean inGame;
+    boolean isAi;
+    boolean hasFolded;
+    boolean isAllIn;
+    boolean isDealer;
+    boolean isSmallBlind;
+    boolean isBigBlind;
+    String lastAction;
+    List<CardView> holeCards;
+    /** 全下摊牌中本街的胜率，其余时候为null */
+    Double equity;
+
+    public static PlayerView of(Player player, boolean revealHoleCards) {
+        return of(player, revealHoleCards, null);
+    }
+
+    public static PlayerView of(Player player, boolean revealHoleCards, Double equity) {
+        return new PlayerView(player.getId(), player.getName(), player.getChips(), player.getCurrentBet(),
+                player.isInGame(), player.isAi(), player.isHasFolded(), player.isAllIn(), player.isDealer(),
+                player.isSmallBlind(), player.isBigBlind(),
+                player.getLastAction() != null ? player.getLastAction().toString() : null,
+                revealHoleCards ? cards(player.getHoleCards()) : null, equity);
+    }
+
+    public static List<CardView> cards(List<Card> cards) {
+        List<CardView> views = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            views.add(CardView.of(card));
+        }
+        return Collections.unmodifiableList(views);
+    }
+
+    /**
+     * 与上一状态相比变化的字段，被移除的字段为null
+     */
+    public Map<String, Object> diff(PlayerView previous) {
+        Map<String, Object> changes = new HashMap<>();
+        putIfChanged(changes, "id", previous.id, id);
+        putIfChanged(changes, "name", previous.name, name);
+        putIfChanged(changes, "chips", previous.chips, chips);
+        putIfChanged(changes, "currentBet", previous.currentBet, currentBet);
+        putIfChanged(changes, "inGame", previous.inGame, inGame);
+        putIfChanged(changes, "isAi", previous.isAi, isAi);
+        putIfChanged(changes, "hasFolded", previous.hasFolded, hasFolded);
+        putIfChanged(changes, "isAllIn", previous.isAllIn, isAllIn);
+        putIfChanged(changes, "isDealer", previous.isDealer, isDealer);
+        putIfChanged(changes, "isSmallBlind", previous.isSmallBlind, isSmallBlind);
+        putIfChanged(changes, "isBigBlind", previous.isBigBlind, isBigBlind);
+        putIfChanged(changes, "lastAction", previous.lastAction, lastAction);
+        putIfChanged(changes, "holeCards", previous.holeCards, holeCards);
+        putIfChanged(changes, "equity", previous.equity, equity);
+        return changes;
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String field, Object previous, Object current) {
+        if (!Objects.equals(previous, current)) {
+            changes.put(field, current);
+        }
+    }
+}
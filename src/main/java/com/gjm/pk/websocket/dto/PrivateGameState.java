@@ -0,0 +1,27 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gjm.pk.service.LegalActions;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 只发给本人的私有状态：手牌、听牌提示，轮到本人时附带合法行动
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class PrivateGameState {
+
+    List<CardView> holeCards;
+    /** 没有听牌提示时为null */
+    DrawHint draws;
+    /** 不是本人回合时为null */
+    LegalActions legalActions;
+}
@@ -0,0 +1,31 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 所有连接共享的公共状态（不可变）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class PublicGameState {
+
+    /** 牌局ID，随状态一起快照，版本相同时各视图看到的是同一个值 */
+    long gameId;
+    int pot;
+    int currentBetAmount;
+    String currentPhase;
+    List<CardView> communityCards;
+    List<PlayerView> players;
+    /** 没有行动玩家时为null */
+    PlayerView currentPlayer;
+    boolean isAutoGameRunning;
+}
@@ -0,0 +1,27 @@
+package com.gjm.pk.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * 服务端推送消息的外层结构
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE, isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+public class WsMessage {
+
+    String type;
+    String message;
+    long timestamp;
+    Object data;
+
+    public static WsMessage of(String type, String message, Object data) {
+        return new WsMessage(type, message, System.currentTimeMillis(), data);
+    }
+}
@@ -8,6 +8,9 @@ export const useGameStore = defineStore('game', () => {
   const ws = ref(null);
   const playerId = ref(null);
   const gameState = ref({}); // 单一数据源
+  const stateVersion = ref(-1); // 已应用的状态版本
+  const selfState = ref({}); // 只发给本人的手牌与听牌提示
+  const reconnectToken = ref(sessionStorage.getItem('reconnectToken')); // 断线后恢复座位的令牌
   const gameLogs = ref([]);
 
   const uiStore = useUIStore();
@@ -22,7 +25,8 @@ export const useGameStore = defineStore('game', () => {
   const currentBet = computed(() => gameState.value.currentBetAmount || 0);
 
   const myPlayer = computed(() => players.value.find(p => p.id === playerId.value));
-  const playerCards = computed(() => myPlayer.value?.holeCards || []);
+  const playerCards = computed(() => myPlayer.value?.holeCards || selfState.value.holeCards || []);
+  const myDraws = computed(() => selfState.value.draws || null);
 
   const isMyTurn = computed(() => {
     if (!currentPlayer.value || !playerId.value || !myPlayer.value) {
@@ -41,7 +45,7 @@ export const useGameStore = defineStore('game', () => {
 
   // --- WebSocket 方法 ---
   const connectWebSocket = () => {
-    const wsUrl = `ws://${window.location.host}/ws/game`;
+    const wsUrl = `ws://${window.location.host}/ws/game?protocol=delta`;
     if (ws.value && ws.value.readyState !== WebSocket.CLOSED) {
       return; // 防止重复连接
     }
@@ -51,6 +55,10 @@ export const useGameStore = defineStore('game', () => {
       isConnected.value = true;
       addLog('成功连接到游戏服务器', 'success');
       uiStore.showToast('WebSocket连接成功', 'success');
+      if (reconnectToken.value) {
+        // 凭令牌回到原座位，服务端只补发错过的增量
+        sendMessage({ action: 'resume', reconnectToken: reconnectToken.value, lastVersion: stateVersion.value });
+      }
     };
 
     ws.value.onmessage = (event) => {
@@ -76,17 +84,31 @@ export const useGameStore = defineStore('game', () => {
   const handleMessage = (message) => {
     switch (message.type) {
       case 'gameState':
-        gameState.value = message.data;
+        applySnapshot(message.data);
+        break;
+      case 'gameDelta':
+        applyDelta(message.data);
         break;
       case 'joinResult':
         if (message.data?.success) {
           playerId.value = message.data.player.id;
+          saveReconnectToken(message.data.reconnectToken);
           uiStore.showToast(`欢迎, ${message.data.player.name}!`, 'success');
           addLog(`您已成功加入游戏`, 'success');
         } else {
           uiStore.showToast(message.message || '加入游戏失败', 'error');
         }
         break;
+      case 'resumeResult':
+        if (message.data?.success) {
+          playerId.value = message.data.player.id;
+          addLog('已恢复座位', 'success');
+        } else {
+          playerId.value = null;
+          saveReconnectToken(null);
+          addLog(message.message || '座位已释放，请重新加入', 'warning');
+        }
+        break;
       case 'error':
         uiStore.showToast(message.message, 'error');
         addLog(`错误: ${message.message}`, 'error');
@@ -101,7 +123,83 @@ export const useGameStore = defineStore('game', () => {
     }
   };
 
+  // 应用增量；版本不连续时丢弃并请求完整快照
+  const applyDelta = (delta) => {
+    if (delta.baseVersion !== stateVersion.value) {
+      console.warn('状态版本不连续，请求重新同步', delta.baseVersion, stateVersion.value);
+      sendMessage({ action: 'resync' });
+      return;
+    }
+    const { baseVersion, version, self, playerChanges, communityCardsAdded, currentPlayerId, ...fields } = delta;
+    const next = { ...gameState.value };
+    Object.entries(fields).forEach(([key, value]) => {
+      if (value === null) {
+        delete next[key];
+      } else {
+        next[key] = value;
+      }
+    });
+    if (communityCardsAdded) {
+      next.communityCards = [...(next.communityCards || []), ...communityCardsAdded];
+    }
+    if (playerChanges) {
+      next.players = (next.players || []).map(p => {
+        const changes = playerChanges[p.id];
+        if (!changes) return p;
+        const updated = { ...p };
+        Object.entries(changes).forEach(([key, value]) => {
+          if (value === null) {
+            delete updated[key];
+          } else {
+            updated[key] = value;
+          }
+        });
+        return updated;
+      });
+    }
+    // 当前行动玩家取玩家列表中的最新条目
+    const currentId = currentPlayerId !== undefined ? currentPlayerId : next.currentPlayer?.id;
+    const current = currentId ? (next.players || []).find(p => p.id === currentId) : null;
+    if (current) {
+      next.currentPlayer = current;
+    } else {
+      delete next.currentPlayer;
+    }
+    if (self) {
+      selfState.value = self;
+    }
+    gameState.value = next;
+    stateVersion.value = version;
+  };
+
+  // 应用完整快照，把本人条目里的私有字段移到 selfState，之后的增量不会再覆盖它们
+  const applySnapshot = (data) => {
+    const { version, ...state } = data;
+    const self = {};
+    state.players = (state.players || []).map(p => {
+      if (p.id !== playerId.value) return p;
+      const { draws, ...rest } = p;
+      self.holeCards = p.holeCards;
+      self.draws = draws;
+      if (state.currentPhase === 'SHOWDOWN') return rest;
+      delete rest.holeCards;
+      return rest;
+    });
+    gameState.value = state;
+    selfState.value = self;
+    stateVersion.value = version ?? -1;
+  };
+
   // --- 游戏动作 ---
+  const saveReconnectToken = (token) => {
+    reconnectToken.value = token || null;
+    if (token) {
+      sessionStorage.setItem('reconnectToken', token);
+    } else {
+      sessionStorage.removeItem('reconnectToken');
+    }
+  };
+
   const sendMessage = (message) => {
     if (ws.value?.readyState === WebSocket.OPEN) {
       ws.value.send(JSON.stringify(message));
@@ -126,7 +224,10 @@ export const useGameStore = defineStore('game', () => {
   const createAutoGame = () => sendMessage({ action: 'createAutoGame' });
   const startAutoGame = () => sendMessage({ action: 'startAutoGame' });
   const stopAutoGame = () => sendMessage({ action: 'stopAutoGame' });
-  const resetGame = () => window.location.reload();
+  const resetGame = () => {
+    saveReconnectToken(null);
+    window.location.reload();
+  };
 
   // --- 工具方法 ---
   const addLog = (message, type = 'info') => {
@@ -139,7 +240,7 @@ export const useGameStore = defineStore('game', () => {
     isConnected, playerId, gameLogs, gameState,
     // 计算属性
     pot, currentPhase, players, communityCards, currentPlayer,
-    autoGameRunning, playerCards, isMyTurn, currentBet,
+    autoGameRunning, playerCards, myDraws, isMyTurn, currentBet,
     // 方法
     connectWebSocket, joinGame, playerAction, createAutoGame,
     startAutoGame, stopAutoGame, resetGame
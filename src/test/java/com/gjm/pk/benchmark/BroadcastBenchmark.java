@@ -0,0 +1,317 @@
+package com.gjm.pk.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.websocket.GameMessageJson;
+import com.gjm.pk.websocket.GameStateDelta;
+import com.gjm.pk.websocket.GameStateFrames;
+import com.gjm.pk.websocket.GameStateView;
+import com.gjm.pk.websocket.dto.PlayerView;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.PublicGameState;
+import com.gjm.pk.websocket.dto.WsMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 广播序列化基准
+ * 一张6人桌（其中2名人类玩家）被若干连接同时观看，比较每次广播的耗时、分配字节数与发送字节数：
+ * 最初路径：每个连接各自构建 HashMap 结构的完整状态并用 ObjectMapper 序列化；
+ * 类型化DTO：每个连接构建不可变DTO，用预绑定的 ObjectWriter 序列化，牌直接输出预编码的JSON；
+ * 共享路径：公共状态每个版本编码一次（GameStateFrames），各连接只拼接自己的私有字段。
+ * 各路径都测到交给发送队列的 WebSocketMessage 为止：TextMessage 由字节构造时会解码出整条字符串，
+ * 因此另测一项"每连接各自包装 TextMessage"作为对照，共享路径只给拼接了私有字段的连接新建消息
+ *
+ * 用法：mvn -Pbenchmark test -Dbenchmark=BroadcastBenchmark -Dbenchmark.args="[--sessions=1000] [--rounds=200]"
+ *
+ * @author: guojianming
+ * @date: 2025/10/13
+ */
+public class BroadcastBenchmark {
+
+    private static final int HUMAN_PLAYERS = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GameMessageJson json = new GameMessageJson(objectMapper);
+    private final BoardTextureAnalyzer boardTextureAnalyzer = new BoardTextureAnalyzer();
+    private final List<Player> players = new ArrayList<>();
+    private final List<Card> board = Card.parseList("Ah7d2c9s");
+    /** 每个连接对应的玩家ID，观战者为null */
+    private final String[] sessionPlayerIds;
+
+    private long sink;
+
+    public BroadcastBenchmark(int sessions) {
+        String[] holeCards = {"AsKd", "QhQc", "9h8h", "Tc9d", "5s5d", "KcJc"};
+        for (int i = 0; i < holeCards.length; i++) {
+            boolean ai = i >= HUMAN_PLAYERS;
+            Player player = ai
+                    ? new Player("AI_" + i, "AI玩家" + i, 1000, true, AIPlayerDecisionService.AILevel.MEDIUM)
+                    : new Player("player_" + i, "玩家" + i, 1000, false);
+            player.getHoleCards().addAll(Card.parseList(holeCards[i]));
+            player.bet(20 * (i + 1));
+            players.add(player);
+        }
+        players.get(0).setDealer(true);
+        players.get(1).setSmallBlind(true);
+        players.get(2).setBigBlind(true);
+
+        sessionPlayerIds = new String[sessions];
+        for (int i = 0; i < HUMAN_PLAYERS && i < sessions; i++) {
+            sessionPlayerIds[i] = players.get(i).getId();
+        }
+    }
+
+    /**
+     * 最初路径：每个连接构建 HashMap 结构的完整状态并序列化
+     */
+    long perSessionMapBroadcast(int pot) throws Exception {
+        long bytes = 0;
+        for (String playerId : sessionPlayerIds) {
+            Map<String, Object> gameState = mapState(pot);
+            if (playerId != null) {
+                mergeInto(gameState, playerId, findPlayer(playerId));
+            }
+            gameState.put("version", (long) pot);
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "gameState");
+            message.put("message", "游戏状态更新");
+            message.put("timestamp", System.currentTimeMillis());
+            message.put("data", gameState);
+            bytes += send(new TextMessage(objectMapper.writeValueAsBytes(message)));
+        }
+        return bytes;
+    }
+
+    /**
+     * 类型化DTO：每个连接构建不可变DTO并用预绑定的 ObjectWriter 序列化
+     */
+    long perSessionDtoBroadcast(int pot) throws Exception {
+        long bytes = 0;
+        for (String playerId : sessionPlayerIds) {
+            PublicGameState gameState = publicState(pot);
+            if (playerId != null) {
+                List<PlayerView> players = new ArrayList<>(gameState.getPlayers());
+                Player player = findPlayer(playerId);
+                players.set(this.players.indexOf(player), PlayerView.of(player, true));
+                gameState = new PublicGameState(gameState.getGameId(), gameState.getPot(), gameState.getCurrentBetAmount(),
+                        gameState.getCurrentPhase(), gameState.getCommunityCards(), players,
+                        gameState.getCurrentPlayer(), gameState.isAutoGameRunning());
+            }
+            bytes += send(new TextMessage(json.writeMessage(WsMessage.of("gameState", "游戏状态更新", gameState))));
+        }
+        return bytes;
+    }
+
+    /**
+     * 共享字节但每个连接各自包装 TextMessage（每次都解码整条快照）
+     */
+    long sharedSnapshotPerSessionMessageBroadcast(int pot) {
+        GameStateFrames frames = GameStateFrames.encode(json, pot, publicState(pot), null);
+        long bytes = 0;
+        for (String playerId : sessionPlayerIds) {
+            PrivateGameState privateState = playerId != null
+                    ? GameStateView.privateState(findPlayer(playerId), board, boardTextureAnalyzer) : null;
+            bytes += send(new TextMessage(frames.snapshotFor(playerId, privateState)));
+        }
+        return bytes;
+    }
+
+    /**
+     * 共享路径：公共部分编码一次，私有字段按连接拼接，其余连接共享同一条消息
+     */
+    long sharedSnapshotBroadcast(int pot) {
+        GameStateFrames frames = GameStateFrames.encode(json, pot, publicState(pot), null);
+        long bytes = 0;
+        for (String playerId : sessionPlayerIds) {
+            PrivateGameState privateState = playerId != null
+                    ? GameStateView.privateState(findPlayer(playerId), board, boardTextureAnalyzer) : null;
+            bytes += send(frames.snapshotMessageFor(playerId, privateState));
+        }
+        return bytes;
+    }
+
+    /**
+     * 新路径下的增量广播（所有连接都在上一版本），观战者共享同一份字节
+     */
+    long sharedDeltaBroadcast(PublicGameState previous, int pot) {
+        PublicGameState current = publicState(pot);
+        GameStateFrames frames = GameStateFrames.encode(json, pot, current,
+                GameStateDelta.diff(previous, current));
+        long bytes = 0;
+        for (String playerId : sessionPlayerIds) {
+            bytes += send(frames.deltaMessageFor(null));
+        }
+        return bytes;
+    }
+
+    /**
+     * 交给发送队列的消息：容器发送文本消息时读取的是字符串负载
+     */
+    private long send(WebSocketMessage<?> message) {
+        sink += message.getPayload().hashCode();
+        return message.getPayloadLength();
+    }
+
+    private PublicGameState publicState(int pot) {
+        return GameStateView.publicState(players, board, pot, 40, "TURN", players.get(3), true);
+    }
+
+    /**
+     * 改为DTO之前的 HashMap 状态结构，作为基准的对照组
+     */
+    private Map<String, Object> mapState(int pot) {
+        Map<String, Object> gameState = new HashMap<>();
+        gameState.put("pot", pot);
+        gameState.put("currentBetAmount", 40);
+        gameState.put("currentPhase", "TURN");
+        gameState.put("communityCards", cardMaps(board));
+        List<Map<String, Object>> playerMaps = new ArrayList<>(players.size());
+        for (Player player : players) {
+            playerMaps.add(playerMap(player));
+        }
+        gameState.put("players", playerMaps);
+        gameState.put("currentPlayer", playerMap(players.get(3)));
+        gameState.put("isAutoGameRunning", true);
+        return gameState;
+    }
+
+    private static Map<String, Object> playerMap(Player player) {
+        Map<String, Object> playerMap = new HashMap<>();
+        playerMap.put("id", player.getId());
+        playerMap.put("name", player.getName());
+        playerMap.put("chips", player.getChips());
+        playerMap.put("currentBet", player.getCurrentBet());
+        playerMap.put("inGame", player.isInGame());
+        playerMap.put("isAi", player.isAi());
+        playerMap.put("hasFolded", player.isHasFolded());
+        playerMap.put("isAllIn", player.isAllIn());
+        playerMap.put("isDealer", player.isDealer());
+        playerMap.put("isSmallBlind", player.isSmallBlind());
+        playerMap.put("isBigBlind", player.isBigBlind());
+        if (player.getLastAction() != null) {
+            playerMap.put("lastAction", player.getLastAction().toString());
+        }
+        return playerMap;
+    }
+
+    private static List<Map<String, Object>> cardMaps(List<Card> cards) {
+        List<Map<String, Object>> cardMaps = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            Map<String, Object> cardMap = new HashMap<>();
+            cardMap.put("suit", card.getSuit());
+            cardMap.put("rank", card.getRank());
+            cardMap.put("suitName", card.getSuitName());
+            cardMap.put("rankName", card.getRankName());
+            cardMap.put("display", card.toString());
+            cardMap.put("shortDisplay", card.toShortString());
+            cardMaps.add(cardMap);
+        }
+        return cardMaps;
+    }
+
+    private Player findPlayer(String playerId) {
+        for (Player player : players) {
+            if (player.getId().equals(playerId)) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mergeInto(Map<String, Object> gameState, String playerId, Player player) {
+        for (Map<String, Object> playerMap : (List<Map<String, Object>>) gameState.get("players")) {
+            if (playerId.equals(playerMap.get("id"))) {
+                playerMap.put("holeCards", cardMaps(player.getHoleCards()));
+            }
+        }
+    }
+
+    /**
+     * 单项测量结果
+     */
+    public static class Measurement {
+        private final String name;
+        private final double microsPerBroadcast;
+        private final double allocatedKbPerBroadcast;
+        private final double sentKbPerBroadcast;
+
+        Measurement(String name, double microsPerBroadcast, double allocatedKbPerBroadcast, double sentKbPerBroadcast) {
+            this.name = name;
+            this.microsPerBroadcast = microsPerBroadcast;
+            this.allocatedKbPerBroadcast = allocatedKbPerBroadcast;
+            this.sentKbPerBroadcast = sentKbPerBroadcast;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %10.1f µs/广播 %12.1f KB分配/广播 %10.1f KB发送/广播",
+                    name, microsPerBroadcast, allocatedKbPerBroadcast, sentKbPerBroadcast);
+        }
+    }
+
+    private interface Broadcast {
+        long run(int pot) throws Exception;
+    }
+
+    private Measurement measure(String name, int rounds, Broadcast broadcast) throws Exception {
+        // 预热
+        for (int i = 0; i < Math.max(20, rounds / 5); i++) {
+            sink += broadcast.run(i);
+        }
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long sentBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sentBytes += broadcast.run(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        sink += sentBytes;
+        return new Measurement(name, elapsed / 1e3 / rounds, allocated / 1024.0 / rounds, sentBytes / 1024.0 / rounds);
+    }
+
+    public List<Measurement> run(int rounds) throws Exception {
+        PublicGameState previous = publicState(0);
+        List<Measurement> results = new ArrayList<>();
+        results.add(measure("每连接构建Map并序列化", rounds, this::perSessionMapBroadcast));
+        results.add(measure("每连接构建DTO并序列化", rounds, this::perSessionDtoBroadcast));
+        results.add(measure("共享快照+每连接包装消息", rounds, this::sharedSnapshotPerSessionMessageBroadcast));
+        results.add(measure("共享快照+私有字段拼接", rounds, this::sharedSnapshotBroadcast));
+        results.add(measure("共享增量", rounds, pot -> sharedDeltaBroadcast(previous, pot)));
+        return results;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "1000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "200"));
+
+        BroadcastBenchmark benchmark = new BroadcastBenchmark(sessions);
+        System.out.printf("一张6人桌，%d 个连接（%d 名入座玩家），%d 次广播%n", sessions, HUMAN_PLAYERS, rounds);
+        for (Measurement measurement : benchmark.run(rounds)) {
+            System.out.println(measurement);
+        }
+        if (benchmark.sink == 42) {
+            System.out.println();
+        }
+    }
+}
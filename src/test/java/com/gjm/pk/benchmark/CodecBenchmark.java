@@ -0,0 +1,160 @@
+package com.gjm.pk.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.websocket.BinaryGameCodec;
+import com.gjm.pk.websocket.DirectBufferPool;
+import com.gjm.pk.websocket.GameMessageJson;
+import com.gjm.pk.websocket.GameStateFrames;
+import com.gjm.pk.websocket.GameStateView;
+import com.gjm.pk.websocket.dto.ClientRequest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 状态消息编解码基准
+ * 一张6人桌的状态消息，比较JSON（GameStateFrames 快照并拼接本人手牌）与二进制编码（公共部分编码一次，按连接复制进池化直接缓冲区并填入手牌）
+ * 的字节数与每条消息编码耗时，并校验二进制消息解码后与原状态一致
+ *
+ * 用法：mvn -Pbenchmark test -Dbenchmark=CodecBenchmark -Dbenchmark.args="[--messages=200000]"
+ *
+ * @author: guojianming
+ * @date: 2025/10/14
+ */
+public class CodecBenchmark {
+
+    private final GameMessageJson json = new GameMessageJson(new ObjectMapper());
+    private final DirectBufferPool bufferPool = new DirectBufferPool(256, 16);
+    private final List<Player> players = new ArrayList<>();
+    private final List<Card> board = Card.parseList("Ah7d2c9s");
+
+    private long sink;
+
+    public CodecBenchmark() {
+        String[] holeCards = {"AsKd", "QhQc", "9h8h", "Tc9d", "5s5d", "KcJc"};
+        for (int i = 0; i < holeCards.length; i++) {
+            Player player = i > 0
+                    ? new Player("AI_" + i, "AI玩家" + i, 1000, true, AIPlayerDecisionService.AILevel.MEDIUM)
+                    : new Player("player_" + i, "玩家" + i, 1000, false);
+            player.getHoleCards().addAll(Card.parseList(holeCards[i]));
+            player.bet(20 * (i + 1));
+            player.setLastAction(Player.PlayerAction.CALL);
+            players.add(player);
+        }
+        players.get(0).setDealer(true);
+        players.get(1).setSmallBlind(true);
+        players.get(2).setBigBlind(true);
+        players.get(4).fold();
+    }
+
+    /**
+     * JSON：编码公共状态并拼接本人手牌
+     */
+    int encodeJson(long version) {
+        GameStateFrames frames = GameStateFrames.encode(json, version,
+                GameStateView.publicState(players, board, 120, 40, "TURN", players.get(3), true), null);
+        return frames.snapshotFor(players.get(0).getId(),
+                GameStateView.privateState(players.get(0), board, null)).length;
+    }
+
+    /**
+     * 二进制：编码公共部分，复制进池化缓冲区并填入本人手牌
+     */
+    int encodeBinary(long version, ByteBuffer template) {
+        template.clear();
+        BinaryGameCodec.encodeState(template, version, players, board, 120, 40, "TURN", players.get(3), true);
+        template.flip();
+        ByteBuffer buffer = bufferPool.acquire();
+        BinaryGameCodec.personalize(template, buffer, 0, players.get(0).getHoleCards(), 8, 0.17);
+        buffer.flip();
+        int length = buffer.remaining();
+        bufferPool.release(buffer);
+        return length;
+    }
+
+    /**
+     * 二进制消息解码后应与原状态一致
+     */
+    void verifyRoundTrip() {
+        ByteBuffer template = ByteBuffer.allocate(256);
+        BinaryGameCodec.encodeState(template, 7, players, board, 120, 40, "TURN", players.get(3), true);
+        template.flip();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        BinaryGameCodec.personalize(template, buffer, 0, players.get(0).getHoleCards(), 8, 0.17);
+        buffer.flip();
+        BinaryGameCodec.DecodedState state = BinaryGameCodec.decodeState(buffer);
+
+        check(state.getVersion() == 7 && state.getPot() == 120 && state.getCurrentBetAmount() == 40, "头部");
+        check("TURN".equals(state.getCurrentPhase()) && state.getCurrentSeat() == 3 && state.isAutoGameRunning(), "阶段");
+        check(state.getSelfSeat() == 0 && state.getOuts() == 8 && state.getCompletionProbability() == 0.17, "本人信息");
+        check(state.getCommunityCards().equals(board), "公共牌");
+        check(state.getPlayers().size() == players.size(), "玩家数");
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            BinaryGameCodec.DecodedPlayer decoded = state.getPlayers().get(i);
+            check(decoded.getChips() == player.getChips() && decoded.getCurrentBet() == player.getCurrentBet(), "筹码");
+            check(decoded.isAi() == player.isAi() && decoded.isHasFolded() == player.isHasFolded()
+                    && decoded.isDealer() == player.isDealer() && decoded.isSmallBlind() == player.isSmallBlind()
+                    && decoded.isBigBlind() == player.isBigBlind() && decoded.isInGame() == player.isInGame(), "标志位");
+            check(decoded.getLastAction() == player.getLastAction(), "最后行动");
+            check(i == 0 ? decoded.getHoleCards().equals(player.getHoleCards()) : decoded.getHoleCards().isEmpty(), "手牌");
+        }
+
+        ByteBuffer action = ByteBuffer.allocate(6);
+        action.put(BinaryGameCodec.CLIENT_ACTION).put((byte) 4).putInt(200);
+        action.flip();
+        ClientRequest request = BinaryGameCodec.decodeClientMessage(action);
+        check("raise".equals(request.getActionType()) && Integer.valueOf(200).equals(request.getAmount()), "行动");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("二进制往返校验失败: " + what);
+        }
+    }
+
+    private interface Encoder {
+        int encode(long version) throws Exception;
+    }
+
+    private void measure(String name, int messages, Encoder encoder) throws Exception {
+        for (int i = 0; i < Math.max(10000, messages / 5); i++) {
+            sink += encoder.encode(i);
+        }
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            bytes += encoder.encode(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += bytes;
+        System.out.printf("%-24s %8.1f 字节/消息 %10.1f ns/消息%n",
+                name, (double) bytes / messages, (double) elapsed / messages);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int messages = Integer.parseInt(options.getOrDefault("messages", "200000"));
+
+        CodecBenchmark benchmark = new CodecBenchmark();
+        benchmark.verifyRoundTrip();
+        System.out.printf("一张6人桌的状态消息，%d 条，二进制往返校验通过%n", messages);
+        ByteBuffer template = ByteBuffer.allocate(256);
+        benchmark.measure("JSON", messages, benchmark::encodeJson);
+        benchmark.measure("二进制（池化直接缓冲区）", messages, version -> benchmark.encodeBinary(version, template));
+        if (benchmark.sink == 42) {
+            System.out.println();
+        }
+    }
+}
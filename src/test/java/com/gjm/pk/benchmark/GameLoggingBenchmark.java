@@ -0,0 +1,173 @@
+package com.gjm.pk.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.gjm.pk.PkApplication;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.DeferredFormattingAsyncAppender;
+import com.gjm.pk.monitor.GameEventLog;
+import com.gjm.pk.service.impl.GameService;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 游戏事件日志基准
+ * 在本进程内启动应用，6名人类玩家在同一下注轮中轮流最小加注，测量 GameService.playerAction 的耗时分布。
+ * 分别让游戏事件通道（poker.events）关闭、同步写文件（原先 GameService 在游戏线程上格式化并写 INFO 日志的方式）、
+ * 经 DeferredFormattingAsyncAppender 异步写文件，比较行动延迟，并统计各方式实际写出的行数（异步队列满时会丢弃）
+ *
+ * 用法：mvn -Pbenchmark test -Dbenchmark=GameLoggingBenchmark -Dbenchmark.args="[--actions=200000] [--hand-actions=200]"
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class GameLoggingBenchmark {
+
+    private static final String PATTERN = "ts=%d{yyyy-MM-dd'T'HH:mm:ss.SSS} thread=%thread %msg%n";
+    private static final int ASYNC_QUEUE_SIZE = 8192;
+
+    private final GameService gameService;
+    private final int actions;
+    private final int handActions;
+    private final LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger eventsLogger = loggerContext.getLogger(GameEventLog.LOGGER_NAME);
+
+    public GameLoggingBenchmark(GameService gameService, int actions, int handActions) {
+        this.gameService = gameService;
+        this.actions = actions;
+        this.handActions = handActions;
+    }
+
+    /**
+     * 执行若干次行动，返回每次的耗时（纳秒）
+     */
+    long[] runActions(int count) {
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (i % handActions == 0) {
+                gameService.startGame(gameService.getPlayers());
+            }
+            Player current = gameService.getCurrentPlayer();
+            int amount = gameService.getCurrentBetAmount() + 1;
+            long start = System.nanoTime();
+            boolean accepted = gameService.playerAction(current.getId(), "raise", amount);
+            nanos[i] = System.nanoTime() - start;
+            if (!accepted) {
+                throw new IllegalStateException("行动被拒绝: " + current.getId());
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * 把游戏事件通道接到指定 appender（null 表示关闭通道）
+     */
+    private void route(Appender<ILoggingEvent> appender) {
+        eventsLogger.detachAndStopAllAppenders();
+        eventsLogger.setAdditive(false);
+        if (appender == null) {
+            eventsLogger.setLevel(Level.OFF);
+            return;
+        }
+        eventsLogger.setLevel(Level.INFO);
+        eventsLogger.addAppender(appender);
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(File file) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(loggerContext);
+        appender.setName("benchmark-file");
+        appender.setFile(file.getAbsolutePath());
+        appender.setAppend(false);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private Appender<ILoggingEvent> asyncAppender(File file) {
+        DeferredFormattingAsyncAppender appender = new DeferredFormattingAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setName("benchmark-async");
+        appender.setQueueSize(ASYNC_QUEUE_SIZE);
+        appender.setDiscardingThreshold(ASYNC_QUEUE_SIZE / 5);
+        appender.setNeverBlock(true);
+        appender.setMaxFlushTime(30000);
+        appender.addAppender(fileAppender(file));
+        appender.start();
+        return appender;
+    }
+
+    private void measure(String name, Appender<ILoggingEvent> appender, File file) throws Exception {
+        route(appender);
+        runActions(Math.max(10000, actions / 5));
+        long[] nanos = runActions(actions);
+        // 停止 appender：异步方式会先写完队列中剩余的事件
+        route(null);
+        long lines = file != null && file.exists() ? Files.lines(file.toPath()).count() : 0;
+
+        long total = 0;
+        for (long value : nanos) {
+            total += value;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-10s 平均 %8.2f µs  p50 %8.2f µs  p99 %8.2f µs  p99.9 %8.2f µs  写出 %d 行%n",
+                name, total / 1e3 / nanos.length, percentile(nanos, 0.50), percentile(nanos, 0.99),
+                percentile(nanos, 0.999), lines);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e3;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        int actions = Integer.parseInt(options.getOrDefault("actions", "200000"));
+        int handActions = Integer.parseInt(options.getOrDefault("hand-actions", "200"));
+
+        // devtools 的重启会以无参数重新执行 main，必须在启动前关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PkApplication.class)
+                .run("--server.port=0", "--logging.level.com.gjm.pk=WARN");
+        try {
+            GameService gameService = context.getBean(GameService.class);
+            for (int i = 0; i < GameService.MAX_PLAYERS; i++) {
+                gameService.addRealPlayer("bench_" + i, "基准玩家" + i, Integer.MAX_VALUE / 2);
+            }
+            GameLoggingBenchmark benchmark = new GameLoggingBenchmark(gameService, actions, handActions);
+            File syncFile = File.createTempFile("game-events-sync", ".log");
+            File asyncFile = File.createTempFile("game-events-async", ".log");
+            syncFile.deleteOnExit();
+            asyncFile.deleteOnExit();
+
+            System.out.printf("6名玩家，每手 %d 次行动，共 %d 次行动%n", handActions, actions);
+            benchmark.measure("关闭", null, null);
+            benchmark.measure("同步", benchmark.fileAppender(syncFile), syncFile);
+            benchmark.measure("异步", benchmark.asyncAppender(asyncFile), asyncFile);
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,266 @@
+package com.gjm.pk.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.service.impl.GameService;
+import com.gjm.pk.simulation.HeadlessTable;
+import com.gjm.pk.simulation.Seeds;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * AI自我对弈联赛
+ * 让任意一组AI配置两两进行单挑，使用复式发牌（同一洗牌种子、交换座位各打一次）降低方差，
+ * 在所有CPU核心上无界面运行，输出每组对局的 bb/100 及95%置信区间，并写出排行榜文件
+ *
+ * 用法：mvn -Pbenchmark test -Dbenchmark=LeagueRunner -Dbenchmark.args="[--levels=EASY,MEDIUM,HARD,EXPERT]
+ *      [--hands=1000000] [--threads=核数] [--seed=20250923] [--stack-bb=100] [--out=league-leaderboard.md]"
+ *
+ * @author: guojianming
+ * @date: 2025/10/10
+ */
+public class LeagueRunner {
+
+    /** 每个任务处理的复式牌对数 */
+    private static final int PAIRS_PER_TASK = 2_000;
+    /** 95%置信区间对应的z值 */
+    private static final double Z_95 = 1.96;
+
+    private final AIPlayerDecisionService decisionService = new AIPlayerDecisionService(new BoardTextureAnalyzer());
+    private final List<AIPlayerDecisionService.AILevel> levels;
+    private final long handsPerMatchup;
+    private final int threads;
+    private final long seed;
+    private final int stack;
+    private final int smallBlind = GameService.DEFAULT_SMALL_BLIND;
+    private final int bigBlind = GameService.DEFAULT_BIG_BLIND;
+
+    public LeagueRunner(List<AIPlayerDecisionService.AILevel> levels, long handsPerMatchup,
+                        int threads, long seed, int stackInBigBlinds) {
+        if (levels.size() < 2) {
+            throw new IllegalArgumentException("至少需要2个AI配置");
+        }
+        this.levels = levels;
+        this.handsPerMatchup = handsPerMatchup;
+        this.threads = threads;
+        this.seed = seed;
+        this.stack = stackInBigBlinds * bigBlind;
+    }
+
+    /**
+     * 单组对局（A对B）的统计量，以A的视角计，单位为大盲
+     * 每个样本是一对复式牌（两手）的合计盈亏
+     */
+    public static class MatchupStats {
+        private final AIPlayerDecisionService.AILevel first;
+        private final AIPlayerDecisionService.AILevel second;
+        private long pairs;
+        private double sum;
+        private double sumOfSquares;
+
+        MatchupStats(AIPlayerDecisionService.AILevel first, AIPlayerDecisionService.AILevel second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        void add(double pairResultInBigBlinds) {
+            pairs++;
+            sum += pairResultInBigBlinds;
+            sumOfSquares += pairResultInBigBlinds * pairResultInBigBlinds;
+        }
+
+        void merge(MatchupStats other) {
+            pairs += other.pairs;
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+        }
+
+        public AIPlayerDecisionService.AILevel getFirst() { return first; }
+        public AIPlayerDecisionService.AILevel getSecond() { return second; }
+        public long getHands() { return pairs * 2; }
+
+        /** A相对B的 bb/100 */
+        public double getBbPer100() {
+            return pairs == 0 ? 0 : sum / pairs / 2 * 100;
+        }
+
+        /** bb/100 的95%置信区间半宽 */
+        public double getConfidence95() {
+            if (pairs < 2) {
+                return Double.NaN;
+            }
+            double mean = sum / pairs;
+            double variance = (sumOfSquares - pairs * mean * mean) / (pairs - 1);
+            return Z_95 * Math.sqrt(Math.max(0, variance) / pairs) / 2 * 100;
+        }
+
+        /** 置信区间不含0，即差异显著 */
+        public boolean isSignificant() {
+            return Math.abs(getBbPer100()) > getConfidence95();
+        }
+    }
+
+    /**
+     * 运行全部两两对局
+     */
+    public List<MatchupStats> run() throws Exception {
+        long pairsPerMatchup = Math.max(1, handsPerMatchup / 2);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Map<MatchupStats, List<Future<MatchupStats>>> pending = new LinkedHashMap<>();
+            for (int i = 0; i < levels.size(); i++) {
+                for (int j = i + 1; j < levels.size(); j++) {
+                    AIPlayerDecisionService.AILevel first = levels.get(i);
+                    AIPlayerDecisionService.AILevel second = levels.get(j);
+                    List<Future<MatchupStats>> futures = new ArrayList<>();
+                    for (long from = 0; from < pairsPerMatchup; from += PAIRS_PER_TASK) {
+                        long to = Math.min(pairsPerMatchup, from + PAIRS_PER_TASK);
+                        long start = from;
+                        futures.add(pool.submit(() -> playPairs(first, second, start, to)));
+                    }
+                    pending.put(new MatchupStats(first, second), futures);
+                }
+            }
+
+            List<MatchupStats> results = new ArrayList<>();
+            for (Map.Entry<MatchupStats, List<Future<MatchupStats>>> entry : pending.entrySet()) {
+                MatchupStats total = entry.getKey();
+                for (Future<MatchupStats> future : entry.getValue()) {
+                    total.merge(future.get());
+                }
+                results.add(total);
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 打 [from, to) 区间的复式牌对，第k对使用的洗牌种子对所有对局相同
+     */
+    private MatchupStats playPairs(AIPlayerDecisionService.AILevel first, AIPlayerDecisionService.AILevel second,
+                                   long from, long to) {
+        HeadlessTable table = new HeadlessTable(decisionService, smallBlind, bigBlind);
+        MatchupStats stats = new MatchupStats(first, second);
+        Player a = new Player("A", first.name(), stack, true, first);
+        Player b = new Player("B", second.name(), stack, true, second);
+        List<Player> firstSeating = Arrays.asList(a, b);
+        List<Player> swappedSeating = Arrays.asList(b, a);
+        Random decisionRng = new Random();
+
+        for (long k = from; k < to; k++) {
+            long deckSeed = Seeds.mix(seed + k);
+            long decisionSeed = Seeds.mix(deckSeed);
+
+            a.setChips(stack);
+            b.setChips(stack);
+            decisionRng.setSeed(decisionSeed);
+            int result = table.playHand(firstSeating, 0, deckSeed, decisionRng).getChipDeltas()[0];
+
+            a.setChips(stack);
+            b.setChips(stack);
+            decisionRng.setSeed(decisionSeed);
+            result += table.playHand(swappedSeating, 0, deckSeed, decisionRng).getChipDeltas()[1];
+
+            stats.add((double) result / bigBlind);
+        }
+        return stats;
+    }
+
+    /**
+     * 写出排行榜：按对所有对手的平均 bb/100 排序，并列出每组对局明细
+     */
+    public void writeLeaderboard(List<MatchupStats> results, Path output, double elapsedSeconds) throws IOException {
+        Map<AIPlayerDecisionService.AILevel, double[]> totals = new LinkedHashMap<>();
+        for (AIPlayerDecisionService.AILevel level : levels) {
+            totals.put(level, new double[2]);
+        }
+        long totalHands = 0;
+        for (MatchupStats stats : results) {
+            totals.get(stats.getFirst())[0] += stats.getBbPer100();
+            totals.get(stats.getFirst())[1]++;
+            totals.get(stats.getSecond())[0] -= stats.getBbPer100();
+            totals.get(stats.getSecond())[1]++;
+            totalHands += stats.getHands();
+        }
+        List<Map.Entry<AIPlayerDecisionService.AILevel, double[]>> ranking = new ArrayList<>(totals.entrySet());
+        ranking.sort(Comparator.comparingDouble(
+                (Map.Entry<AIPlayerDecisionService.AILevel, double[]> e) -> e.getValue()[0] / e.getValue()[1]).reversed());
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            out.println("# AI联赛排行榜");
+            out.println();
+            out.printf("种子: %d, 每组手数: %d, 筹码: %d bb, 线程: %d, 总手数: %d, 耗时: %.1fs, 速度: %.0f 手/秒%n",
+                    seed, handsPerMatchup, stack / bigBlind, threads, totalHands, elapsedSeconds,
+                    totalHands / Math.max(elapsedSeconds, 1e-9));
+            out.println();
+            out.println("| 名次 | AI配置 | 平均 bb/100 |");
+            out.println("|---|---|---|");
+            for (int i = 0; i < ranking.size(); i++) {
+                double[] total = ranking.get(i).getValue();
+                out.printf("| %d | %s | %+.2f |%n", i + 1, ranking.get(i).getKey(), total[0] / total[1]);
+            }
+            out.println();
+            out.println("| 对局 | 手数 | bb/100 | 95%置信区间 | 显著 |");
+            out.println("|---|---|---|---|---|");
+            for (MatchupStats stats : results) {
+                out.printf("| %s vs %s | %d | %+.2f | ±%.2f | %s |%n",
+                        stats.getFirst(), stats.getSecond(), stats.getHands(), stats.getBbPer100(),
+                        stats.getConfidence95(), stats.isSignificant() ? "是" : "否");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        List<AIPlayerDecisionService.AILevel> levels = new ArrayList<>();
+        for (String name : options.getOrDefault("levels", "EASY,MEDIUM,HARD,EXPERT").split(",")) {
+            levels.add(AIPlayerDecisionService.AILevel.valueOf(name.trim().toUpperCase()));
+        }
+        long hands = Long.parseLong(options.getOrDefault("hands", "1000000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(options.getOrDefault("seed", "20250923"));
+        int stackBb = Integer.parseInt(options.getOrDefault("stack-bb", "100"));
+        Path output = Paths.get(options.getOrDefault("out", "league-leaderboard.md"));
+
+        // 基准进程不经过 Spring 的日志配置，逐手决策日志会拖垮吞吐量，只保留告警
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.gjm.pk")).setLevel(Level.WARN);
+
+        LeagueRunner runner = new LeagueRunner(levels, hands, threads, seed, stackBb);
+        long start = System.nanoTime();
+        List<MatchupStats> results = runner.run();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        runner.writeLeaderboard(results, output, elapsed);
+
+        for (MatchupStats stats : results) {
+            System.out.printf("%s vs %s: %+.2f bb/100 ±%.2f (%d 手)%n", stats.getFirst(), stats.getSecond(),
+                    stats.getBbPer100(), stats.getConfidence95(), stats.getHands());
+        }
+        System.out.printf("排行榜已写入 %s，耗时 %.1fs%n", output.toAbsolutePath(), elapsed);
+    }
+}
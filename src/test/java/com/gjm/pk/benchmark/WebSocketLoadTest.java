@@ -0,0 +1,470 @@
+package com.gjm.pk.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gjm.pk.PkApplication;
+import com.gjm.pk.service.impl.GameService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 压测
+ * 在本进程内以随机端口启动应用，建立大量模拟客户端连接 /ws/game：前 players 个客户端入座，
+ * 根据收到的 gameState 在轮到自己时跟注/看牌，其余客户端以桌面订阅或观战身份只接收推送。
+ * 统计行动到广播的延迟分位数（从行动发出到各客户端收到下一个版本）、消息速率与字节数，
+ * 以及服务端线程的内存分配与服务端推送指标，结果写为JSON报告便于跨版本对比。
+ * 目前只有一张6人桌，入座人数不超过6
+ *
+ * 用法：mvn -Pbenchmark test -Dbenchmark=WebSocketLoadTest -Dbenchmark.args="[--clients=1000] [--players=6] [--seconds=60]
+ *      [--spectators=0.5] [--protocol=delta] [--connect-concurrency=64] [--report=target/loadtest/xxx.json]"
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+public class WebSocketLoadTest {
+
+    /** 客户端线程名前缀，分配统计时不计入服务端 */
+    private static final String[] CLIENT_THREAD_PREFIXES = {"WebSocketClient-", "main"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 最近一次入座客户端发出的行动：之后第一个版本号大于 baseVersion 的状态消息即为该行动的广播
+     */
+    private static final class ActionMark {
+        private final long sentNanos;
+        private final long baseVersion;
+
+        ActionMark(long sentNanos, long baseVersion) {
+            this.sentNanos = sentNanos;
+            this.baseVersion = baseVersion;
+        }
+    }
+
+    private final int clients;
+    private final int players;
+    private final int seconds;
+    private final double spectatorRatio;
+    private final String protocol;
+    private final int connectConcurrency;
+    private final String reportPath;
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong stateMessages = new AtomicLong();
+    private final AtomicLong actionsSent = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger seated = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    /** 各客户端各自记录延迟样本，结束时汇总 */
+    private final List<LoadClient> loadClients = new ArrayList<>();
+
+    private volatile ActionMark lastAction;
+    private volatile boolean measuring;
+
+    public WebSocketLoadTest(Map<String, String> options) {
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        this.players = Math.min(GameService.MAX_PLAYERS, Math.min(clients,
+                Integer.parseInt(options.getOrDefault("players", String.valueOf(GameService.MAX_PLAYERS)))));
+        this.seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        this.spectatorRatio = Double.parseDouble(options.getOrDefault("spectators", "0.5"));
+        this.protocol = options.getOrDefault("protocol", "delta");
+        this.connectConcurrency = Integer.parseInt(options.getOrDefault("connect-concurrency", "64"));
+        this.reportPath = options.getOrDefault("report", "target/loadtest/ws-loadtest-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+    }
+
+    /**
+     * 模拟客户端
+     */
+    private final class LoadClient extends TextWebSocketHandler {
+        private final int index;
+        private final boolean player;
+        private volatile WebSocketSession session;
+        private volatile String playerId;
+        private long version = -1;
+        private long actedVersion = -1;
+        private ActionMark measuredAction;
+        private long[] latencies = new long[256];
+        private int latencyCount;
+
+        LoadClient(int index, boolean player) {
+            this.index = index;
+            this.player = player;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            this.session = session;
+            if (player) {
+                send("{\"action\":\"join\",\"playerName\":\"压测玩家" + index + "\",\"chips\":1000}");
+            }
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            long receivedNanos = System.nanoTime();
+            if (!measuring) {
+                handle(MAPPER.readTree(message.getPayload()), receivedNanos, false);
+                return;
+            }
+            messages.incrementAndGet();
+            bytes.addAndGet(message.getPayloadLength());
+            handle(MAPPER.readTree(message.getPayload()), receivedNanos, true);
+        }
+
+        private synchronized void handle(JsonNode root, long receivedNanos, boolean record) throws Exception {
+            String type = root.path("type").asText();
+            JsonNode data = root.path("data");
+            switch (type) {
+                case "joinResult":
+                    if (data.path("success").asBoolean()) {
+                        playerId = data.path("player").path("id").asText();
+                        seated.incrementAndGet();
+                    }
+                    break;
+                case "gameState":
+                case "gameDelta":
+                    version = data.path("version").asLong(version);
+                    if (record) {
+                        stateMessages.incrementAndGet();
+                        ActionMark mark = lastAction;
+                        if (mark != null && mark != measuredAction && version > mark.baseVersion) {
+                            measuredAction = mark;
+                            addLatency(receivedNanos - mark.sentNanos);
+                        }
+                    }
+                    if ("gameState".equals(type)) {
+                        actIfMyTurn(data);
+                    }
+                    break;
+                case "error":
+                    if (record && errors.incrementAndGet() <= 5) {
+                        System.out.println("服务端返回错误: " + root.path("message").asText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 入座客户端使用完整快照，轮到自己时跟注（无需跟注时服务端按看牌处理）
+         */
+        private void actIfMyTurn(JsonNode data) throws Exception {
+            if (playerId == null || version <= actedVersion || !measuring) {
+                return;
+            }
+            String phase = data.path("currentPhase").asText();
+            if ("WAITING".equals(phase) || "FINISHED".equals(phase)
+                    || !playerId.equals(data.path("currentPlayer").path("id").asText(null))) {
+                return;
+            }
+            actedVersion = version;
+            lastAction = new ActionMark(System.nanoTime(), version);
+            actionsSent.incrementAndGet();
+            send("{\"action\":\"playerAction\",\"actionType\":\"call\",\"amount\":0}");
+        }
+
+        private void addLatency(long nanos) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = nanos;
+        }
+
+        synchronized long[] drainLatencies() {
+            return Arrays.copyOf(latencies, latencyCount);
+        }
+
+        void send(String payload) throws Exception {
+            WebSocketSession current = session;
+            if (current != null && current.isOpen()) {
+                synchronized (current) {
+                    current.sendMessage(new TextMessage(payload));
+                }
+            }
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+            closed.incrementAndGet();
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> run() throws Exception {
+        // devtools 的重启会以无参数重新执行 main，必须在启动前关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(PkApplication.class)
+                        .run("--server.port=0",
+                                "--logging.level.com.gjm.pk=WARN",
+                                "--logging.level.org.springframework.web.socket=WARN");
+        try {
+            int port = context.getWebServer().getPort();
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+            String baseUrl = "ws://localhost:" + port + "/ws/game?protocol=";
+
+            // 建立连接：入座客户端用完整快照以便读取当前行动玩家，其余按比例分为桌面订阅与观战
+            long connectStart = System.nanoTime();
+            Semaphore inFlight = new Semaphore(connectConcurrency);
+            CountDownLatch connected = new CountDownLatch(clients);
+            AtomicInteger connectFailures = new AtomicInteger();
+            int spectators = (int) Math.round((clients - players) * spectatorRatio);
+            for (int i = 0; i < clients; i++) {
+                boolean player = i < players;
+                boolean spectator = !player && i >= clients - spectators;
+                LoadClient client = new LoadClient(i, player);
+                loadClients.add(client);
+                String url = baseUrl + (player ? "json" : protocol) + (spectator ? "&role=spectator" : "");
+                inFlight.acquire();
+                webSocketClient.doHandshake(client, url).addCallback(session -> {
+                    inFlight.release();
+                    connected.countDown();
+                }, failure -> {
+                    inFlight.release();
+                    connectFailures.incrementAndGet();
+                    connected.countDown();
+                });
+            }
+            connected.await(2, TimeUnit.MINUTES);
+            double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+            long seatDeadline = System.currentTimeMillis() + 10000;
+            while (seated.get() < players && System.currentTimeMillis() < seatDeadline) {
+                Thread.sleep(50);
+            }
+            System.out.printf("已连接 %d 个客户端（失败 %d，用时 %.1fs），入座 %d 人，观战 %d 人%n",
+                    clients - connectFailures.get(), connectFailures.get(), connectSeconds, seated.get(), spectators);
+
+            // 开始测量后再开局，入座客户端自行行动
+            Map<String, Double> countersBefore = pokerCounters(meterRegistry);
+            Map<String, Long> allocationBefore = allocationByThreadGroup();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            measuring = true;
+            long start = System.nanoTime();
+            loadClients.get(0).send("{\"action\":\"startAutoGame\"}");
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            measuring = false;
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            Map<String, Long> allocationAfter = allocationByThreadGroup();
+            Map<String, Double> countersAfter = pokerCounters(meterRegistry);
+            long gcCount = gcCount() - gcCountBefore;
+            long gcMillis = gcMillis() - gcMillisBefore;
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("timestamp", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX").format(new Date()));
+            report.put("version", PkApplication.class.getPackage().getImplementationVersion());
+            report.put("javaVersion", System.getProperty("java.version"));
+            report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("clients", clients);
+            config.put("players", players);
+            config.put("spectators", spectators);
+            config.put("protocol", protocol);
+            config.put("seconds", seconds);
+            report.put("config", config);
+
+            Map<String, Object> connections = new LinkedHashMap<>();
+            connections.put("connected", clients - connectFailures.get());
+            connections.put("failed", connectFailures.get());
+            connections.put("seated", seated.get());
+            connections.put("closedDuringRun", closed.get());
+            connections.put("connectSeconds", round(connectSeconds));
+            report.put("connections", connections);
+
+            Map<String, Object> traffic = new LinkedHashMap<>();
+            traffic.put("messages", messages.get());
+            traffic.put("stateMessages", stateMessages.get());
+            traffic.put("messagesPerSecond", round(messages.get() / elapsedSeconds));
+            traffic.put("bytes", bytes.get());
+            traffic.put("bytesPerSecond", round(bytes.get() / elapsedSeconds));
+            traffic.put("actionsSent", actionsSent.get());
+            traffic.put("errors", errors.get());
+            report.put("traffic", traffic);
+
+            report.put("actionToBroadcastMillis", latencySummary());
+
+            long serverAllocated = 0;
+            Map<String, Object> allocationByGroup = new TreeMap<>();
+            for (Map.Entry<String, Long> entry : allocationAfter.entrySet()) {
+                long allocated = entry.getValue() - allocationBefore.getOrDefault(entry.getKey(), 0L);
+                if (allocated <= 0) {
+                    continue;
+                }
+                allocationByGroup.put(entry.getKey(), allocated);
+                if (!isClientThread(entry.getKey())) {
+                    serverAllocated += allocated;
+                }
+            }
+            Map<String, Object> server = new LinkedHashMap<>();
+            server.put("allocatedBytes", serverAllocated);
+            server.put("allocatedBytesPerSecond", round(serverAllocated / elapsedSeconds));
+            server.put("allocatedBytesPerStateMessage", stateMessages.get() > 0 ? serverAllocated / stateMessages.get() : 0);
+            server.put("allocatedBytesByThreadGroup", allocationByGroup);
+            server.put("gcCount", gcCount);
+            server.put("gcMillis", gcMillis);
+            Map<String, Object> counters = new TreeMap<>();
+            for (Map.Entry<String, Double> entry : countersAfter.entrySet()) {
+                counters.put(entry.getKey(), entry.getValue() - countersBefore.getOrDefault(entry.getKey(), 0.0));
+            }
+            server.put("counters", counters);
+            report.put("server", server);
+
+            for (LoadClient client : loadClients) {
+                if (client.session != null && client.session.isOpen()) {
+                    client.session.close();
+                }
+            }
+            return report;
+        } finally {
+            context.close();
+        }
+    }
+
+    private Map<String, Object> latencySummary() {
+        int total = 0;
+        List<long[]> parts = new ArrayList<>();
+        for (LoadClient client : loadClients) {
+            long[] part = client.drainLatencies();
+            parts.add(part);
+            total += part.length;
+        }
+        long[] samples = new long[total];
+        int position = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, samples, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(samples);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("samples", samples.length);
+        if (samples.length > 0) {
+            summary.put("p50", percentile(samples, 0.50));
+            summary.put("p90", percentile(samples, 0.90));
+            summary.put("p99", percentile(samples, 0.99));
+            summary.put("p999", percentile(samples, 0.999));
+            summary.put("max", round(samples[samples.length - 1] / 1e6));
+        }
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return round(sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 按线程名分组的累计分配字节数（去掉末尾编号）
+     */
+    private static Map<String, Long> allocationByThreadGroup() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<String, Long> groups = new HashMap<>();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return groups;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            long allocated = allocationBean.getThreadAllocatedBytes(thread.getId());
+            if (allocated > 0) {
+                groups.merge(thread.getName().replaceAll("[-_]?\\d+$", ""), allocated, Long::sum);
+            }
+        }
+        return groups;
+    }
+
+    private static boolean isClientThread(String group) {
+        for (String prefix : CLIENT_THREAD_PREFIXES) {
+            if (group.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Double> pokerCounters(MeterRegistry meterRegistry) {
+        Map<String, Double> values = new HashMap<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            String name = meter.getId().getName();
+            if (name.startsWith("poker.") && meter instanceof Counter) {
+                values.merge(name, ((Counter) meter).count(), Double::sum);
+            }
+        }
+        return values;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        WebSocketLoadTest loadTest = new WebSocketLoadTest(options);
+        Map<String, Object> report = loadTest.run();
+
+        File file = new File(loadTest.reportPath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        MAPPER.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        System.out.println("报告已写入 " + file.getAbsolutePath());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 顺子听牌分类与听牌缓存
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class BoardTextureAnalyzerTest {
+
+    private final BoardTextureAnalyzer analyzer = new BoardTextureAnalyzer();
+
+    @Test
+    void fourInARowWithBothEndsIsOpenEnded() {
+        BoardTextureAnalyzer.DrawInfo draws = analyzer.analyzeDraws(
+                cards(0, 8, 1, 7), cards(2, 6, 3, 5, 0, 13));
+        assertTrue(draws.isOpenEndedStraightDraw());
+        assertFalse(draws.isDoubleGutshot());
+        assertFalse(draws.isGutshot());
+        assertEquals(8, draws.getStraightOuts());
+    }
+
+    @Test
+    void twoCompletingRanksWithoutFourInARowIsDoubleGutshot() {
+        // 9-7 / J-8-5：10 与 6 都能成顺，但没有连续4个点数
+        BoardTextureAnalyzer.DrawInfo draws = analyzer.analyzeDraws(
+                cards(0, 9, 1, 7), cards(2, 11, 3, 8, 0, 5));
+        assertFalse(draws.isOpenEndedStraightDraw());
+        assertTrue(draws.isDoubleGutshot());
+        assertFalse(draws.isGutshot());
+        assertEquals(8, draws.getStraightOuts());
+    }
+
+    @Test
+    void wheelDrawHasOnlyOneEnd() {
+        BoardTextureAnalyzer.DrawInfo draws = analyzer.analyzeDraws(
+                cards(0, 14, 1, 2), cards(2, 3, 3, 4, 0, 11));
+        assertFalse(draws.isOpenEndedStraightDraw());
+        assertTrue(draws.isGutshot());
+    }
+
+    @Test
+    void isomorphicHandsShareCachedDraws() {
+        BoardTextureAnalyzer.DrawInfo spades = analyzer.analyzeDraws(
+                cards(0, 14, 0, 13), cards(0, 7, 0, 2, 1, 9));
+        BoardTextureAnalyzer.DrawInfo hearts = analyzer.analyzeDraws(
+                cards(1, 14, 1, 13), cards(1, 7, 1, 2, 0, 9));
+        assertSame(spades, hearts);
+        assertTrue(hearts.isFlushDraw());
+        assertEquals(1, analyzer.getDrawCacheStats().hitCount());
+    }
+
+    /**
+     * 按 (花色, 点数) 成对给出的牌
+     */
+    private static List<Card> cards(int... suitRankPairs) {
+        Card[] cards = new Card[suitRankPairs.length / 2];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = new Card(suitRankPairs[2 * i], suitRankPairs[2 * i + 1]);
+        }
+        return Arrays.asList(cards);
+    }
+}
@@ -0,0 +1,74 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HandEvaluator 两套评估（结算用的 evaluateHand 与胜率计算用的整数牌力）结果一致
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class HandEvaluatorTest {
+
+    @Test
+    void wheelIsFiveHighStraight() {
+        List<Card> wheel = Arrays.asList(new Card(0, 14), new Card(1, 2));
+        List<Card> sixHigh = Arrays.asList(new Card(0, 6), new Card(2, 2));
+        List<Card> board = Arrays.asList(new Card(2, 3), new Card(3, 4), new Card(0, 5), new Card(1, 9), new Card(2, 11));
+
+        HandEvaluator.HandResult wheelResult = HandEvaluator.evaluateHand(wheel, board);
+        assertEquals(HandEvaluator.HandType.STRAIGHT, wheelResult.getHandType());
+        assertEquals(Collections.singletonList(5), wheelResult.getRanks());
+        assertTrue(HandEvaluator.isHandBetter(HandEvaluator.evaluateHand(sixHigh, board), wheelResult));
+    }
+
+    @Test
+    void steelWheelIsStraightFlushNotRoyal() {
+        List<Card> hole = Arrays.asList(new Card(0, 14), new Card(0, 2));
+        List<Card> board = Arrays.asList(new Card(0, 3), new Card(0, 4), new Card(0, 5), new Card(1, 9), new Card(2, 9));
+
+        HandEvaluator.HandResult result = HandEvaluator.evaluateHand(hole, board);
+        assertEquals(HandEvaluator.HandType.STRAIGHT_FLUSH, result.getHandType());
+        assertEquals(Collections.singletonList(5), result.getRanks());
+    }
+
+    @Test
+    void evaluateHandAgreesWithPackedRank() {
+        List<Card> deck = new ArrayList<>(52);
+        for (int suit = 0; suit < 4; suit++) {
+            for (int rank = 2; rank <= 14; rank++) {
+                deck.add(new Card(suit, rank));
+            }
+        }
+        Random random = new Random(20251015L);
+        for (int i = 0; i < 20_000; i++) {
+            Collections.shuffle(deck, random);
+            List<Card> board = deck.subList(4, 9);
+            HandEvaluator.HandResult first = HandEvaluator.evaluateHand(deck.subList(0, 2), board);
+            HandEvaluator.HandResult second = HandEvaluator.evaluateHand(deck.subList(2, 4), board);
+            int firstRank = HandEvaluator.evaluateRank(concat(deck.subList(0, 2), board));
+            int secondRank = HandEvaluator.evaluateRank(concat(deck.subList(2, 4), board));
+
+            int expected = Integer.signum(firstRank - secondRank);
+            int actual = HandEvaluator.isHandBetter(first, second) ? 1 : HandEvaluator.isHandBetter(second, first) ? -1 : 0;
+            assertEquals(expected, actual, () -> first + " vs " + second);
+            assertEquals(HandEvaluator.handTypeOf(firstRank), first.getHandType());
+        }
+    }
+
+    private static List<Card> concat(List<Card> hole, List<Card> board) {
+        List<Card> cards = new ArrayList<>(hole);
+        cards.addAll(board);
+        return cards;
+    }
+}
@@ -0,0 +1,62 @@
+package com.gjm.pk.service;
+
+import com.gjm.pk.entity.Card;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 底池结算：边池按投入切分，余数给庄家之后的第一位赢家
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class PotSettlementTest {
+
+    private static final List<Card> BOARD = Card.parseList("2c7d9hJs4s");
+
+    @Test
+    void shortAllInWinsOnlyTheMainPot() {
+        HandEvaluator.HandResult[] results = {
+                evaluate("AcAd"), evaluate("KdKh"), evaluate("QcQd")};
+        boolean[] inHand = {true, true, true};
+        int[] contributions = {100, 500, 500};
+
+        // 主池 300 归全下的0号位，边池 800 归1号位
+        assertArrayEquals(new int[]{300, 800, 0}, PotSettlement.settle(inHand, contributions, results, 2));
+    }
+
+    @Test
+    void oddChipGoesToFirstWinnerAfterDealer() {
+        HandEvaluator.HandResult[] results = {
+                evaluate("AcQd"), evaluate("AdQh"), evaluate("3c5d")};
+        boolean[] inHand = {true, true, true};
+        int[] contributions = {35, 35, 35};
+
+        assertArrayEquals(new int[]{52, 53, 0}, PotSettlement.settle(inHand, contributions, results, 0));
+        assertArrayEquals(new int[]{53, 52, 0}, PotSettlement.settle(inHand, contributions, results, 2));
+    }
+
+    @Test
+    void foldedChipsAboveEveryShowdownStakeGoToLastLayerWinner() {
+        HandEvaluator.HandResult[] results = {evaluate("AcAd"), null, evaluate("QcQd")};
+        boolean[] inHand = {true, false, true};
+        int[] contributions = {100, 300, 100};
+
+        assertArrayEquals(new int[]{500, 0, 0}, PotSettlement.settle(inHand, contributions, results, 1));
+    }
+
+    @Test
+    void uncontestedPotNeedsNoHandResults() {
+        boolean[] inHand = {false, true, false};
+        int[] contributions = {10, 60, 20};
+
+        assertArrayEquals(new int[]{0, 90, 0}, PotSettlement.settle(inHand, contributions, null, 0));
+    }
+
+    private static HandEvaluator.HandResult evaluate(String holeCards) {
+        return HandEvaluator.evaluateHand(Card.parseList(holeCards), BOARD);
+    }
+}
@@ -0,0 +1,107 @@
+package com.gjm.pk.service.impl;
+
+import com.gjm.pk.config.GameWebSocketHandler;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.monitor.GameMetrics;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.EquityService;
+import com.gjm.pk.service.LegalActions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * GameService 下注流程测试（真实的阶段定时器，协作者均为 mock）
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class GameServiceTest {
+
+    /** 等待阶段定时器（1500ms）推进的最长时间 */
+    private static final long PHASE_WAIT_MILLIS = 5000;
+
+    private GameService gameService;
+    private Player shortStack;
+    private Player smallBlind;
+    private Player bigBlind;
+
+    @BeforeEach
+    void setUp() {
+        EquityService equityService = mock(EquityService.class);
+        when(equityService.equity(any(), any(), any(), anyInt())).thenReturn(new CompletableFuture<>());
+        gameService = new GameService(mock(AIPlayerDecisionService.class),
+                new GameMetrics(new SimpleMeterRegistry()), equityService);
+        gameService.setWebSocketHandler(mock(GameWebSocketHandler.class));
+
+        // 首手牌庄家为0号位，翻牌前由庄家（短筹码）先行动
+        shortStack = new Player("c", "C", 100, false);
+        smallBlind = new Player("a", "A", 1000, false);
+        bigBlind = new Player("b", "B", 1000, false);
+        gameService.startGame(Arrays.asList(shortStack, smallBlind, bigBlind));
+    }
+
+    /**
+     * 翻牌前全下的玩家在之后的街不再轮到行动，其余两人下注、跟注后本轮结束并进入下一条街
+     */
+    @Test
+    void allInPlayerFromEarlierStreetDoesNotBlockLaterBettingRound() throws InterruptedException {
+        assertEquals(shortStack.getId(), gameService.getCurrentPlayer().getId());
+        assertTrue(gameService.playerAction("c", "allin", 0));
+        assertTrue(gameService.playerAction("a", "call", 0));
+        assertTrue(gameService.playerAction("b", "call", 0));
+        awaitPhase(GameService.GamePhase.FLOP);
+
+        assertEquals(0, shortStack.getChips());
+        assertEquals(0, shortStack.getCurrentBet());
+        assertEquals(smallBlind.getId(), gameService.getCurrentPlayer().getId());
+        assertEquals("不是你的回合", gameService.checkAction("c", "check", 0));
+
+        assertTrue(gameService.playerAction("a", "raise", 100));
+        LegalActions facingBet = gameService.getLegalActions();
+        assertNotNull(facingBet);
+        assertEquals(bigBlind.getId(), facingBet.getPlayerId());
+        assertNotNull(gameService.checkAction("b", "check", 0));
+        assertTrue(gameService.playerAction("b", "call", 0));
+
+        Player next = gameService.getCurrentPlayer();
+        assertTrue(next == null || !next.getId().equals(shortStack.getId()));
+        awaitPhase(GameService.GamePhase.TURN);
+        assertNotEquals(shortStack.getId(), gameService.getLegalActions().getPlayerId());
+    }
+
+    /**
+     * 只剩一名有筹码的玩家且已跟到最高下注时不再发放行动权
+     */
+    @Test
+    void noLegalActionsOnceEveryoneElseIsAllIn() throws InterruptedException {
+        assertTrue(gameService.playerAction("c", "allin", 0));
+        assertTrue(gameService.playerAction("a", "allin", 0));
+        assertTrue(gameService.playerAction("b", "call", 0));
+        awaitPhase(GameService.GamePhase.FLOP);
+
+        assertNull(gameService.getCurrentPlayer());
+        assertNull(gameService.getLegalActions());
+    }
+
+    private void awaitPhase(GameService.GamePhase phase) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PHASE_WAIT_MILLIS;
+        while (gameService.getCurrentPhase() != phase && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(phase, gameService.getCurrentPhase());
+    }
+}
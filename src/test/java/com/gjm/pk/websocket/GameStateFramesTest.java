@@ -0,0 +1,232 @@
+package com.gjm.pk.websocket;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gjm.pk.entity.Card;
+import com.gjm.pk.entity.Player;
+import com.gjm.pk.service.AIPlayerDecisionService;
+import com.gjm.pk.service.BoardTextureAnalyzer;
+import com.gjm.pk.websocket.dto.PrivateGameState;
+import com.gjm.pk.websocket.dto.PublicGameState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GameStateFrames 拼接出的快照与增量：用 Jackson 解析回来（开启重复键检测），
+ * 并校验"上一版本快照 + 增量"与本版本快照一致
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class GameStateFramesTest {
+
+    private static final long GAME_ID = 42L;
+
+    private final ObjectMapper strictMapper = new ObjectMapper()
+            .enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+    private final GameMessageJson json = new GameMessageJson(new ObjectMapper());
+    private final BoardTextureAnalyzer analyzer = new BoardTextureAnalyzer();
+
+    private Player human;
+    private Player ai;
+    private Player other;
+    private List<Player> players;
+    private List<Card> board;
+
+    @BeforeEach
+    void setUp() {
+        human = new Player("p1", "玩家1", 1000, false);
+        ai = new Player("p2", "AI玩家2", 1000, true, AIPlayerDecisionService.AILevel.MEDIUM);
+        other = new Player("p3", "玩家3", 1000, false);
+        players = Arrays.asList(human, ai, other);
+        human.getHoleCards().addAll(Card.parseList("AhKh"));
+        ai.getHoleCards().addAll(Card.parseList("QcQd"));
+        other.getHoleCards().addAll(Card.parseList("7s6s"));
+        board = new ArrayList<>();
+        ai.bet(10);
+        other.bet(20);
+    }
+
+    @Test
+    void splicedSnapshotCarriesOnlyTheRecipientsPrivateFields() throws IOException {
+        GameStateFrames frames = GameStateFrames.encode(json, 1, publicState("PRE_FLOP", ai, 30), null);
+        PrivateGameState privateState = GameStateView.privateState(human, board, analyzer);
+
+        JsonNode message = strictMapper.readTree(frames.snapshotFor(human.getId(), privateState));
+        assertEquals("gameState", message.get("type").asText());
+        JsonNode data = message.get("data");
+        assertEquals(1, data.get("version").asLong());
+        assertEquals(GAME_ID, data.get("gameId").asLong());
+        assertEquals(2, player(data, "p1").get("holeCards").size());
+        assertFalse(player(data, "p2").has("holeCards"));
+        assertFalse(player(data, "p3").has("holeCards"));
+
+        // 拼接只在本人条目中插入字段，其余部分与共享快照相同
+        ObjectNode shared = (ObjectNode) strictMapper.readTree(frames.snapshotFor(null, null));
+        ((ObjectNode) player(data, "p1")).remove("holeCards");
+        assertEquals(shared, message);
+    }
+
+    @Test
+    void showdownSnapshotDoesNotRepeatRevealedHoleCards() throws IOException {
+        GameStateFrames frames = GameStateFrames.encode(json, 5, publicState("SHOWDOWN", null, 60), null);
+        PrivateGameState privateState = GameStateView.privateState(human, board, analyzer);
+
+        JsonNode revealed = strictMapper.readTree(frames.snapshotFor(human.getId(), privateState)).get("data");
+        assertEquals(2, player(revealed, "p1").get("holeCards").size());
+        // 手牌已在公共条目中，没有其他私有字段时直接共享同一份字节与同一条消息
+        assertSame(frames.snapshotFor(null, null), frames.snapshotFor(human.getId(), privateState));
+        assertSame(frames.snapshotMessageFor(null, null), frames.snapshotMessageFor(human.getId(), privateState));
+
+        board.addAll(Card.parseList("Kd9h2c"));
+        PrivateGameState withDraws = new PrivateGameState(privateState.getHoleCards(),
+                GameStateView.privateState(human, board, analyzer).getDraws(), null);
+        JsonNode data = strictMapper.readTree(frames.snapshotFor(human.getId(), withDraws)).get("data");
+        JsonNode self = player(data, "p1");
+        assertEquals(2, self.get("holeCards").size());
+        assertTrue(self.has("draws"));
+    }
+
+    @Test
+    void deltaAppliedToPreviousSnapshotMatchesNextSnapshot() throws IOException {
+        PublicGameState preFlop = publicState("PRE_FLOP", human, 30);
+        GameStateFrames first = GameStateFrames.encode(json, 1, preFlop, null);
+
+        human.call(20);
+        human.resetCurrentBet();
+        ai.resetCurrentBet();
+        other.resetCurrentBet();
+        board.addAll(Card.parseList("Kd9h2c"));
+        PublicGameState flop = publicState("FLOP", ai, 50);
+        GameStateFrames second = GameStateFrames.encode(json, 2, flop, GameStateDelta.diff(preFlop, flop));
+
+        PublicGameState showdown = publicState("SHOWDOWN", null, 50);
+        GameStateFrames third = GameStateFrames.encode(json, 3, showdown, GameStateDelta.diff(flop, showdown));
+
+        ObjectNode state = (ObjectNode) strictMapper.readTree(first.snapshotFor(null, null)).get("data");
+        for (GameStateFrames frames : Arrays.asList(second, third)) {
+            JsonNode delta = strictMapper.readTree(frames.deltaFor(null));
+            assertEquals("gameDelta", delta.get("type").asText());
+            assertEquals(state.get("version").asLong(), delta.get("data").get("baseVersion").asLong());
+            apply(state, (ObjectNode) delta.get("data"));
+
+            ObjectNode expected = (ObjectNode) strictMapper.readTree(frames.snapshotFor(null, null)).get("data");
+            assertEquals(currentPlayerId(expected), currentPlayerId(state));
+            expected.remove("currentPlayer");
+            state.remove("currentPlayer");
+            assertEquals(expected, state);
+        }
+    }
+
+    @Test
+    void deltaWithSelfAppendsPrivateStateAndSharedDeltaIsOneMessage() throws IOException {
+        PublicGameState preFlop = publicState("PRE_FLOP", human, 30);
+        human.call(20);
+        PublicGameState afterCall = publicState("PRE_FLOP", ai, 50);
+        GameStateFrames frames = GameStateFrames.encode(json, 2, afterCall, GameStateDelta.diff(preFlop, afterCall));
+        PrivateGameState privateState = GameStateView.privateState(human, board, analyzer);
+
+        assertSame(frames.deltaMessageFor(null), frames.deltaMessageFor(null));
+        assertNotSame(frames.deltaMessageFor(null), frames.deltaMessageFor(privateState));
+
+        JsonNode data = strictMapper.readTree(frames.deltaFor(privateState)).get("data");
+        assertEquals(1, data.get("baseVersion").asLong());
+        assertEquals(2, data.get("version").asLong());
+        assertEquals(2, data.get("self").get("holeCards").size());
+        assertEquals(50, data.get("pot").asInt());
+
+        JsonNode selfOnly = strictMapper.readTree(frames.selfOnlyDelta(privateState)).get("data");
+        assertEquals(2, selfOnly.get("baseVersion").asLong());
+        assertEquals(2, selfOnly.get("version").asLong());
+        assertFalse(selfOnly.has("pot"));
+        assertEquals(2, selfOnly.get("self").get("holeCards").size());
+    }
+
+    private PublicGameState publicState(String phase, Player currentPlayer, int pot) {
+        return GameStateView.publicState(GAME_ID, players, board, pot, 20, phase, currentPlayer, false, null);
+    }
+
+    private static JsonNode player(JsonNode data, String playerId) {
+        for (JsonNode player : data.get("players")) {
+            if (playerId.equals(player.get("id").asText())) {
+                return player;
+            }
+        }
+        throw new AssertionError("缺少玩家 " + playerId);
+    }
+
+    private static String currentPlayerId(ObjectNode state) {
+        if (state.has("currentPlayerId")) {
+            JsonNode id = state.remove("currentPlayerId");
+            if (id.isNull()) {
+                state.remove("currentPlayer");
+            } else {
+                state.putObject("currentPlayer").put("id", id.asText());
+            }
+        }
+        JsonNode current = state.get("currentPlayer");
+        return current != null ? current.get("id").asText() : null;
+    }
+
+    /**
+     * 与前端 applyDelta 相同的合并规则
+     */
+    private static void apply(ObjectNode state, ObjectNode delta) {
+        Iterator<Map.Entry<String, JsonNode>> fields = delta.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String key = field.getKey();
+            JsonNode value = field.getValue();
+            switch (key) {
+                case "baseVersion":
+                case "self":
+                    break;
+                case "communityCardsAdded":
+                    ((ArrayNode) state.get("communityCards")).addAll((ArrayNode) value);
+                    break;
+                case "playerChanges":
+                    Iterator<Map.Entry<String, JsonNode>> changes = value.fields();
+                    while (changes.hasNext()) {
+                        Map.Entry<String, JsonNode> change = changes.next();
+                        ObjectNode player = (ObjectNode) player(state, change.getKey());
+                        mergeFields(player, (ObjectNode) change.getValue());
+                    }
+                    break;
+                default:
+                    if (value.isNull()) {
+                        state.remove(key);
+                    } else {
+                        state.set(key, value);
+                    }
+            }
+        }
+    }
+
+    private static void mergeFields(ObjectNode target, ObjectNode changes) {
+        Iterator<Map.Entry<String, JsonNode>> fields = changes.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                target.remove(field.getKey());
+            } else {
+                target.set(field.getKey(), field.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.gjm.pk.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * StateEventRing 补发范围的边界：已是最新、刚好接上最旧版本、已被覆盖、中间缺少增量与未来版本
+ *
+ * @author: guojianming
+ * @date: 2025/10/15
+ */
+class StateEventRingTest {
+
+    @Test
+    void emptyRingCannotReplay() {
+        assertNull(new StateEventRing(4).since(0));
+    }
+
+    @Test
+    void replaysMissedDeltasInOrder() {
+        StateEventRing ring = new StateEventRing(4);
+        ring.append(1, null);
+        ring.append(2, delta(2));
+        ring.append(3, delta(3));
+
+        assertEquals(Collections.emptyList(), versions(ring.since(3)));
+        assertEquals(Arrays.asList(3), versions(ring.since(2)));
+        assertEquals(Arrays.asList(2, 3), versions(ring.since(1)));
+        // 首个版本没有增量，更早的客户端只能收快照
+        assertNull(ring.since(0));
+        assertNull(ring.since(4));
+    }
+
+    @Test
+    void overwrittenVersionsFallBackToSnapshot() {
+        StateEventRing ring = new StateEventRing(3);
+        for (int version = 1; version <= 5; version++) {
+            ring.append(version, delta(version));
+        }
+
+        assertEquals(3, ring.size());
+        // 保留 3..5：版本2的客户端刚好能从版本3接上，版本1的客户端缺少版本2的增量
+        assertEquals(Arrays.asList(3, 4, 5), versions(ring.since(2)));
+        assertEquals(Arrays.asList(5), versions(ring.since(4)));
+        assertNull(ring.since(1));
+        assertEquals(Collections.emptyList(), versions(ring.since(5)));
+    }
+
+    @Test
+    void versionWithoutDeltaBreaksTheChain() {
+        StateEventRing ring = new StateEventRing(8);
+        ring.append(1, delta(1));
+        ring.append(2, delta(2));
+        // 重新编码（如观战者到来时补发的快照）没有增量
+        ring.append(3, null);
+        ring.append(4, delta(4));
+
+        assertNull(ring.since(1));
+        assertNull(ring.since(2));
+        assertEquals(Arrays.asList(4), versions(ring.since(3)));
+    }
+
+    private static byte[] delta(int version) {
+        return new byte[]{(byte) version};
+    }
+
+    private static List<Integer> versions(List<byte[]> deltas) {
+        List<Integer> versions = new ArrayList<>(deltas.size());
+        for (byte[] delta : deltas) {
+            versions.add((int) delta[0]);
+        }
+        return versions;
+    }
+}